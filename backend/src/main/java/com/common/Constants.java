@@ -5,4 +5,26 @@ package com.common;
  */
 public interface Constants {
 
+    /**
+     * 业务时区 (打卡日期按此时区划分)
+     */
+    String ZONE_ID = "Asia/Shanghai";
+
+    // ==================== 上链状态 ====================
+
+    String TX_STATUS_PENDING = "PENDING";
+    String TX_STATUS_SENDING = "SENDING";
+    String TX_STATUS_SENT = "SENT";
+    String TX_STATUS_FAILED = "FAILED";
+    /** 交易已打包且执行成功 */
+    String TX_STATUS_CONFIRMED = "CONFIRMED";
+    /** 交易已打包但执行回滚 */
+    String TX_STATUS_REVERTED = "REVERTED";
+
+    // ==================== 发件箱交易类型 ====================
+
+    /** recordDayComplete，可合并为批量交易 */
+    String OUTBOX_KIND_DAY_COMPLETE = "DAY_COMPLETE";
+    /** slash，每个挑战只能成功一次，单独发送 */
+    String OUTBOX_KIND_SLASH = "SLASH";
 }
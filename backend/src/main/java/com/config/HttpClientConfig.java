@@ -0,0 +1,109 @@
+package com.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * 出站 HTTP 客户端
+ * 每个外部集成 (github / strava / deepseek) 一个独立的连接池，互不抢占连接；
+ * 池满时请求最多等待 acquire-timeout-ms，相当于该集成的并发上限。
+ * 配置项: http.client.{name}.connect-timeout-ms / read-timeout-ms / max-connections / max-per-route / acquire-timeout-ms
+ * 连接池指标: httpcomponents.httpclient.pool.* (client 标签区分集成)
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public RestTemplate githubRestTemplate(RestTemplateBuilder builder, Environment env, MeterRegistry registry) {
+        return build("github", builder, Settings.from(env, "github", 30_000), registry);
+    }
+
+    @Bean
+    public RestTemplate stravaRestTemplate(RestTemplateBuilder builder, Environment env, MeterRegistry registry) {
+        return build("strava", builder, Settings.from(env, "strava", 30_000), registry);
+    }
+
+    /**
+     * 大模型接口响应慢，读超时默认 60 秒
+     */
+    @Bean
+    public RestTemplate deepseekRestTemplate(RestTemplateBuilder builder, Environment env, MeterRegistry registry) {
+        return build("deepseek", builder, Settings.from(env, "deepseek", 60_000), registry);
+    }
+
+    private static RestTemplate build(String name, RestTemplateBuilder builder, Settings settings, MeterRegistry registry) {
+        HttpComponentsClientHttpRequestFactory factory = requestFactory(name, settings, registry);
+        return builder.requestFactory(() -> factory).build();
+    }
+
+    /**
+     * 构建带连接池的请求工厂并注册连接池指标
+     */
+    public static HttpComponentsClientHttpRequestFactory requestFactory(String name, Settings settings,
+                                                                        MeterRegistry registry) {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxConnections)
+                .setMaxConnPerRoute(settings.maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(settings.connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(settings.readTimeoutMs))
+                        // 空闲超过 2 秒的连接复用前先检查是否已被对端关闭
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(settings.acquireTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, name).bindTo(registry);
+        return new HttpComponentsClientHttpRequestFactory(client);
+    }
+
+    /**
+     * 单个集成的连接池与超时配置
+     */
+    public static class Settings {
+        final int connectTimeoutMs;
+        final int readTimeoutMs;
+        final int maxConnections;
+        final int maxPerRoute;
+        final int acquireTimeoutMs;
+
+        public Settings(int connectTimeoutMs, int readTimeoutMs, int maxConnections, int maxPerRoute,
+                        int acquireTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+            this.readTimeoutMs = readTimeoutMs;
+            this.maxConnections = maxConnections;
+            this.maxPerRoute = maxPerRoute;
+            this.acquireTimeoutMs = acquireTimeoutMs;
+        }
+
+        static Settings from(Environment env, String name, int defaultReadTimeoutMs) {
+            String prefix = "http.client." + name + ".";
+            return new Settings(
+                    env.getProperty(prefix + "connect-timeout-ms", Integer.class, 5_000),
+                    env.getProperty(prefix + "read-timeout-ms", Integer.class, defaultReadTimeoutMs),
+                    env.getProperty(prefix + "max-connections", Integer.class, 50),
+                    env.getProperty(prefix + "max-per-route", Integer.class, 20),
+                    env.getProperty(prefix + "acquire-timeout-ms", Integer.class, 5_000));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.config;
+
+import com.service.ChatCompletionClient;
+import com.service.NoteVerifier;
+import com.service.ReadingNoteReviewer;
+import com.service.RuleBasedNoteVerifier;
+import com.utils.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * 阅读笔记审核引擎
+ * reading.verifier.engine:
+ *   deepseek (默认) - 阿里云百炼 DashScope，deepseek.api-url / api-key / model
+ *   openai          - 任意 OpenAI 兼容端点 (vLLM、Ollama 等)，reading.verifier.openai.base-url / api-key / model
+ *   rules           - 本地规则，不调用外部服务
+ * 大模型引擎共用 deepseek.limiter.* 并发限制与 deepseek.batch.* 合并配置，
+ * reading.verifier.rules-prompt 可替换审核规则提示词。
+ */
+@Configuration
+public class NoteVerifierConfig {
+
+    private static final String DASHSCOPE_URL = "https://dashscope.aliyuncs.com/compatible-mode/v1/chat/completions";
+
+    @Value("${reading.verifier.engine:deepseek}")
+    private String engine;
+
+    @Value("${reading.verifier.rules-prompt:}")
+    private String rulesPrompt;
+
+    @Bean
+    public NoteVerifier noteVerifier(@Qualifier("deepseekRestTemplate") RestTemplate restTemplate,
+                                     Environment env, MeterRegistry meterRegistry) {
+        switch (engine) {
+            case "rules":
+                return new RuleBasedNoteVerifier(
+                        env.getProperty("reading.verifier.rules.min-chars", Integer.class, 10),
+                        env.getProperty("reading.verifier.rules.min-distinct-ratio", Double.class, 0.3),
+                        env.getProperty("reading.verifier.rules.min-meaningful-ratio", Double.class, 0.6));
+            case "openai": {
+                String baseUrl = env.getRequiredProperty("reading.verifier.openai.base-url");
+                ChatCompletionClient client = new ChatCompletionClient(
+                        baseUrl.replaceAll("/+$", "") + "/chat/completions",
+                        env.getProperty("reading.verifier.openai.api-key", ""),
+                        env.getRequiredProperty("reading.verifier.openai.model"),
+                        restTemplate);
+                return reviewer("openai", client, env, meterRegistry);
+            }
+            case "deepseek": {
+                String apiKey = env.getProperty("deepseek.api-key", "");
+                // 缺少 key 时每次调用都会失败并走兜底放行，直接拒绝启动
+                if (apiKey.isEmpty()) {
+                    throw new IllegalStateException(
+                            "deepseek.api-key must be configured when reading.verifier.engine=deepseek");
+                }
+                ChatCompletionClient client = new ChatCompletionClient(
+                        env.getProperty("deepseek.api-url", DASHSCOPE_URL),
+                        apiKey,
+                        env.getProperty("deepseek.model", "deepseek-v3"),
+                        restTemplate);
+                return reviewer("deepseek", client, env, meterRegistry);
+            }
+            default:
+                throw new IllegalStateException("Unknown reading.verifier.engine: " + engine);
+        }
+    }
+
+    private ReadingNoteReviewer reviewer(String name, ChatCompletionClient client, Environment env,
+                                         MeterRegistry meterRegistry) {
+        int maxLimit = env.getProperty("deepseek.limiter.max", Integer.class, 32);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                env.getProperty("deepseek.limiter.initial", Integer.class, 8),
+                env.getProperty("deepseek.limiter.min", Integer.class, 1),
+                maxLimit,
+                // 超过该耗时的调用视为模型过载，收缩并发
+                env.getProperty("deepseek.limiter.latency-threshold-ms", Long.class, 20_000L),
+                0.75);
+        Gauge.builder("deepseek.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("deepseek.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        return new ReadingNoteReviewer(name, rulesPrompt, client, limiter,
+                env.getProperty("deepseek.limiter.acquire-timeout-ms", Long.class, 30_000L),
+                // 合并窗口: 第一条笔记最多多等这么久，0 表示不合并
+                env.getProperty("deepseek.batch.window-ms", Long.class, 200L),
+                env.getProperty("deepseek.batch.max-size", Integer.class, 10),
+                maxLimit, meterRegistry);
+    }
+}
@@ -1,17 +1,27 @@
 package com.controller;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.domain.DailyCheckIn;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.domain.entity.GitHubConnection;
+import com.service.CheckInPipeline;
+import com.service.CheckInService;
+import com.service.DashboardStatusService;
 import com.service.GitHubOAuthService;
-import com.service.GitHubService;
+import com.service.GitHubWebhookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,14 +33,11 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class AgentController {
 
-    @Autowired
-    private GitHubService gitHubService;
-
     @Autowired
     private GitHubOAuthService gitHubOAuthService;
 
     @Autowired
-    private com.service.BlockchainService blockchainService;
+    private GitHubWebhookService gitHubWebhookService;
 
     @Value("${frontend.url:http://localhost:3000}")
     private String frontendUrl;
@@ -98,216 +105,91 @@ public class AgentController {
         return result;
     }
 
-    // ==================== GitHub 打卡检测 ====================
+    /**
+     * GitHub Webhook 接收
+     * 签名校验失败返回 401；push 事件记入当日推送台账
+     */
+    @PostMapping("/github/webhook")
+    public ResponseEntity<String> githubWebhook(
+            @RequestHeader(value = "X-GitHub-Event", required = false) String event,
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestBody byte[] body) throws IOException {
+        if (!gitHubWebhookService.verifySignature(body, signature)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("invalid signature");
+        }
+        if (event != null) {
+            gitHubWebhookService.handle(event, body);
+        }
+        return ResponseEntity.ok("ok");
+    }
+
+    // ==================== 打卡检测 ====================
+
+    @Autowired
+    private CheckInService checkInService;
 
     @Autowired
-    private com.mapper.DailyCheckInMapper dailyCheckInMapper;
+    private CheckInPipeline checkInPipeline;
 
     /**
      * 检查用户今日 GitHub 打卡状态
      * @param walletAddress 用户钱包地址
-     * @param challengeId   挑战ID (前端传入)
+     * @param challengeId   挑战ID (前端传入，传入时写入打卡记录并异步上链)
      * @return 打卡结果
      */
     @GetMapping("/github/check")
-    public Map<String, Object> checkGitHub(
+    public DeferredResult<Map<String, Object>> checkGitHub(
             @RequestParam String walletAddress,
             @RequestParam(required = false) Long challengeId) {
-        
-        Map<String, Object> result = new HashMap<>();
-        
-        // 1. 获取用户的 GitHub 连接
-        GitHubConnection connection = gitHubOAuthService.getConnectionByWallet(walletAddress);
-        if (connection == null) {
-            result.put("success", false);
-            result.put("message", "请先绑定 GitHub 账号");
-            return result;
-        }
-
-        // 2. 检查今日提交
-        String username = connection.getGithubUsername();
-        String token = connection.getAccessToken();
-        
-        // 不再检查特定仓库，而是检查用户今日是否有 Push 事件
-        boolean hasCommits = gitHubService.hasCommitsToday(username, token);
-        
-        if (hasCommits) {
-            result.put("success", true);
-            result.put("clockedIn", true);
-            result.put("message", "今日已打卡 ✅");
-            
-            // 3. 如果从前端传入了 challengeId，则尝试记录上链
-            if (challengeId != null) {
-                // Check idempotency
-                java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneId.of("Asia/Shanghai"));
-                LambdaQueryWrapper<DailyCheckIn> query = new LambdaQueryWrapper<>();
-                query.eq(DailyCheckIn::getWalletAddress, walletAddress)
-                     .eq(DailyCheckIn::getChallengeId, challengeId)
-                     .eq(DailyCheckIn::getCheckInDate, today);
-                
-                if (dailyCheckInMapper.exists(query)) {
-                    result.put("message", "今日已打卡 ✅ (无需重复上链)");
-                } else {
-                    try {
-                        String txHash = blockchainService.recordDayComplete(walletAddress, java.math.BigInteger.valueOf(challengeId));
-                        
-                        // Record success in DB
-                        com.domain.DailyCheckIn checkIn = new com.domain.DailyCheckIn();
-                        checkIn.setWalletAddress(walletAddress);
-                        checkIn.setChallengeId(challengeId);
-                        checkIn.setCheckInDate(today);
-                        checkIn.setCreatedAt(java.time.LocalDateTime.now());
-                        dailyCheckInMapper.insert(checkIn);
-
-                        result.put("txHash", txHash);
-                        result.put("message", "今日已打卡 ✅ (链上记录成功: " + txHash + ")");
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        result.put("message", "今日已打卡 ✅ (但链上记录失败: " + e.getMessage() + ")");
-                    }
-                }
-            }
-        } else {
-            result.put("success", true);
-            result.put("clockedIn", false);
-            result.put("message", "今日未打卡 ❌");
-        }
-        return result;
+        return check("github", walletAddress, challengeId, null);
     }
 
-    @Autowired
-    private com.service.StravaService stravaService;
-
     /**
      * 检查用户 Strava 跑步打卡状态
      */
     @GetMapping("/strava/check")
-    public Map<String, Object> checkStrava(
+    public DeferredResult<Map<String, Object>> checkStrava(
             @RequestParam String walletAddress,
             @RequestParam(required = false) Long challengeId) {
-        
-        Map<String, Object> result = new HashMap<>();
-        
-        // 1. 检查连接状态
-        if (stravaService.getConnection(walletAddress) == null) {
-             result.put("success", false);
-             result.put("message", "请先连接 Strava");
-             return result;
-        }
-        
-        // 2. 检查跑步活动
-        boolean hasRun = stravaService.checkRunningToday(walletAddress);
-        
-        if (hasRun) {
-            result.put("success", true);
-            result.put("clockedIn", true);
-            result.put("message", "今日跑步已达标 ✅");
-            
-            // 3. 挑战打卡记录 (幂等性检查)
-            if (challengeId != null) {
-                java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneId.of("Asia/Shanghai"));
-                LambdaQueryWrapper<DailyCheckIn> query = new LambdaQueryWrapper<>();
-                query.eq(DailyCheckIn::getWalletAddress, walletAddress)
-                     .eq(DailyCheckIn::getChallengeId, challengeId)
-                     .eq(DailyCheckIn::getCheckInDate, today);
-
-                if (dailyCheckInMapper.exists(query)) {
-                    result.put("message", "今日跑步已达标 ✅ (无需重复上链)");
-                } else {
-                    try {
-                        String txHash = blockchainService.recordDayComplete(walletAddress, java.math.BigInteger.valueOf(challengeId));
-                         // 在数据库记录成功状态
-                        DailyCheckIn checkIn = new DailyCheckIn();
-                        checkIn.setWalletAddress(walletAddress);
-                        checkIn.setChallengeId(challengeId);
-                        checkIn.setCheckInDate(today);
-                        checkIn.setCreatedAt(java.time.LocalDateTime.now());
-                        dailyCheckInMapper.insert(checkIn);
-                        
-                        result.put("txHash", txHash);
-                        result.put("message", "今日跑步已达标 ✅ (链上记录成功: " + txHash + ")");
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        result.put("message", "今日跑步已达标 ✅ (但链上记录失败: " + e.getMessage() + ")");
-                    }
-                }
-            }
-        } else {
-             result.put("success", true);
-             result.put("clockedIn", false);
-             result.put("message", "今日尚未检测到有效的跑步记录 ❌");
-        }
-        return result;
+        return check("strava", walletAddress, challengeId, null);
     }
 
-    @Autowired
-    private com.service.DeepSeekService deepSeekService;
-
     /**
      * 阅读打卡 (上传笔记)
+     * AI 审核通过后保存笔记并打卡
      */
     @PostMapping("/reading/check")
-    public Map<String, Object> checkReading(
+    public DeferredResult<Map<String, Object>> checkReading(
             @RequestParam String walletAddress,
             @RequestParam Long challengeId,
             @RequestParam String content) {
-        
-        Map<String, Object> result = new HashMap<>();
-        
-        if (content == null || content.trim().isEmpty()) {
-            result.put("success", false);
-            result.put("message", "请填写阅读笔记");
-            return result;
-        }
-
-        // 0. AI 审核
-        com.service.DeepSeekService.ValidationResult validation = deepSeekService.validateReadingNote(content);
-        if (!validation.pass) {
-            result.put("success", false);
-            result.put("message", "打卡失败: " + validation.reason);
-            return result;
-        }
-
-        // 1. 幂等性检查
-        java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneId.of("Asia/Shanghai"));
-        LambdaQueryWrapper<DailyCheckIn> query = new LambdaQueryWrapper<>();
-        query.eq(DailyCheckIn::getWalletAddress, walletAddress)
-             .eq(DailyCheckIn::getChallengeId, challengeId)
-             .eq(DailyCheckIn::getCheckInDate, today);
-
-        if (dailyCheckInMapper.exists(query)) {
-            result.put("success", true);
-            result.put("clockedIn", true);
-            result.put("message", "今日阅读任务已完成 ✅ (无需重复上链)");
-            return result;
-        }
-
-        // 2. 记录上链
-        try {
-            String txHash = blockchainService.recordDayComplete(walletAddress, java.math.BigInteger.valueOf(challengeId));
-            
-            // 3. 记录数据库
-            DailyCheckIn checkIn = new DailyCheckIn();
-            checkIn.setWalletAddress(walletAddress);
-            checkIn.setChallengeId(challengeId);
-            checkIn.setCheckInDate(today);
-            checkIn.setCreatedAt(java.time.LocalDateTime.now());
-            checkIn.setProofContent(content); // 保存笔记
-            dailyCheckInMapper.insert(checkIn);
+        return check("reading", walletAddress, challengeId, content);
+    }
 
-            result.put("success", true);
-            result.put("clockedIn", true);
-            result.put("txHash", txHash);
-            // 将 AI 的评语也返回给前端
-            result.put("message", "打卡成功 ✅ " + validation.reason);
-        } catch (Exception e) {
-            e.printStackTrace();
-            result.put("success", false);
-            result.put("message", "上链失败: " + e.getMessage());
-        }
-        
-        return result;
+    /**
+     * 交给打卡流水线异步执行，等待期间释放 servlet 线程
+     */
+    private DeferredResult<Map<String, Object>> check(String type, String walletAddress, Long challengeId,
+                                                      String content) {
+        Map<String, Object> timeoutResult = new HashMap<>();
+        timeoutResult.put("success", false);
+        timeoutResult.put("message", "打卡检测超时，请稍后重试");
+        DeferredResult<Map<String, Object>> deferred =
+                new DeferredResult<>(checkInPipeline.timeoutMs(type), timeoutResult);
+        checkInPipeline.check(type, walletAddress, challengeId, content)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        Map<String, Object> error = new HashMap<>();
+                        error.put("success", false);
+                        error.put("message", "打卡检测失败: " + e.getMessage());
+                        deferred.setResult(error);
+                    } else {
+                        deferred.setResult(result);
+                    }
+                });
+        return deferred;
     }
+
     /**
      * 检查阅读打卡状态 (用于前端查询是否已完成)
      */
@@ -318,13 +200,7 @@ public class AgentController {
         
         Map<String, Object> result = new HashMap<>();
         
-        java.time.LocalDate today = java.time.LocalDate.now(java.time.ZoneId.of("Asia/Shanghai"));
-        LambdaQueryWrapper<DailyCheckIn> query = new LambdaQueryWrapper<>();
-        query.eq(DailyCheckIn::getWalletAddress, walletAddress)
-             .eq(DailyCheckIn::getChallengeId, challengeId)
-             .eq(DailyCheckIn::getCheckInDate, today);
-
-        if (dailyCheckInMapper.exists(query)) {
+        if (checkInService.isCheckedInToday(walletAddress, challengeId)) {
             result.put("success", true);
             result.put("clockedIn", true);
             result.put("message", "今日阅读任务已完成 ✅");
@@ -336,4 +212,63 @@ public class AgentController {
         
         return result;
     }
+
+    @Autowired
+    private DashboardStatusService dashboardStatusService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 单次请求最多查询的挑战数，超过返回 400
+     */
+    @Value("${dashboard.max-challenge-ids:50}")
+    private int maxChallengeIds;
+
+    /**
+     * 仪表盘聚合状态: 账号绑定 + 各挑战今日打卡与上链状态
+     * 支持 If-None-Match，状态未变化时返回 304
+     * @param challengeIds 挑战ID列表 (逗号分隔)，不传时取进行中的全部挑战
+     */
+    @GetMapping("/dashboard/status")
+    public ResponseEntity<Map<String, Object>> dashboardStatus(
+            @RequestParam String walletAddress,
+            @RequestParam(required = false) List<Long> challengeIds,
+            WebRequest webRequest,
+            HttpServletResponse response) throws IOException {
+        if (challengeIds != null && challengeIds.size() > maxChallengeIds) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("message", "challengeIds 最多 " + maxChallengeIds + " 个");
+            return ResponseEntity.badRequest().body(error);
+        }
+        Map<String, Object> status = dashboardStatusService.getStatus(walletAddress, challengeIds);
+        String etag = "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(status)) + "\"";
+        // 每次都需重新校验，但未变化时不传输响应体
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * 查询今日打卡的上链状态 (打卡接口异步上链，前端轮询此接口)
+     */
+    @GetMapping("/checkin/status")
+    public Map<String, Object> checkInStatus(
+            @RequestParam String walletAddress,
+            @RequestParam Long challengeId) {
+
+        Map<String, Object> result = new HashMap<>();
+
+        DailyCheckIn checkIn = checkInService.getTodayCheckIn(walletAddress, challengeId);
+        result.put("success", true);
+        result.put("clockedIn", checkIn != null);
+        if (checkIn != null) {
+            result.put("txStatus", checkIn.getTxStatus());
+            result.put("txHash", checkIn.getTxHash());
+        }
+        return result;
+    }
 }
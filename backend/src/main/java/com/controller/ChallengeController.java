@@ -0,0 +1,53 @@
+package com.controller;
+
+import com.domain.entity.ChallengeIndex;
+import com.service.ChallengeIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 挑战查询控制器
+ * 数据来自 HabitEscrowIndexer 物化的 challenge_index，不直接访问 RPC 节点
+ */
+@RestController
+@RequestMapping("/agent/challenges")
+@CrossOrigin(origins = "*")
+public class ChallengeController {
+
+    @Autowired
+    private ChallengeIndexService challengeIndexService;
+
+    /**
+     * 查询用户的挑战列表
+     */
+    @GetMapping
+    public Map<String, Object> list(@RequestParam String walletAddress) {
+        List<ChallengeIndex> challenges = challengeIndexService.listByUser(walletAddress);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("challenges", challenges);
+        return result;
+    }
+
+    /**
+     * 查询单个挑战详情
+     */
+    @GetMapping("/{challengeId}")
+    public Map<String, Object> detail(@PathVariable Long challengeId, @RequestParam String walletAddress) {
+        ChallengeIndex challenge = challengeIndexService.get(walletAddress, challengeId);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", challenge != null);
+        if (challenge != null) {
+            result.put("challenge", challenge);
+        } else {
+            result.put("message", "挑战不存在或尚未索引");
+        }
+        return result;
+    }
+}
@@ -1,9 +1,13 @@
 package com.controller;
 
 import com.domain.entity.StravaConnection;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.service.StravaService;
+import com.service.StravaWebhookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.view.RedirectView;
 
@@ -18,6 +22,9 @@ public class StravaController {
     @Autowired
     private StravaService stravaService;
 
+    @Autowired
+    private StravaWebhookService stravaWebhookService;
+
     @Value("${server.url:http://localhost:8080}")
     private String serverUrl;
 
@@ -69,4 +76,30 @@ public class StravaController {
         }
         return res;
     }
+
+    /**
+     * 推送订阅校验握手
+     */
+    @GetMapping("/webhook")
+    public ResponseEntity<Map<String, String>> verifyWebhook(
+            @RequestParam("hub.mode") String mode,
+            @RequestParam("hub.verify_token") String verifyToken,
+            @RequestParam("hub.challenge") String challenge) {
+        String echo = stravaWebhookService.verifySubscription(mode, verifyToken, challenge);
+        if (echo == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, String> res = new HashMap<>();
+        res.put("hub.challenge", echo);
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * 推送事件接收，立即返回 200，事件在后台处理
+     */
+    @PostMapping("/webhook")
+    public ResponseEntity<String> receiveWebhook(@RequestBody JsonNode event) {
+        stravaWebhookService.receive(event);
+        return ResponseEntity.ok("ok");
+    }
 }
@@ -29,4 +29,44 @@ public class DailyCheckIn implements Serializable {
      * 打卡凭证内容 (如: 阅读笔记，GitHub Commit ID 等)
      */
     private String proofContent;
+
+    /**
+     * 上链交易哈希
+     */
+    private String txHash;
+
+    /**
+     * 上链状态 (见 Constants.TX_STATUS_*)
+     */
+    private String txStatus;
+
+    /**
+     * 上链状态更新时间
+     */
+    private LocalDateTime txUpdatedAt;
+
+    /**
+     * 交易打包所在区块
+     */
+    private Long txBlockNumber;
+
+    /**
+     * 交易因丢弃/长时间未确认被重新提交的次数
+     */
+    private Integer txResubmits;
+
+    /**
+     * 交易 nonce (首次发送时记录，重新提交沿用同一 nonce 替换)
+     */
+    private Long txNonce;
+
+    /**
+     * 当前交易的 gas price (wei)
+     */
+    private Long txGasPrice;
+
+    /**
+     * 被替换的历史交易哈希 (逗号分隔)，其中任意一笔打包即视为该 nonce 已上链
+     */
+    private String txReplacedHashes;
 }
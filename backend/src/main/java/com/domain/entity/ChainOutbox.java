@@ -0,0 +1,74 @@
+package com.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 上链发件箱实体
+ * 每条打卡记录对应一条待发送的 recordDayComplete 交易，每条漏打卡惩罚对应一条 slash 交易
+ * 签名后先写入 nonce 与签名交易再广播，重试与崩溃恢复都沿用同一 nonce
+ */
+@Data
+@TableName("chain_outbox")
+public class ChainOutbox {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String walletAddress;
+
+    private Long challengeId;
+
+    /**
+     * 打卡日期 (slash 为漏打卡的日期)
+     */
+    private LocalDate checkInDate;
+
+    /**
+     * 交易类型 (见 Constants.OUTBOX_KIND_*)
+     */
+    private String kind;
+
+    /**
+     * 状态 (见 Constants.TX_STATUS_*)
+     */
+    private String status;
+
+    /**
+     * 已尝试次数
+     */
+    private Integer attempts;
+
+    /**
+     * 下次尝试时间 (退避)
+     */
+    private LocalDateTime nextAttemptAt;
+
+    private String txHash;
+
+    /**
+     * 交易 nonce，签名后、广播前写入
+     */
+    private Long txNonce;
+
+    /**
+     * 交易 gas price (wei)
+     */
+    private Long txGasPrice;
+
+    /**
+     * 已签名交易 (hex)，进程崩溃后按原 nonce 原样重发
+     */
+    private String txRaw;
+
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
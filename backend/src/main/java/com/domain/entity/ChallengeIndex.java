@@ -0,0 +1,72 @@
+package com.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 挑战读模型实体
+ * 对应合约中的 Challenge 结构，由链上事件物化
+ */
+@Data
+@TableName("challenge_index")
+public class ChallengeIndex {
+
+    /** 状态: 进行中 */
+    public static final int STATUS_ACTIVE = 0;
+    /** 状态: 已完成 */
+    public static final int STATUS_COMPLETED = 1;
+    /** 状态: 已失败 */
+    public static final int STATUS_FAILED = 2;
+    /** 状态: 已退出 */
+    public static final int STATUS_WITHDRAWN = 3;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 用户地址 (小写)
+     */
+    private String userAddress;
+
+    /**
+     * 挑战ID (用户维度)
+     */
+    private Long challengeId;
+
+    /**
+     * 质押金额 (wei)
+     */
+    private BigDecimal stakeAmount;
+
+    private Integer targetDays;
+
+    private Integer completedDays;
+
+    /**
+     * 惩罚去向: 0销毁 1慈善 2项目方
+     */
+    private Integer penaltyType;
+
+    /**
+     * 状态 (见 STATUS_*)
+     */
+    private Integer status;
+
+    private Boolean resurrectionUsed;
+
+    /**
+     * 开始时间 (区块时间)
+     */
+    private LocalDateTime startTime;
+
+    private Long createdBlock;
+
+    private Long lastEventBlock;
+
+    private LocalDateTime updatedAt;
+}
@@ -52,6 +52,11 @@ public class GitHubConnection {
      * 授权范围
      */
     private String scope;
+
+    /**
+     * 最近一次收到该用户 Webhook 的时间 (为空表示未安装 Webhook)
+     */
+    private LocalDateTime webhookActiveAt;
     
     /**
      * 创建时间
@@ -0,0 +1,26 @@
+package com.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * GitHub 每日推送记录实体
+ */
+@Data
+@TableName("github_push_day")
+public class GitHubPushDay {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long connectionId;
+
+    private LocalDate pushDate;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,31 @@
+package com.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 索引器检查点
+ */
+@Data
+@TableName("indexer_checkpoint")
+public class IndexerCheckpoint {
+
+    @TableId(type = IdType.INPUT)
+    private String name;
+
+    /**
+     * 已处理到的区块
+     */
+    private Long lastBlock;
+
+    /**
+     * 已处理区块的哈希 (用于检测重组)
+     */
+    private String lastBlockHash;
+
+    private LocalDateTime updatedAt;
+}
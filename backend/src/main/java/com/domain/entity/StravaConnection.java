@@ -3,6 +3,7 @@ package com.domain.entity;
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.Version;
 import lombok.Data;
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -26,6 +27,32 @@ public class StravaConnection implements Serializable {
 
     private LocalDateTime expiresAt;
 
+    /**
+     * 乐观锁版本号，刷新 token 时用于避免并发覆盖
+     */
+    @Version
+    private Integer version;
+
+    /**
+     * 最近一次收到该运动员推送事件的时间 (为空表示未接入推送订阅)
+     */
+    private LocalDateTime webhookActiveAt;
+
+    /**
+     * 连续刷新失败次数
+     */
+    private Integer refreshFailures;
+
+    /**
+     * 刷新失败后下次后台刷新时间 (退避)
+     */
+    private LocalDateTime refreshRetryAt;
+
+    /**
+     * 刷新令牌已失效 (invalid_grant/撤销授权)，重新连接前不再刷新
+     */
+    private Boolean refreshRevoked;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -0,0 +1,57 @@
+package com.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Strava 跑步达标条件实体
+ * 字段为空表示不限制
+ */
+@Data
+@TableName("strava_run_criteria")
+public class StravaRunCriteria {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 用户地址 (小写)
+     */
+    private String userAddress;
+
+    /**
+     * 挑战ID (用户维度)
+     */
+    private Long challengeId;
+
+    /**
+     * 允许的活动类型，逗号分隔
+     */
+    private String activityTypes;
+
+    /**
+     * 最小距离 (米)
+     */
+    private Integer minDistanceM;
+
+    /**
+     * 最小运动时间 (秒)
+     */
+    private Integer minMovingTimeS;
+
+    /**
+     * 最快配速 (秒/公里)
+     */
+    private Integer minPaceSPerKm;
+
+    /**
+     * 最慢配速 (秒/公里)
+     */
+    private Integer maxPaceSPerKm;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,28 @@
+package com.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Strava 每日达标跑步记录实体
+ */
+@Data
+@TableName("strava_run_day")
+public class StravaRunDay {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long connectionId;
+
+    private LocalDate runDate;
+
+    private Long activityId;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,46 @@
+package com.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.domain.entity.ChainOutbox;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 上链发件箱 Mapper
+ */
+@Mapper
+public interface ChainOutboxMapper extends BaseMapper<ChainOutbox> {
+
+    /**
+     * 多行写入 (一条 INSERT)，已存在的 (钱包地址, 挑战ID, 日期, 类型) 保持不变，不会重复上链
+     */
+    @Insert("<script>INSERT INTO chain_outbox (wallet_address, challenge_id, check_in_date, kind, status, attempts, " +
+            "next_attempt_at, created_at, updated_at) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>(#{r.walletAddress}, #{r.challengeId}, " +
+            "#{r.checkInDate}, #{r.kind}, #{r.status}, #{r.attempts}, #{r.nextAttemptAt}, #{r.createdAt}, " +
+            "#{r.updatedAt})" +
+            "</foreach> ON DUPLICATE KEY UPDATE id = id</script>")
+    int insertBatch(@Param("rows") List<ChainOutbox> rows);
+
+    /**
+     * 广播前把签名交易写入本批次的记录
+     * 只更新仍由本次抢占持有 (SENDING 且 attempts 未变) 且尚未关联交易的记录，返回值小于批大小说明有记录已被重新抢占
+     */
+    @Update("<script>UPDATE chain_outbox SET tx_hash = #{hash}, tx_nonce = #{nonce}, tx_gas_price = #{gasPrice}, " +
+            "tx_raw = #{raw}, updated_at = NOW() WHERE status = 'SENDING' AND tx_raw IS NULL AND " +
+            "<foreach collection='claims' item='c' open='(' separator=' OR ' close=')'>" +
+            "(id = #{c.id} AND attempts = #{c.attempts})</foreach></script>")
+    int attachTx(@Param("claims") List<ChainOutbox> claims, @Param("hash") String hash, @Param("nonce") long nonce,
+                 @Param("gasPrice") long gasPrice, @Param("raw") String raw);
+
+    /**
+     * 撤销未广播的签名交易
+     */
+    @Update("UPDATE chain_outbox SET tx_hash = NULL, tx_nonce = NULL, tx_gas_price = NULL, tx_raw = NULL, " +
+            "updated_at = NOW() WHERE tx_hash = #{hash} AND status = 'SENDING'")
+    int detachTx(@Param("hash") String hash);
+}
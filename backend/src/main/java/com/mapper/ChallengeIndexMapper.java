@@ -0,0 +1,50 @@
+package com.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.domain.entity.ChallengeIndex;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 挑战读模型 Mapper
+ */
+@Mapper
+public interface ChallengeIndexMapper extends BaseMapper<ChallengeIndex> {
+
+    /**
+     * 写入 ChallengeCreated 事件 (只插入)，重放或并发索引时已存在的记录保持不变，
+     * 不会把之后事件推进的完成天数/状态改回初始值
+     */
+    @Insert("INSERT INTO challenge_index (user_address, challenge_id, stake_amount, target_days, completed_days, " +
+            "penalty_type, status, resurrection_used, start_time, created_block, last_event_block) " +
+            "VALUES (#{userAddress}, #{challengeId}, #{stakeAmount}, #{targetDays}, 0, " +
+            "#{penaltyType}, 0, 0, #{startTime}, #{createdBlock}, #{lastEventBlock}) " +
+            "ON DUPLICATE KEY UPDATE id = id")
+    int insertCreated(ChallengeIndex challenge);
+
+    /**
+     * 查询在指定日期漏打卡的进行中挑战 (反连接 daily_check_in，按主键分页)
+     * 已有未失败 slash 发件箱记录的挑战不再入选 (slash 成功一次后挑战即失败，重复发送只会回滚)
+     * 地址比较依赖列的不区分大小写排序规则，不对列做函数转换以保留索引
+     * @param day 检查的打卡日期
+     * @param dayStart 该日期零点 (业务时区)，此后才开始的挑战不参与检查
+     * @param afterId 上一页最后一条的主键
+     */
+    @Select("SELECT c.id, c.user_address, c.challenge_id FROM challenge_index c " +
+            "LEFT JOIN daily_check_in d ON d.wallet_address = c.user_address " +
+            "AND d.challenge_id = c.challenge_id AND d.check_in_date = #{day} " +
+            "WHERE c.status = 0 AND c.start_time < #{dayStart} AND c.id > #{afterId} AND d.id IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM chain_outbox o WHERE o.challenge_id = c.challenge_id " +
+            "AND o.kind = 'SLASH' AND o.status <> 'FAILED') " +
+            "ORDER BY c.id LIMIT #{limit}")
+    List<ChallengeIndex> selectMissedCheckIns(@Param("day") LocalDate day,
+                                             @Param("dayStart") LocalDateTime dayStart,
+                                             @Param("afterId") long afterId,
+                                             @Param("limit") int limit);
+}
@@ -2,8 +2,45 @@ package com.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.domain.DailyCheckIn;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Mapper
 public interface DailyCheckInMapper extends BaseMapper<DailyCheckIn> {
+
+    /**
+     * 流式读取某天已打卡的 (钱包地址, 挑战ID)，只读 uk_wallet_challenge_date 覆盖索引
+     */
+    @Select("SELECT wallet_address, challenge_id FROM daily_check_in WHERE check_in_date = #{day}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(DailyCheckIn.class)
+    void scanCheckedIn(@Param("day") LocalDate day, ResultHandler<DailyCheckIn> handler);
+
+    /**
+     * 查询一批 (钱包地址, 挑战ID, 日期) 中已存在的记录
+     */
+    @Select("<script>SELECT wallet_address, challenge_id, check_in_date FROM daily_check_in " +
+            "WHERE (wallet_address, challenge_id, check_in_date) IN " +
+            "<foreach collection='rows' item='r' open='(' separator=',' close=')'>" +
+            "(#{r.walletAddress}, #{r.challengeId}, #{r.checkInDate})</foreach></script>")
+    List<DailyCheckIn> selectExisting(@Param("rows") List<DailyCheckIn> rows);
+
+    /**
+     * 多行写入 (一条 INSERT)，已存在的 (钱包地址, 挑战ID, 日期) 保持不变
+     */
+    @Insert("<script>INSERT INTO daily_check_in (wallet_address, challenge_id, check_in_date, proof_content, " +
+            "tx_status, tx_updated_at, created_at) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>(#{r.walletAddress}, #{r.challengeId}, " +
+            "#{r.checkInDate}, #{r.proofContent}, #{r.txStatus}, #{r.txUpdatedAt}, #{r.createdAt})</foreach> " +
+            "ON DUPLICATE KEY UPDATE id = id</script>")
+    int insertBatch(@Param("rows") List<DailyCheckIn> rows);
 }
@@ -0,0 +1,24 @@
+package com.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.domain.entity.GitHubPushDay;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * GitHub 每日推送记录 Mapper
+ */
+@Mapper
+public interface GitHubPushDayMapper extends BaseMapper<GitHubPushDay> {
+
+    @Insert("INSERT IGNORE INTO github_push_day (connection_id, push_date) VALUES (#{connectionId}, #{pushDate})")
+    int insertIgnore(@Param("connectionId") Long connectionId, @Param("pushDate") LocalDate pushDate);
+
+    @Select("SELECT connection_id FROM github_push_day WHERE push_date = #{pushDate}")
+    List<Long> selectConnectionIds(@Param("pushDate") LocalDate pushDate);
+}
@@ -0,0 +1,12 @@
+package com.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.domain.entity.IndexerCheckpoint;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 索引器检查点 Mapper
+ */
+@Mapper
+public interface IndexerCheckpointMapper extends BaseMapper<IndexerCheckpoint> {
+}
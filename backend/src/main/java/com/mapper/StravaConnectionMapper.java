@@ -3,7 +3,26 @@ package com.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.domain.entity.StravaConnection;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface StravaConnectionMapper extends BaseMapper<StravaConnection> {
+
+    /**
+     * 查询 token 即将过期、且近期有打卡记录 (大概率很快会再次打卡) 的连接，最先过期的优先
+     * 刷新令牌已失效或仍在失败退避期内的连接不参与
+     */
+    @Select("SELECT s.* FROM strava_connection s WHERE s.expires_at < #{expiresBefore} " +
+            "AND s.refresh_revoked = 0 AND (s.refresh_retry_at IS NULL OR s.refresh_retry_at <= #{now}) " +
+            "AND EXISTS (SELECT 1 FROM daily_check_in d WHERE d.wallet_address = s.wallet_address " +
+            "AND d.check_in_date >= #{activeSince}) ORDER BY s.expires_at LIMIT #{limit}")
+    List<StravaConnection> selectExpiringActive(@Param("expiresBefore") LocalDateTime expiresBefore,
+                                                @Param("now") LocalDateTime now,
+                                                @Param("activeSince") LocalDate activeSince,
+                                                @Param("limit") int limit);
 }
@@ -0,0 +1,12 @@
+package com.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.domain.entity.StravaRunCriteria;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * Strava 跑步达标条件 Mapper
+ */
+@Mapper
+public interface StravaRunCriteriaMapper extends BaseMapper<StravaRunCriteria> {
+}
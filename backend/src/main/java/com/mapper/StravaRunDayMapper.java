@@ -0,0 +1,36 @@
+package com.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.domain.entity.StravaRunDay;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Strava 每日达标跑步记录 Mapper
+ */
+@Mapper
+public interface StravaRunDayMapper extends BaseMapper<StravaRunDay> {
+
+    @Insert("INSERT IGNORE INTO strava_run_day (connection_id, run_date, activity_id) " +
+            "VALUES (#{connectionId}, #{runDate}, #{activityId})")
+    int insertIgnore(@Param("connectionId") Long connectionId, @Param("runDate") LocalDate runDate,
+                     @Param("activityId") Long activityId);
+
+    @Select("SELECT COUNT(*) > 0 FROM strava_run_day WHERE connection_id = #{connectionId} AND run_date = #{runDate}")
+    boolean existsRun(@Param("connectionId") Long connectionId, @Param("runDate") LocalDate runDate);
+
+    /**
+     * 以该活动记账的日期 (活动被删除或不再达标时撤销)
+     */
+    @Select("SELECT run_date FROM strava_run_day WHERE connection_id = #{connectionId} AND activity_id = #{activityId}")
+    List<LocalDate> selectRunDates(@Param("connectionId") Long connectionId, @Param("activityId") Long activityId);
+
+    @Delete("DELETE FROM strava_run_day WHERE connection_id = #{connectionId} AND activity_id = #{activityId}")
+    int deleteByActivity(@Param("connectionId") Long connectionId, @Param("activityId") Long activityId);
+}
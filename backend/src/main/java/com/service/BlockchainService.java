@@ -1,117 +1,564 @@
 package com.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.FunctionEncoder;
 import org.web3j.abi.TypeReference;
 import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.DynamicArray;
 import org.web3j.abi.datatypes.Function;
 import org.web3j.abi.datatypes.generated.Uint256;
 import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Hash;
 import org.web3j.crypto.RawTransaction;
 import org.web3j.crypto.TransactionEncoder;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
 import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthTransaction;
 import org.web3j.protocol.core.methods.response.EthSendTransaction;
-import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.core.methods.response.Transaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.utils.Numeric;
 
 import jakarta.annotation.PostConstruct;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+@Slf4j
 @Service
 public class BlockchainService {
 
-    @Value("${blockchain.rpc-url}")
+    // 注意：这里需要估算 Gas，简单起见先给固定值
+    private static final BigInteger DEFAULT_GAS_LIMIT = BigInteger.valueOf(300000);
+    private static final BigInteger BATCH_BASE_GAS = BigInteger.valueOf(100000);
+    private static final BigInteger BATCH_GAS_PER_RECORD = BigInteger.valueOf(60000);
+    private static final BigInteger FILLER_GAS_LIMIT = BigInteger.valueOf(21000);
+
+    @Value("${blockchain.rpc-url:}")
     private String rpcUrl;
 
+    /**
+     * 多个 RPC 节点，逗号分隔；未配置时只使用 rpc-url
+     */
+    @Value("${blockchain.rpc-urls:}")
+    private List<String> rpcUrls;
+
+    /**
+     * 单节点超时，超时后切换到下一个节点
+     */
+    @Value("${blockchain.rpc-timeout-seconds:30}")
+    private long rpcTimeoutSeconds;
+
+    @Value("${blockchain.rpc-eject-after-failures:3}")
+    private int rpcEjectAfterFailures;
+
+    @Value("${blockchain.rpc-ejection-ms:30000}")
+    private long rpcEjectionMs;
+
+    @Value("${blockchain.rpc-broadcast-count:3}")
+    private int rpcBroadcastCount;
+
+    @Value("${blockchain.rpc-max-block-lag:5}")
+    private long rpcMaxBlockLag;
+
+    /**
+     * 网络错误时同一签名交易的广播次数
+     */
+    @Value("${blockchain.broadcast-attempts:3}")
+    private int broadcastAttempts;
+
+    /**
+     * 已分配的 nonce 超过该时长仍无签名交易 (被拒绝/签名失败) 才视为空洞
+     */
+    @Value("${blockchain.nonce-gap-grace-ms:60000}")
+    private long nonceGapGraceMs;
+
     @Value("${blockchain.agent-private-key}")
     private String privateKey;
 
     @Value("${blockchain.contract-address}")
     private String contractAddress;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private RpcEndpointPool rpcEndpointPool;
     private Web3j web3j;
     private Credentials credentials;
+    private NonceManager nonceManager;
+    private volatile Long chainId;
 
     @PostConstruct
     public void init() {
         // 增加超时时间设置 (解决 Connect timed out)
         okhttp3.OkHttpClient.Builder builder = new okhttp3.OkHttpClient.Builder();
-        builder.connectTimeout(60, java.util.concurrent.TimeUnit.SECONDS);
-        builder.readTimeout(60, java.util.concurrent.TimeUnit.SECONDS);
-        builder.writeTimeout(60, java.util.concurrent.TimeUnit.SECONDS);
-        
-        this.web3j = Web3j.build(new HttpService(rpcUrl, builder.build(), false));
+        builder.connectTimeout(rpcTimeoutSeconds, java.util.concurrent.TimeUnit.SECONDS);
+        builder.readTimeout(rpcTimeoutSeconds, java.util.concurrent.TimeUnit.SECONDS);
+        builder.writeTimeout(rpcTimeoutSeconds, java.util.concurrent.TimeUnit.SECONDS);
+
+        List<String> urls = new ArrayList<>();
+        for (String url : rpcUrls) {
+            if (!url.isBlank()) {
+                urls.add(url.trim());
+            }
+        }
+        if (urls.isEmpty()) {
+            urls.add(rpcUrl);
+        }
+        this.rpcEndpointPool = new RpcEndpointPool(urls, builder.build(), meterRegistry,
+                rpcEjectAfterFailures, rpcEjectionMs, rpcBroadcastCount, rpcMaxBlockLag);
+        this.web3j = Web3j.build(rpcEndpointPool);
         this.credentials = Credentials.create(privateKey);
+        this.nonceManager = new NonceManager(web3j, credentials.getAddress());
+    }
+
+    /**
+     * 定期探测所有 RPC 节点，刷新延迟与区块高度
+     */
+    @Scheduled(fixedDelayString = "${blockchain.rpc-probe-interval-ms:30000}")
+    public void probeRpcEndpoints() {
+        rpcEndpointPool.probe();
+    }
+
+    public Web3j getWeb3j() {
+        return web3j;
+    }
+
+    public String getContractAddress() {
+        return contractAddress;
     }
 
     /**
      * 调用合约 recordDayComplete 方法
      * @param userAddress 用户地址
      * @param challengeId 挑战ID
-     * @return 交易哈希
+     * @return 已发送交易 (哈希、nonce、gas price)
+     */
+    public SentTx recordDayComplete(String userAddress, BigInteger challengeId) throws Exception {
+        log.debug("recordDayComplete: contract={}, user={}, challengeId={}", contractAddress, userAddress, challengeId);
+        return sendTransaction(dayCompleteFunction(userAddress, challengeId), DEFAULT_GAS_LIMIT);
+    }
+
+    /**
+     * 签名合约 slash 交易但不广播，没收未按时打卡用户的质押
+     * 与 {@link #prepareDayComplete} 相同，持久化后再调用 {@link #broadcast}
+     * @param userAddress 用户地址
+     * @param challengeId 挑战ID
+     */
+    public SentTx prepareSlash(String userAddress, BigInteger challengeId) throws IOException {
+        return prepare(slashFunction(userAddress, challengeId), DEFAULT_GAS_LIMIT);
+    }
+
+    /**
+     * 调用合约 recordDayCompleteBatch 方法，一笔交易记录多个用户的打卡
+     * @param userAddresses 用户地址列表
+     * @param challengeIds 挑战ID列表 (与 userAddresses 一一对应)
+     * @return 已发送交易 (哈希、nonce、gas price)
+     */
+    public SentTx recordDayCompleteBatch(List<String> userAddresses, List<BigInteger> challengeIds) throws Exception {
+        if (userAddresses.size() != challengeIds.size()) {
+            throw new IllegalArgumentException("userAddresses and challengeIds size mismatch");
+        }
+        log.info("发送批量打卡交易: {} 条", userAddresses.size());
+
+        return sendTransaction(batchFunction(userAddresses, challengeIds), batchGasLimit(userAddresses.size()));
+    }
+
+    /**
+     * 签名 recordDayComplete(Batch) 交易但不广播
+     * 调用方先把签名交易与 nonce 持久化，再调用 {@link #broadcast}，进程崩溃后可原样重发
+     * @param userAddresses 用户地址 (单条时按 recordDayComplete 编码)
+     * @param challengeIds 挑战ID (与 userAddresses 一一对应)
+     */
+    public SentTx prepareDayComplete(List<String> userAddresses, List<BigInteger> challengeIds) throws IOException {
+        if (userAddresses.size() != challengeIds.size()) {
+            throw new IllegalArgumentException("userAddresses and challengeIds size mismatch");
+        }
+        if (userAddresses.size() == 1) {
+            return prepare(dayCompleteFunction(userAddresses.get(0), challengeIds.get(0)), DEFAULT_GAS_LIMIT);
+        }
+        return prepare(batchFunction(userAddresses, challengeIds), batchGasLimit(userAddresses.size()));
+    }
+
+    /**
+     * 以原 nonce 提价签名替换交易 (未广播)，用于未确认/可能被丢弃的打卡交易
+     * 合约 recordDayComplete 没有按天去重，换新 nonce 重发可能与原交易都被打包而重复计数；
+     * 同一 nonce 下原交易与替换交易最多只有一笔上链。
+     * @param userAddresses 原交易包含的用户地址 (单条时按 recordDayComplete 编码)
+     * @param challengeIds 原交易包含的挑战ID
+     * @param nonce 原交易 nonce (签名时记录)
+     * @param previousGasPrice 原交易的 gas price，可为 null
+     * @param bumpPercent gas price 上浮百分比 (节点要求替换交易至少上浮 10%)
+     * @return 替换交易
+     */
+    public SentTx prepareReplacement(List<String> userAddresses, List<BigInteger> challengeIds,
+                                     BigInteger nonce, BigInteger previousGasPrice, int bumpPercent) throws IOException {
+        Function function;
+        BigInteger gasLimit;
+        if (userAddresses.size() == 1) {
+            function = dayCompleteFunction(userAddresses.get(0), challengeIds.get(0));
+            gasLimit = DEFAULT_GAS_LIMIT;
+        } else {
+            function = batchFunction(userAddresses, challengeIds);
+            gasLimit = batchGasLimit(userAddresses.size());
+        }
+
+        BigInteger gasPrice = currentGasPrice();
+        if (previousGasPrice != null && previousGasPrice.compareTo(gasPrice) > 0) {
+            gasPrice = previousGasPrice;
+        }
+        gasPrice = gasPrice.multiply(BigInteger.valueOf(100L + bumpPercent)).divide(BigInteger.valueOf(100));
+        log.info("以原 nonce 替换交易: nonce={}, gasPrice={}", nonce, gasPrice);
+
+        return sign(RawTransaction.createTransaction(nonce, gasPrice, gasLimit, contractAddress,
+                FunctionEncoder.encode(function)), true);
+    }
+
+    /**
+     * 重新广播之前持久化的签名交易 (进程崩溃后恢复)
+     * 节点的拒绝同样抛出 TxRejectedException，但不会归还 nonce
+     */
+    public void rebroadcast(String hash, BigInteger nonce, BigInteger gasPrice, String rawTransaction) {
+        SentTx tx = new SentTx(hash, nonce, gasPrice, rawTransaction, true);
+        tx.fresh = false;
+        nonceManager.track(nonce, rawTransaction);
+        broadcast(tx);
+    }
+
+    /**
+     * 放弃已签名但未广播的交易，归还 nonce
      */
-    public String recordDayComplete(String userAddress, BigInteger challengeId) throws Exception {
-        System.out.println("Processing blockchain transaction...");
-        System.out.println("Contract Address: " + contractAddress);
-        System.out.println("RPC URL: " + rpcUrl);
-        System.out.println("User Address: " + userAddress);
-        System.out.println("Challenge ID: " + challengeId);
+    public void abandon(SentTx tx) {
+        if (!tx.replacement) {
+            nonceManager.release(tx.nonce);
+        }
+    }
+
+    /**
+     * 广播已签名交易
+     * 节点明确拒绝时抛出 TxRejectedException，并归还新分配的 nonce (替换交易不归还，原交易仍占用该 nonce)。
+     * 网络错误/超时无法判断节点是否已接受，按同一签名交易重试；仍失败时保留 nonce 与签名交易正常返回，
+     * 交易确实未进入交易池时由 {@link #reconcileNonces()} 重新广播，不会换新 nonce 重发。
+     */
+    public void broadcast(SentTx tx) {
+        boolean fresh = tx.fresh;
+        tx.fresh = false;
+        for (int attempt = 1; ; attempt++) {
+            EthSendTransaction response;
+            try {
+                response = web3j.ethSendRawTransaction(tx.rawTransaction).send();
+            } catch (IOException e) {
+                if (attempt >= broadcastAttempts) {
+                    log.warn("交易广播结果未知，保留 nonce 等待对账: hash={}, nonce={}, {}", tx.hash, tx.nonce, e.getMessage());
+                    return;
+                }
+                log.warn("交易广播失败，按原签名交易重试: hash={}, attempt={}, {}", tx.hash, attempt, e.getMessage());
+                continue;
+            }
+            if (!response.hasError()) {
+                log.info("交易已发送: {}, nonce={}", tx.hash, tx.nonce);
+                return;
+            }
 
-        // 1. 构建函数调用
-        Function function = new Function(
+            String message = response.getError().getMessage();
+            if (NonceManager.isNonceTooLow(message)) {
+                try {
+                    nonceManager.resync();
+                } catch (IOException e) {
+                    log.warn("Nonce 对齐失败: {}", e.getMessage());
+                }
+                if (tx.replacement) {
+                    // 原交易、之前的替换交易或其他交易已占用该 nonce，由调用方按回执判断
+                    throw new TxRejectedException(message, true);
+                }
+                if (fresh && attempt == 1) {
+                    // 从未广播过的交易: nonce 已被其他交易占用，本交易不可能上链，可以换新 nonce
+                    nonceManager.forget(tx.nonce);
+                    throw new TxRejectedException(message, true);
+                }
+                // 之前广播过 (重试/恢复): 可能正是本交易已打包，交给回执跟踪判断
+                log.warn("交易 nonce 已被使用，等待回执确认: hash={}, nonce={}", tx.hash, tx.nonce);
+                return;
+            }
+            if (!tx.replacement) {
+                // 节点明确拒绝，交易未进入交易池，归还 nonce (不是最后一个时由对账填补空洞)
+                nonceManager.release(tx.nonce);
+            }
+            log.error("交易被节点拒绝: hash={}, nonce={}, {}", tx.hash, tx.nonce, message);
+            throw new TxRejectedException(message, false);
+        }
+    }
+
+    /**
+     * 定期与节点对账 nonce: 已打包的停止跟踪，被丢弃的重新广播原签名交易，
+     * 被拒绝/签名失败留下的空洞发送 0 值转账占位，避免后续交易全部卡住
+     */
+    @Scheduled(fixedDelayString = "${blockchain.nonce-reconcile-interval-ms:30000}")
+    public void reconcileNonces() {
+        if (nonceManager == null) {
+            return;
+        }
+        try {
+            long latest = transactionCount(DefaultBlockParameterName.LATEST);
+            long pending = transactionCount(DefaultBlockParameterName.PENDING);
+            NonceManager.Reconcile plan = nonceManager.reconcile(latest, pending, System.currentTimeMillis(),
+                    nonceGapGraceMs);
+            for (Map.Entry<BigInteger, String> entry : plan.rebroadcast.entrySet()) {
+                EthSendTransaction response = web3j.ethSendRawTransaction(entry.getValue()).send();
+                log.warn("nonce {} 的交易不在交易池中，已重新广播: {}", entry.getKey(),
+                        response.hasError() ? response.getError().getMessage() : response.getTransactionHash());
+            }
+            for (BigInteger nonce : plan.fill) {
+                SentTx filler = sign(RawTransaction.createEtherTransaction(nonce, currentGasPrice(), FILLER_GAS_LIMIT,
+                        credentials.getAddress(), BigInteger.ZERO), true);
+                log.warn("填补 nonce 空洞: nonce={}, hash={}", nonce, filler.hash);
+                broadcast(filler);
+            }
+        } catch (Exception e) {
+            log.error("Nonce 对账失败", e);
+        }
+    }
+
+    /**
+     * 用一次 JSON-RPC 批量请求查询多笔交易的回执与交易池状态
+     * 每个哈希对应 eth_getTransactionReceipt + eth_getTransactionByHash 两个调用，合并在同一个 HTTP 请求中
+     * @param txHashes 交易哈希列表
+     * @return 交易哈希 -> 查询结果
+     */
+    public Map<String, TxLookup> lookupTransactions(List<String> txHashes) throws IOException {
+        Map<String, TxLookup> result = new HashMap<>();
+        if (txHashes.isEmpty()) {
+            return result;
+        }
+
+        BatchRequest batch = web3j.newBatch();
+        List<Request<?, EthGetTransactionReceipt>> receiptRequests = new ArrayList<>(txHashes.size());
+        List<Request<?, EthTransaction>> txRequests = new ArrayList<>(txHashes.size());
+        for (String txHash : txHashes) {
+            Request<?, EthGetTransactionReceipt> receiptRequest = web3j.ethGetTransactionReceipt(txHash);
+            Request<?, EthTransaction> txRequest = web3j.ethGetTransactionByHash(txHash);
+            batch.add(receiptRequest).add(txRequest);
+            receiptRequests.add(receiptRequest);
+            txRequests.add(txRequest);
+        }
+
+        // 按 JSON-RPC id 匹配响应，不依赖节点返回顺序
+        Map<Long, Response<?>> responsesById = new HashMap<>();
+        for (Response<?> response : batch.send().getResponses()) {
+            responsesById.put(response.getId(), response);
+        }
+
+        for (int i = 0; i < txHashes.size(); i++) {
+            TxLookup lookup = new TxLookup();
+            Response<?> receiptResponse = responsesById.get(receiptRequests.get(i).getId());
+            Response<?> txResponse = responsesById.get(txRequests.get(i).getId());
+
+            if (receiptResponse instanceof EthGetTransactionReceipt
+                    && ((EthGetTransactionReceipt) receiptResponse).getTransactionReceipt().isPresent()) {
+                TransactionReceipt receipt = ((EthGetTransactionReceipt) receiptResponse).getTransactionReceipt().get();
+                lookup.state = receipt.isStatusOK() ? TxState.MINED : TxState.REVERTED;
+                lookup.blockNumber = receipt.getBlockNumber();
+            } else if (txResponse instanceof EthTransaction
+                    && ((EthTransaction) txResponse).getTransaction().isPresent()) {
+                Transaction tx = ((EthTransaction) txResponse).getTransaction().get();
+                lookup.state = TxState.PENDING;
+                lookup.nonce = tx.getNonce();
+                lookup.gasPrice = tx.getGasPrice();
+            } else {
+                lookup.state = TxState.UNKNOWN;
+            }
+            result.put(txHashes.get(i), lookup);
+        }
+        return result;
+    }
+
+    private Function batchFunction(List<String> userAddresses, List<BigInteger> challengeIds) {
+        List<Address> users = new ArrayList<>(userAddresses.size());
+        for (String userAddress : userAddresses) {
+            users.add(new Address(userAddress));
+        }
+        List<Uint256> ids = new ArrayList<>(challengeIds.size());
+        for (BigInteger challengeId : challengeIds) {
+            ids.add(new Uint256(challengeId));
+        }
+        return new Function(
+                "recordDayCompleteBatch",
+                Arrays.asList(new DynamicArray<>(Address.class, users), new DynamicArray<>(Uint256.class, ids)),
+                Collections.emptyList()
+        );
+    }
+
+    /**
+     * 批量交易按条数放大 gas 上限
+     */
+    private BigInteger batchGasLimit(int size) {
+        return BATCH_BASE_GAS.add(BATCH_GAS_PER_RECORD.multiply(BigInteger.valueOf(size)));
+    }
+
+    private Function dayCompleteFunction(String userAddress, BigInteger challengeId) {
+        return new Function(
                 "recordDayComplete",
                 Arrays.asList(new Address(userAddress), new Uint256(challengeId)),
                 Collections.emptyList()
         );
-        
-        String encodedFunction = FunctionEncoder.encode(function);
-        System.out.println("Encoded Function: " + encodedFunction);
-
-        // 2. 获取 Nonce
-        EthGetTransactionCount ethGetTransactionCount = web3j.ethGetTransactionCount(
-                credentials.getAddress(), DefaultBlockParameterName.LATEST).send();
-        BigInteger nonce = ethGetTransactionCount.getTransactionCount();
-        System.out.println("Nonce: " + nonce);
-
-        // 3. 构建交易
-        // 注意：这里需要估算 Gas，简单起见先给一个固定值或后续优化
-        BigInteger gasLimit = BigInteger.valueOf(300000); 
-        // 获取当前 Gas Price
-        BigInteger gasPrice = web3j.ethGasPrice().send().getGasPrice();
-        System.out.println("Gas Price: " + gasPrice);
-
-        RawTransaction rawTransaction = RawTransaction.createTransaction(
-                nonce,
-                gasPrice,
-                gasLimit,
-                contractAddress,
-                encodedFunction
+    }
+
+    private Function slashFunction(String userAddress, BigInteger challengeId) {
+        return new Function(
+                "slash",
+                Arrays.asList(new Address(userAddress), new Uint256(challengeId)),
+                Collections.emptyList()
         );
+    }
 
-        // 4. 签名交易 (使用 EIP-155)
-        // Kite AI Testnet Chain ID: 2664369527 (需确认，根据 RPC 手动查询或写死)
-        // 也可以动态获取
-        long chainId = web3j.ethChainId().send().getChainId().longValue();
-        System.out.println("Chain ID: " + chainId);
+    /**
+     * 签名并发送合约调用交易
+     * nonce 由本地 NonceManager 原子分配，签名与广播不持锁，多笔交易可以并行发送；
+     * 从未广播的交易遇到 nonce 过低时与节点对齐后换新 nonce 重试一次
+     */
+    private SentTx sendTransaction(Function function, BigInteger gasLimit) throws IOException {
+        SentTx tx = prepare(function, gasLimit);
+        try {
+            broadcast(tx);
+        } catch (TxRejectedException e) {
+            if (!e.nonceConsumed) {
+                throw e;
+            }
+            log.warn("Nonce 落后于节点，重新对齐后重试: nonce={}, {}", tx.nonce, e.getMessage());
+            tx = prepare(function, gasLimit);
+            broadcast(tx);
+        }
+        return tx;
+    }
 
-        byte[] signedMessage = TransactionEncoder.signMessage(rawTransaction, chainId, credentials);
+    /**
+     * 分配 nonce 并签名，交易哈希在广播前即可确定
+     */
+    private SentTx prepare(Function function, BigInteger gasLimit) throws IOException {
+        String encodedFunction = FunctionEncoder.encode(function);
+        BigInteger gasPrice = currentGasPrice();
+        getChainId();
+        BigInteger nonce = nonceManager.acquire();
+        try {
+            return sign(RawTransaction.createTransaction(nonce, gasPrice, gasLimit, contractAddress, encodedFunction),
+                    false);
+        } catch (RuntimeException e) {
+            nonceManager.release(nonce);
+            throw e;
+        }
+    }
+
+    /**
+     * 签名 (EIP-155) 并记录到 NonceManager，广播失败或被丢弃时可按原签名交易重发
+     */
+    private SentTx sign(RawTransaction rawTransaction, boolean replacement) throws IOException {
+        log.debug("签名交易: nonce={}, gasPrice={}, gasLimit={}", rawTransaction.getNonce(),
+                rawTransaction.getGasPrice(), rawTransaction.getGasLimit());
+        byte[] signedMessage = TransactionEncoder.signMessage(rawTransaction, getChainId(), credentials);
         String hexValue = Numeric.toHexString(signedMessage);
-        System.out.println("Signed Transaction Hex: " + hexValue);
+        SentTx tx = new SentTx(Hash.sha3(hexValue), rawTransaction.getNonce(), rawTransaction.getGasPrice(),
+                hexValue, replacement);
+        nonceManager.track(tx.nonce, hexValue);
+        return tx;
+    }
 
-        // 5. 发送交易
-        EthSendTransaction ethSendTransaction = web3j.ethSendRawTransaction(hexValue).send();
+    private BigInteger currentGasPrice() throws IOException {
+        return web3j.ethGasPrice().send().getGasPrice();
+    }
 
-        if (ethSendTransaction.hasError()) {
-            throw new RuntimeException("Blockchain transaction failed: " + ethSendTransaction.getError().getMessage());
+    private long transactionCount(DefaultBlockParameterName block) throws IOException {
+        EthGetTransactionCount count = web3j.ethGetTransactionCount(credentials.getAddress(), block).send();
+        if (count.hasError()) {
+            throw new IOException("eth_getTransactionCount failed: " + count.getError().getMessage());
         }
+        return count.getTransactionCount().longValueExact();
+    }
 
-        String txHash = ethSendTransaction.getTransactionHash();
-        System.out.println("Transaction Sent Successfully! Hash: " + txHash);
-        return txHash;
+    /**
+     * Chain ID 在运行期间不变，首次获取后缓存
+     */
+    private long getChainId() throws IOException {
+        Long id = chainId;
+        if (id == null) {
+            id = web3j.ethChainId().send().getChainId().longValue();
+            log.info("Chain ID: {}", id);
+            chainId = id;
+        }
+        return id;
+    }
+
+    /**
+     * 交易查询状态
+     */
+    public enum TxState {
+        /** 已打包且执行成功 */
+        MINED,
+        /** 已打包但执行回滚 */
+        REVERTED,
+        /** 仍在交易池中 */
+        PENDING,
+        /** 节点不认识该交易 (可能已被丢弃) */
+        UNKNOWN
+    }
+
+    /**
+     * 已签名的交易，nonce 与 gas price 用于之后的同 nonce 替换
+     */
+    public static class SentTx {
+        public final String hash;
+        public final BigInteger nonce;
+        public final BigInteger gasPrice;
+        /** 签名交易 (hex)，网络错误或被丢弃时原样重发 */
+        public final String rawTransaction;
+        /** 同 nonce 替换/占位交易，被拒绝时不归还 nonce */
+        public final boolean replacement;
+        /** 尚未广播过 */
+        volatile boolean fresh = true;
+
+        public SentTx(String hash, BigInteger nonce, BigInteger gasPrice, String rawTransaction, boolean replacement) {
+            this.hash = hash;
+            this.nonce = nonce;
+            this.gasPrice = gasPrice;
+            this.rawTransaction = rawTransaction;
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * 节点明确拒绝交易 (未进入交易池)
+     */
+    public static class TxRejectedException extends RuntimeException {
+        /** nonce 已被其他交易占用 */
+        public final boolean nonceConsumed;
+
+        public TxRejectedException(String message, boolean nonceConsumed) {
+            super("Blockchain transaction failed: " + message);
+            this.nonceConsumed = nonceConsumed;
+        }
+    }
+
+    /**
+     * 单笔交易的查询结果
+     */
+    public static class TxLookup {
+        public TxState state;
+        public BigInteger blockNumber;
+        public BigInteger nonce;
+        public BigInteger gasPrice;
     }
 }
@@ -0,0 +1,268 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.common.Constants;
+import com.domain.entity.ChainOutbox;
+import com.mapper.ChainOutboxMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上链发件箱后台任务
+ * 定时拉取到期的 PENDING 记录，抢占后交给 DayCompleteBatcher 发送，
+ * 成功回写交易哈希，失败按指数退避重试，超过最大次数标记 FAILED。
+ * 抢占时 attempts 加一作为版本号，之后的回写都要求版本不变，超时恢复后旧的发送不会覆盖新一轮的状态；
+ * 已写入签名交易的记录不会放回 PENDING (那会换新 nonce 重发，原交易仍可能上链而重复计数)。
+ */
+@Slf4j
+@Component
+public class ChainOutboxWorker {
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.backoff-base-ms:2000}")
+    private long backoffBaseMs;
+
+    @Value("${outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.stuck-timeout-minutes:5}")
+    private long stuckTimeoutMinutes;
+
+    @Value("${outbox.workers:4}")
+    private int workers;
+
+    @Autowired
+    private ChainOutboxMapper chainOutboxMapper;
+
+    @Autowired
+    private DayCompleteBatcher dayCompleteBatcher;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private BlockchainService blockchainService;
+
+    private ExecutorService workerPool;
+
+    @PostConstruct
+    public void init() {
+        this.workerPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "chain-outbox-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workerPool.shutdown();
+        workerPool.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 拉取到期记录并分发发送
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            recoverStuck();
+
+            LambdaQueryWrapper<ChainOutbox> query = new LambdaQueryWrapper<>();
+            query.eq(ChainOutbox::getStatus, Constants.TX_STATUS_PENDING)
+                 .le(ChainOutbox::getNextAttemptAt, LocalDateTime.now())
+                 .orderByAsc(ChainOutbox::getId)
+                 .last("LIMIT " + batchSize);
+            List<ChainOutbox> due = chainOutboxMapper.selectList(query);
+
+            for (ChainOutbox outbox : due) {
+                if (claim(outbox)) {
+                    workerPool.execute(() -> dispatch(outbox));
+                }
+            }
+        } catch (Exception e) {
+            log.error("发件箱轮询失败", e);
+        }
+    }
+
+    /**
+     * 抢占记录: 仅当状态仍为 PENDING 时更新为 SENDING 并递增 attempts，避免重复发送
+     */
+    private boolean claim(ChainOutbox outbox) {
+        LambdaUpdateWrapper<ChainOutbox> update = new LambdaUpdateWrapper<>();
+        update.eq(ChainOutbox::getId, outbox.getId())
+              .eq(ChainOutbox::getStatus, Constants.TX_STATUS_PENDING)
+              .eq(ChainOutbox::getAttempts, outbox.getAttempts())
+              .set(ChainOutbox::getStatus, Constants.TX_STATUS_SENDING)
+              .set(ChainOutbox::getAttempts, outbox.getAttempts() + 1)
+              .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+        if (chainOutboxMapper.update(null, update) != 1) {
+            return false;
+        }
+        outbox.setAttempts(outbox.getAttempts() + 1);
+        return true;
+    }
+
+    private void dispatch(ChainOutbox outbox) {
+        dayCompleteBatcher.submit(outbox)
+                .whenCompleteAsync((tx, error) -> {
+                    try {
+                        if (error == null) {
+                            markSent(outbox, tx);
+                        } else {
+                            markFailedAttempt(outbox, error);
+                        }
+                    } catch (Exception e) {
+                        log.error("发件箱状态回写失败, id={}", outbox.getId(), e);
+                    }
+                }, workerPool);
+    }
+
+    private void markSent(ChainOutbox outbox, BlockchainService.SentTx tx) {
+        LambdaUpdateWrapper<ChainOutbox> update = new LambdaUpdateWrapper<>();
+        update.eq(ChainOutbox::getId, outbox.getId())
+              .eq(ChainOutbox::getStatus, Constants.TX_STATUS_SENDING)
+              .eq(ChainOutbox::getAttempts, outbox.getAttempts())
+              .set(ChainOutbox::getStatus, Constants.TX_STATUS_SENT)
+              .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+        if (chainOutboxMapper.update(null, update) == 0) {
+            // 已由超时恢复按同一签名交易回写
+            return;
+        }
+        if (isSlash(outbox)) {
+            log.info("惩罚已上链: wallet={}, challengeId={}, txHash={}, nonce={}",
+                    outbox.getWalletAddress(), outbox.getChallengeId(), tx.hash, tx.nonce);
+            return;
+        }
+
+        checkInService.markTxSent(outbox.getWalletAddress(), outbox.getChallengeId(), outbox.getCheckInDate(), tx);
+        log.info("打卡已上链: wallet={}, challengeId={}, txHash={}, nonce={}",
+                outbox.getWalletAddress(), outbox.getChallengeId(), tx.hash, tx.nonce);
+    }
+
+    /**
+     * 发送失败: DayCompleteBatcher 保证此时交易没有被节点接受，清除签名交易后按退避重试
+     */
+    private void markFailedAttempt(ChainOutbox outbox, Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        String message = String.valueOf(cause.getMessage());
+        if (message.length() > 500) {
+            message = message.substring(0, 500);
+        }
+        int attempts = outbox.getAttempts();
+        boolean exhausted = attempts >= maxAttempts;
+
+        LambdaUpdateWrapper<ChainOutbox> update = new LambdaUpdateWrapper<>();
+        update.eq(ChainOutbox::getId, outbox.getId())
+              .eq(ChainOutbox::getStatus, Constants.TX_STATUS_SENDING)
+              .eq(ChainOutbox::getAttempts, attempts)
+              .set(ChainOutbox::getStatus, exhausted ? Constants.TX_STATUS_FAILED : Constants.TX_STATUS_PENDING)
+              .set(ChainOutbox::getTxHash, null)
+              .set(ChainOutbox::getTxNonce, null)
+              .set(ChainOutbox::getTxGasPrice, null)
+              .set(ChainOutbox::getTxRaw, null)
+              .set(ChainOutbox::getLastError, message)
+              .set(ChainOutbox::getNextAttemptAt, LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(attempts))))
+              .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+        if (chainOutboxMapper.update(null, update) == 0) {
+            log.warn("发件箱记录已被重新抢占，忽略本次失败: id={}, error={}", outbox.getId(), message);
+            return;
+        }
+
+        if (exhausted) {
+            if (isSlash(outbox)) {
+                log.error("惩罚上链多次失败，放弃重试: id={}, error={}", outbox.getId(), message);
+                return;
+            }
+            checkInService.updateTxStatus(outbox.getWalletAddress(), outbox.getChallengeId(),
+                    outbox.getCheckInDate(), Constants.TX_STATUS_FAILED, null);
+            log.error("打卡上链多次失败，放弃重试: id={}, error={}", outbox.getId(), message);
+        } else {
+            log.warn("打卡上链失败，稍后重试: id={}, attempts={}, error={}", outbox.getId(), attempts, message);
+        }
+    }
+
+    private static boolean isSlash(ChainOutbox outbox) {
+        return Constants.OUTBOX_KIND_SLASH.equals(outbox.getKind());
+    }
+
+    /**
+     * 指数退避: base * 2^(attempts-1)，不超过上限
+     */
+    private long backoffMillis(int attempts) {
+        long delay = backoffBaseMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, backoffMaxMs);
+    }
+
+    /**
+     * 进程崩溃或长时间排队停留在 SENDING 的记录:
+     * 尚未签名的放回 PENDING (版本号保证仍在排队的旧发送不会再写入签名交易)；
+     * 已写入签名交易的按原 nonce 原样重发并标记 SENT，是否上链交给 TxReceiptTracker 判断
+     */
+    void recoverStuck() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(stuckTimeoutMinutes);
+        LambdaUpdateWrapper<ChainOutbox> update = new LambdaUpdateWrapper<>();
+        update.eq(ChainOutbox::getStatus, Constants.TX_STATUS_SENDING)
+              .isNull(ChainOutbox::getTxRaw)
+              .lt(ChainOutbox::getUpdatedAt, cutoff)
+              .set(ChainOutbox::getStatus, Constants.TX_STATUS_PENDING)
+              .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+        int recovered = chainOutboxMapper.update(null, update);
+        if (recovered > 0) {
+            log.warn("恢复 {} 条超时未完成的发件箱记录", recovered);
+        }
+
+        LambdaQueryWrapper<ChainOutbox> query = new LambdaQueryWrapper<>();
+        query.eq(ChainOutbox::getStatus, Constants.TX_STATUS_SENDING)
+             .isNotNull(ChainOutbox::getTxRaw)
+             .lt(ChainOutbox::getUpdatedAt, cutoff)
+             .orderByAsc(ChainOutbox::getTxNonce)
+             .last("LIMIT " + batchSize);
+        Map<String, List<ChainOutbox>> byHash = new LinkedHashMap<>();
+        for (ChainOutbox outbox : chainOutboxMapper.selectList(query)) {
+            byHash.computeIfAbsent(outbox.getTxHash(), k -> new ArrayList<>()).add(outbox);
+        }
+        for (List<ChainOutbox> rows : byHash.values()) {
+            resumeSigned(rows);
+        }
+    }
+
+    private void resumeSigned(List<ChainOutbox> rows) {
+        ChainOutbox first = rows.get(0);
+        BlockchainService.SentTx tx = new BlockchainService.SentTx(first.getTxHash(),
+                BigInteger.valueOf(first.getTxNonce()), BigInteger.valueOf(first.getTxGasPrice()),
+                first.getTxRaw(), true);
+        try {
+            blockchainService.rebroadcast(tx.hash, tx.nonce, tx.gasPrice, tx.rawTransaction);
+        } catch (Exception e) {
+            // 节点拒绝 (nonce 已被使用、替换价格不足等) 也不换 nonce，由回执跟踪判断交易是否存活
+            log.warn("恢复的签名交易重发失败: hash={}, nonce={}, {}", tx.hash, tx.nonce, e.getMessage());
+        }
+        for (ChainOutbox outbox : rows) {
+            markSent(outbox, tx);
+        }
+        log.warn("恢复 {} 条已签名未回写的发件箱记录: hash={}, nonce={}", rows.size(), tx.hash, tx.nonce);
+    }
+}
@@ -0,0 +1,230 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.domain.entity.ChallengeIndex;
+import com.domain.entity.IndexerCheckpoint;
+import com.mapper.ChallengeIndexMapper;
+import com.mapper.IndexerCheckpointMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 挑战读模型服务
+ * 将合约事件按顺序物化到 challenge_index，并与检查点在同一事务中推进。
+ * 每个事件都把对应字段设置为事件携带的值 (而不是增量修改)，重组回退后重放是幂等的。
+ */
+@Service
+public class ChallengeIndexService {
+
+    @Autowired
+    private ChallengeIndexMapper challengeIndexMapper;
+
+    @Autowired
+    private IndexerCheckpointMapper indexerCheckpointMapper;
+
+    public IndexerCheckpoint getCheckpoint(String name) {
+        return indexerCheckpointMapper.selectById(name);
+    }
+
+    /**
+     * 应用一段区块范围内的事件，并把检查点从 expectedLastBlock 推进到 toBlock
+     * 先以条件更新推进检查点 (行锁串行化多个实例)，检查点已被其他索引任务推进时整段回滚
+     * @param expectedLastBlock 读取到的检查点区块，null 表示检查点尚不存在
+     */
+    @Transactional
+    public void apply(String checkpointName, List<ContractEvent> events, Long expectedLastBlock,
+                      long toBlock, String toBlockHash) {
+        advanceCheckpoint(checkpointName, expectedLastBlock, toBlock, toBlockHash);
+        for (ContractEvent event : events) {
+            applyEvent(event);
+        }
+    }
+
+    /**
+     * 检测到重组时回退检查点
+     */
+    public void rewind(String checkpointName, long toBlock) {
+        saveCheckpoint(checkpointName, toBlock, null);
+    }
+
+    /**
+     * 查询用户的全部挑战
+     */
+    public List<ChallengeIndex> listByUser(String userAddress) {
+        LambdaQueryWrapper<ChallengeIndex> query = new LambdaQueryWrapper<>();
+        query.eq(ChallengeIndex::getUserAddress, userAddress.toLowerCase())
+             .orderByDesc(ChallengeIndex::getChallengeId);
+        return challengeIndexMapper.selectList(query);
+    }
+
+    /**
+     * 查询用户进行中的挑战ID
+     */
+    public List<Long> listActiveIds(String userAddress) {
+        LambdaQueryWrapper<ChallengeIndex> query = new LambdaQueryWrapper<>();
+        query.select(ChallengeIndex::getChallengeId)
+             .eq(ChallengeIndex::getUserAddress, userAddress.toLowerCase())
+             .eq(ChallengeIndex::getStatus, ChallengeIndex.STATUS_ACTIVE)
+             .orderByDesc(ChallengeIndex::getChallengeId);
+        List<Long> ids = new ArrayList<>();
+        for (ChallengeIndex challenge : challengeIndexMapper.selectList(query)) {
+            ids.add(challenge.getChallengeId());
+        }
+        return ids;
+    }
+
+    /**
+     * 查询单个挑战
+     */
+    public ChallengeIndex get(String userAddress, Long challengeId) {
+        return challengeIndexMapper.selectOne(byKey(userAddress, challengeId));
+    }
+
+    private void applyEvent(ContractEvent event) {
+        switch (event.type) {
+            case CHALLENGE_CREATED: {
+                ChallengeIndex challenge = new ChallengeIndex();
+                challenge.setUserAddress(event.userAddress);
+                challenge.setChallengeId(event.challengeId);
+                challenge.setStakeAmount(new BigDecimal(event.values[0]));
+                challenge.setTargetDays(event.values[1].intValue());
+                challenge.setPenaltyType(event.values[2].intValue());
+                challenge.setStartTime(event.blockTime);
+                challenge.setCreatedBlock(event.blockNumber);
+                challenge.setLastEventBlock(event.blockNumber);
+                challengeIndexMapper.insertCreated(challenge);
+                break;
+            }
+            case DAY_COMPLETED: {
+                int completedDays = event.values[0].intValue();
+                LambdaUpdateWrapper<ChallengeIndex> update = updateByKey(event);
+                update.set(ChallengeIndex::getCompletedDays, completedDays)
+                      // 与合约一致: 完成天数达到目标即标记完成
+                      .setSql("status = CASE WHEN status = " + ChallengeIndex.STATUS_ACTIVE
+                              + " AND target_days <= " + completedDays
+                              + " THEN " + ChallengeIndex.STATUS_COMPLETED + " ELSE status END");
+                challengeIndexMapper.update(null, update);
+                break;
+            }
+            case CHALLENGE_COMPLETED: {
+                // claimReward 后本金已返还
+                LambdaUpdateWrapper<ChallengeIndex> update = updateByKey(event);
+                update.set(ChallengeIndex::getStatus, ChallengeIndex.STATUS_COMPLETED)
+                      .set(ChallengeIndex::getStakeAmount, BigDecimal.ZERO);
+                challengeIndexMapper.update(null, update);
+                break;
+            }
+            case SLASHED: {
+                LambdaUpdateWrapper<ChallengeIndex> update = updateByKey(event);
+                update.set(ChallengeIndex::getStatus, ChallengeIndex.STATUS_FAILED)
+                      .set(ChallengeIndex::getStakeAmount, BigDecimal.ZERO);
+                challengeIndexMapper.update(null, update);
+                break;
+            }
+            case EMERGENCY_WITHDRAW: {
+                LambdaUpdateWrapper<ChallengeIndex> update = updateByKey(event);
+                update.set(ChallengeIndex::getStatus, ChallengeIndex.STATUS_WITHDRAWN);
+                challengeIndexMapper.update(null, update);
+                break;
+            }
+            case RESURRECTION_USED: {
+                LambdaUpdateWrapper<ChallengeIndex> update = updateByKey(event);
+                update.set(ChallengeIndex::getResurrectionUsed, true)
+                      .set(ChallengeIndex::getCompletedDays, 0)
+                      .set(ChallengeIndex::getStartTime, event.blockTime);
+                challengeIndexMapper.update(null, update);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private LambdaUpdateWrapper<ChallengeIndex> updateByKey(ContractEvent event) {
+        LambdaUpdateWrapper<ChallengeIndex> update = new LambdaUpdateWrapper<>();
+        update.eq(ChallengeIndex::getUserAddress, event.userAddress)
+              .eq(ChallengeIndex::getChallengeId, event.challengeId)
+              .set(ChallengeIndex::getLastEventBlock, event.blockNumber);
+        return update;
+    }
+
+    private LambdaQueryWrapper<ChallengeIndex> byKey(String userAddress, Long challengeId) {
+        LambdaQueryWrapper<ChallengeIndex> query = new LambdaQueryWrapper<>();
+        query.eq(ChallengeIndex::getUserAddress, userAddress.toLowerCase())
+             .eq(ChallengeIndex::getChallengeId, challengeId);
+        return query;
+    }
+
+    private void advanceCheckpoint(String name, Long expectedLastBlock, long lastBlock, String lastBlockHash) {
+        if (expectedLastBlock == null) {
+            // 并发首次写入时主键冲突，事务回滚
+            IndexerCheckpoint checkpoint = new IndexerCheckpoint();
+            checkpoint.setName(name);
+            checkpoint.setLastBlock(lastBlock);
+            checkpoint.setLastBlockHash(lastBlockHash);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            indexerCheckpointMapper.insert(checkpoint);
+            return;
+        }
+        LambdaUpdateWrapper<IndexerCheckpoint> update = new LambdaUpdateWrapper<>();
+        update.eq(IndexerCheckpoint::getName, name)
+              .eq(IndexerCheckpoint::getLastBlock, expectedLastBlock)
+              .set(IndexerCheckpoint::getLastBlock, lastBlock)
+              .set(IndexerCheckpoint::getLastBlockHash, lastBlockHash)
+              .set(IndexerCheckpoint::getUpdatedAt, LocalDateTime.now());
+        if (indexerCheckpointMapper.update(null, update) == 0) {
+            throw new IllegalStateException("检查点已被其他索引任务推进: " + name + " != " + expectedLastBlock);
+        }
+    }
+
+    private void saveCheckpoint(String name, long lastBlock, String lastBlockHash) {
+        // 显式 set，回退时需要把哈希清空
+        LambdaUpdateWrapper<IndexerCheckpoint> update = new LambdaUpdateWrapper<>();
+        update.eq(IndexerCheckpoint::getName, name)
+              .set(IndexerCheckpoint::getLastBlock, lastBlock)
+              .set(IndexerCheckpoint::getLastBlockHash, lastBlockHash)
+              .set(IndexerCheckpoint::getUpdatedAt, LocalDateTime.now());
+        if (indexerCheckpointMapper.update(null, update) == 0) {
+            IndexerCheckpoint checkpoint = new IndexerCheckpoint();
+            checkpoint.setName(name);
+            checkpoint.setLastBlock(lastBlock);
+            checkpoint.setLastBlockHash(lastBlockHash);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            indexerCheckpointMapper.insert(checkpoint);
+        }
+    }
+
+    /**
+     * 合约事件类型
+     */
+    public enum EventType {
+        CHALLENGE_CREATED,
+        DAY_COMPLETED,
+        CHALLENGE_COMPLETED,
+        SLASHED,
+        EMERGENCY_WITHDRAW,
+        RESURRECTION_USED
+    }
+
+    /**
+     * 解码后的合约事件
+     */
+    public static class ContractEvent {
+        public EventType type;
+        /** 用户地址 (小写) */
+        public String userAddress;
+        public Long challengeId;
+        /** 非 indexed 参数，按事件定义顺序 */
+        public BigInteger[] values;
+        public long blockNumber;
+        public LocalDateTime blockTime;
+    }
+}
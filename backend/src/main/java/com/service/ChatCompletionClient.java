@@ -0,0 +1,67 @@
+package com.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OpenAI 兼容的 chat/completions 调用
+ * 要求模型以 JSON 对象回复，返回去掉 Markdown 代码块标记后的回复内容
+ */
+public class ChatCompletionClient {
+
+    private final String apiUrl;
+    private final String apiKey;
+    private final String model;
+    private final RestTemplate restTemplate;
+
+    public ChatCompletionClient(String apiUrl, String apiKey, String model, RestTemplate restTemplate) {
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * @param systemPrompt 系统提示词
+     * @param userContent 用户消息
+     * @return 模型回复的 JSON 文本
+     */
+    public String complete(String systemPrompt, String userContent, double temperature) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", model);
+        body.put("temperature", temperature);
+        body.put("messages", List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userContent)));
+        // Ensure JSON response
+        body.put("response_format", Map.of("type", "json_object"));
+
+        JsonNode root = restTemplate.postForObject(apiUrl, new HttpEntity<>(body, headers), JsonNode.class);
+        if (root == null) {
+            throw new IllegalStateException("Empty chat completion response");
+        }
+        String content = root.path("choices").path(0).path("message").path("content").asText();
+
+        // Clean up Markdown code blocks if present
+        if (content.startsWith("```json")) {
+            content = content.substring(7);
+        } else if (content.startsWith("```")) {
+            content = content.substring(3);
+        }
+        if (content.endsWith("```")) {
+            content = content.substring(0, content.length() - 3);
+        }
+        return content.trim();
+    }
+}
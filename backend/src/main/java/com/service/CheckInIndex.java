@@ -0,0 +1,203 @@
+package com.service;
+
+import com.common.Constants;
+import com.mapper.DailyCheckInMapper;
+import com.utils.LongHashSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * 今日打卡索引
+ * 以 (钱包地址小写, 挑战ID) 的 64 位哈希存入 LongHashSet，只保存业务时区的当天；
+ * 启动时与每天零点 (Asia/Shanghai) 从 daily_check_in 预热，打卡事务提交后写入。
+ * 命中直接返回；未命中默认回查数据库 (多实例下其他实例的写入本实例看不到)，
+ * 确认单实例部署时可开启 checkin.index.trust-negative，预热完成后未命中也直接返回。
+ */
+@Slf4j
+@Component
+public class CheckInIndex {
+
+    @Value("${checkin.index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 未命中是否可信，仅单实例部署可开启；默认关闭，避免多实例下把其他实例的打卡判为未打卡
+     */
+    @Value("${checkin.index.trust-negative:false}")
+    private boolean trustNegative;
+
+    @Autowired
+    private DailyCheckInMapper dailyCheckInMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile Day current;
+
+    @PostConstruct
+    public void init() {
+        current = new Day(today(), 1024);
+        Gauge.builder("checkin.index.size", this, index -> index.current.size())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmOnStartup() {
+        if (enabled) {
+            rollover();
+        }
+    }
+
+    /**
+     * 零点切换到新的一天
+     */
+    @Scheduled(cron = "0 0 0 * * *", zone = Constants.ZONE_ID)
+    public void rollover() {
+        LocalDate today = today();
+        Day day = current;
+        if (!day.date.equals(today)) {
+            synchronized (this) {
+                if (current.date.equals(today)) {
+                    day = current;
+                } else {
+                    day = new Day(today, Math.max(1024, current.size()));
+                    current = day;
+                }
+            }
+        }
+        warm(day);
+    }
+
+    /**
+     * 查询今日是否已打卡
+     * @return true 已打卡，false 未打卡，null 无法确定 (需查数据库)
+     */
+    public Boolean isCheckedIn(String walletAddress, Long challengeId) {
+        if (!enabled) {
+            return null;
+        }
+        Day day = currentDay();
+        if (day.contains(key(walletAddress, challengeId))) {
+            count("hit");
+            return Boolean.TRUE;
+        }
+        if (trustNegative && day.warmed) {
+            count("negative");
+            return Boolean.FALSE;
+        }
+        count("miss");
+        return null;
+    }
+
+    /**
+     * 记录打卡 (事务提交后调用)
+     */
+    public void markCheckedIn(String walletAddress, Long challengeId, LocalDate date) {
+        Day day = currentDay();
+        if (day.date.equals(date)) {
+            day.add(key(walletAddress, challengeId));
+        }
+    }
+
+    private Day currentDay() {
+        Day day = current;
+        if (!day.date.equals(today())) {
+            // 零点任务尚未执行: 先切换，数据库中的当日记录由 rollover 预热
+            rollover();
+            day = current;
+        }
+        return day;
+    }
+
+    private void warm(Day day) {
+        if (day.warmed || !day.startWarming()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            int[] rows = {0};
+            dailyCheckInMapper.scanCheckedIn(day.date, context -> {
+                day.add(key(context.getResultObject().getWalletAddress(), context.getResultObject().getChallengeId()));
+                rows[0]++;
+            });
+            day.warmed = true;
+            log.info("打卡索引预热完成: {} 共 {} 条，耗时 {}ms", day.date, rows[0], System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            day.warming = false;
+            log.error("打卡索引预热失败，未命中将回查数据库", e);
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("checkin.index.lookup")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneId.of(Constants.ZONE_ID));
+    }
+
+    /**
+     * (钱包地址小写, 挑战ID) 的 64 位哈希 (FNV-1a + splitmix64 混合)
+     * 百万级条目的碰撞概率约 1e-8
+     */
+    static long key(String walletAddress, Long challengeId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : walletAddress.toLowerCase().getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= challengeId;
+        hash *= 0x100000001b3L;
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static class Day {
+        final LocalDate date;
+        private final LongHashSet keys;
+        volatile boolean warmed;
+        volatile boolean warming;
+
+        Day(LocalDate date, int expectedSize) {
+            this.date = date;
+            this.keys = new LongHashSet(expectedSize);
+        }
+
+        synchronized boolean startWarming() {
+            if (warming) {
+                return false;
+            }
+            warming = true;
+            return true;
+        }
+
+        synchronized void add(long key) {
+            keys.add(key);
+        }
+
+        synchronized boolean contains(long key) {
+            return keys.contains(key);
+        }
+
+        synchronized int size() {
+            return keys.size();
+        }
+    }
+}
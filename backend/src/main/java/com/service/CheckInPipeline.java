@@ -0,0 +1,225 @@
+package com.service;
+
+import com.common.Constants;
+import com.domain.DailyCheckIn;
+import com.utils.SingleFlight;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 打卡流水线
+ * verify (ProofVerifier，按习惯类型选择) -> dedupe (今日是否已打卡) -> persist (经 CheckInWriteBuffer 合并批次，
+ * 打卡记录与上链发件箱同一事务写入)，
+ * 上链由 ChainOutboxWorker 从发件箱异步发送。
+ * 每个阶段异步执行、单独超时，并记录耗时指标 checkin.pipeline.stage {type, stage, outcome}；
+ * 同一 (类型, 钱包, 挑战, 日期) 的并发请求共享同一次执行。
+ */
+@Slf4j
+@Service
+public class CheckInPipeline {
+
+    @Autowired
+    private List<ProofVerifier> proofVerifiers;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private CheckInWriteBuffer checkInWriteBuffer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${checkin.pipeline.workers:16}")
+    private int workers;
+
+    @Value("${checkin.pipeline.queue-size:1000}")
+    private int queueSize;
+
+    @Value("${checkin.pipeline.persist-timeout-ms:10000}")
+    private long persistTimeoutMs;
+
+    private final Map<String, ProofVerifier> verifiers = new HashMap<>();
+    private final SingleFlight<String, Map<String, Object>> flights = new SingleFlight<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        for (ProofVerifier verifier : proofVerifiers) {
+            if (verifiers.put(verifier.type(), verifier) != null) {
+                throw new IllegalStateException("Duplicate proof verifier type: " + verifier.type());
+            }
+        }
+        executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "checkin-pipeline");
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        Gauge.builder("checkin.pipeline.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        log.info("打卡流水线已注册验证器: {}", verifiers.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 整条流水线的最长耗时，调用方据此设置异步响应超时
+     */
+    public long timeoutMs(String type) {
+        return verifier(type).timeoutMs() + persistTimeoutMs;
+    }
+
+    /**
+     * 执行打卡检测，challengeId 为空时只验证不写入
+     * @return 返回给前端的结果 (success / clockedIn / deferred / message / txStatus)，不会异常完成
+     */
+    public CompletableFuture<Map<String, Object>> check(String type, String walletAddress, Long challengeId,
+                                                        String content) {
+        ProofVerifier verifier = verifier(type);
+        String key = type + ":" + walletAddress.toLowerCase() + ":" + challengeId + ":" + checkInService.today();
+        if (content != null) {
+            // 内容不同的提交 (如修改后重交的笔记) 各自审核，不复用进行中的结论
+            key += ":" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return flights.executeAsync(key, () -> run(verifier, walletAddress, challengeId, content));
+    }
+
+    private CompletableFuture<Map<String, Object>> run(ProofVerifier verifier, String walletAddress,
+                                                       Long challengeId, String content) {
+        String type = verifier.type();
+        return stage(type, "verify", verifier.timeoutMs(),
+                () -> verifier.verifyAsync(walletAddress, challengeId, content, executor),
+                proof -> proof.status.name().toLowerCase())
+                .exceptionally(e -> {
+                    if (unwrap(e) instanceof TimeoutException) {
+                        return ProofVerifier.Proof.deferred("验证超时，请稍后再试 ⏳");
+                    }
+                    if (unwrap(e) instanceof RejectedExecutionException) {
+                        return ProofVerifier.Proof.deferred("打卡检测繁忙，请稍后再试 ⏳");
+                    }
+                    log.warn("{} 打卡验证失败: wallet={}, {}", type, walletAddress, unwrap(e).toString());
+                    return ProofVerifier.Proof.invalid("验证失败: " + unwrap(e).getMessage());
+                })
+                .thenCompose(proof -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("success", proof.status != ProofVerifier.Proof.Status.INVALID);
+                    result.put("clockedIn", proof.status == ProofVerifier.Proof.Status.PASSED);
+                    result.put("message", proof.message);
+                    if (proof.status == ProofVerifier.Proof.Status.DEFERRED) {
+                        result.put("deferred", true);
+                    }
+                    if (proof.status != ProofVerifier.Proof.Status.PASSED || challengeId == null) {
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    return record(type, result, walletAddress, challengeId, proof);
+                });
+    }
+
+    /**
+     * dedupe + persist: 写入今日打卡记录与上链发件箱，立即返回，交易由后台任务发送
+     */
+    private CompletableFuture<Map<String, Object>> record(String type, Map<String, Object> result,
+                                                          String walletAddress, Long challengeId,
+                                                          ProofVerifier.Proof proof) {
+        AtomicBoolean persisting = new AtomicBoolean();
+        return stage(type, "dedupe", persistTimeoutMs,
+                () -> CompletableFuture.supplyAsync(
+                        () -> checkInService.isCheckedInToday(walletAddress, challengeId), executor),
+                done -> done ? "duplicate" : "new")
+                .thenCompose(done -> done
+                        ? CompletableFuture.completedFuture((DailyCheckIn) null)
+                        : stage(type, "persist", persistTimeoutMs,
+                                () -> {
+                                    persisting.set(true);
+                                    return checkInWriteBuffer.submit(walletAddress, challengeId, proof.proofContent);
+                                },
+                                checkIn -> checkIn == null ? "duplicate" : "ok"))
+                .handle((checkIn, e) -> {
+                    if (e != null && unwrap(e) instanceof TimeoutException && persisting.get()) {
+                        // 写入仍在缓冲/事务中，多半会成功；重复提交由 dedupe 与唯一键兜底
+                        log.warn("{} 打卡记录保存超时，结果待定: wallet={}, challengeId={}", type, walletAddress,
+                                challengeId);
+                        result.put("clockedIn", false);
+                        result.put("deferred", true);
+                        result.put("txStatus", Constants.TX_STATUS_PENDING);
+                        result.put("message", proof.message + " (打卡记录保存中，请稍后刷新查看 ⏳)");
+                    } else if (e != null) {
+                        log.error("{} 打卡记录保存失败: wallet={}, challengeId={}", type, walletAddress, challengeId,
+                                unwrap(e));
+                        result.put("success", false);
+                        result.put("message", proof.message + " (但打卡记录保存失败: " + unwrap(e).getMessage() + ")");
+                    } else if (checkIn == null) {
+                        result.put("message", proof.message + " (无需重复上链)");
+                    } else {
+                        result.put("txStatus", checkIn.getTxStatus());
+                        result.put("message", proof.message + " (已提交上链，请稍后查询结果)");
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * 执行一个阶段: 超时控制，并按结果记录耗时
+     */
+    private <T> CompletableFuture<T> stage(String type, String stage, long timeoutMs,
+                                           Supplier<CompletableFuture<T>> call, Function<T, String> outcome) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            // 线程池满时 supplyAsync 直接抛出 RejectedExecutionException
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        // 复制一份再加超时，不影响验证器内部共享的 future
+        return future.thenApply(Function.identity())
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((value, e) -> Timer.builder("checkin.pipeline.stage")
+                        .tag("type", type)
+                        .tag("stage", stage)
+                        .tag("outcome", e == null ? outcome.apply(value)
+                                : unwrap(e) instanceof TimeoutException ? "timeout" : "error")
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private ProofVerifier verifier(String type) {
+        ProofVerifier verifier = verifiers.get(type);
+        if (verifier == null) {
+            throw new IllegalArgumentException("Unknown check-in type: " + type);
+        }
+        return verifier;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,362 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.common.Constants;
+import com.domain.DailyCheckIn;
+import com.domain.entity.ChainOutbox;
+import com.mapper.ChainOutboxMapper;
+import com.mapper.DailyCheckInMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 打卡记录服务
+ * 负责打卡幂等检查，以及打卡记录与上链发件箱的事务写入
+ */
+@Service
+public class CheckInService {
+
+    @Autowired
+    private DailyCheckInMapper dailyCheckInMapper;
+
+    @Autowired
+    private ChainOutboxMapper chainOutboxMapper;
+
+    @Autowired
+    private CheckInIndex checkInIndex;
+
+    /**
+     * 业务时区下的今天
+     */
+    public LocalDate today() {
+        return LocalDate.now(ZoneId.of(Constants.ZONE_ID));
+    }
+
+    /**
+     * 今日是否已打卡 (优先查内存索引)
+     */
+    public boolean isCheckedInToday(String walletAddress, Long challengeId) {
+        Boolean indexed = checkInIndex.isCheckedIn(walletAddress, challengeId);
+        if (indexed != null) {
+            return indexed;
+        }
+        return dailyCheckInMapper.exists(todayQuery(walletAddress, challengeId));
+    }
+
+    /**
+     * 获取今日打卡记录
+     */
+    public DailyCheckIn getTodayCheckIn(String walletAddress, Long challengeId) {
+        if (Boolean.FALSE.equals(checkInIndex.isCheckedIn(walletAddress, challengeId))) {
+            return null;
+        }
+        return dailyCheckInMapper.selectOne(todayQuery(walletAddress, challengeId));
+    }
+
+    /**
+     * 批量获取今日打卡记录 (一次 IN 查询，只取挑战ID与上链状态)
+     * 内存索引已确认未打卡的挑战不进入查询，全部未打卡时不访问数据库
+     */
+    public List<DailyCheckIn> listTodayCheckIns(String walletAddress, Collection<Long> challengeIds) {
+        List<Long> candidates = new ArrayList<>(challengeIds.size());
+        for (Long challengeId : challengeIds) {
+            if (!Boolean.FALSE.equals(checkInIndex.isCheckedIn(walletAddress, challengeId))) {
+                candidates.add(challengeId);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LambdaQueryWrapper<DailyCheckIn> query = new LambdaQueryWrapper<>();
+        query.select(DailyCheckIn::getChallengeId, DailyCheckIn::getTxStatus, DailyCheckIn::getTxHash)
+             .eq(DailyCheckIn::getWalletAddress, walletAddress)
+             .eq(DailyCheckIn::getCheckInDate, today())
+             .in(DailyCheckIn::getChallengeId, candidates);
+        return dailyCheckInMapper.selectList(query);
+    }
+
+    /**
+     * 记录今日打卡，并在同一事务中写入待上链的发件箱记录
+     * 交易由 ChainOutboxWorker 异步发送，本方法不等待链上结果
+     * @return 新写入的打卡记录；今日已打卡时返回 null
+     */
+    @Transactional
+    public DailyCheckIn recordCheckIn(String walletAddress, Long challengeId, String proofContent) {
+        return recordCheckIn(newCheckIn(walletAddress, challengeId, proofContent));
+    }
+
+    /**
+     * 写入一条已构造好的打卡记录 (见 newCheckIn)
+     */
+    @Transactional
+    public DailyCheckIn recordCheckIn(DailyCheckIn checkIn) {
+        try {
+            dailyCheckInMapper.insert(checkIn);
+        } catch (DuplicateKeyException e) {
+            // 并发请求已写入 (uk_wallet_challenge_date)
+            checkInIndex.markCheckedIn(checkIn.getWalletAddress(), checkIn.getChallengeId(), checkIn.getCheckInDate());
+            return null;
+        }
+        markAfterCommit(List.of(checkIn));
+        chainOutboxMapper.insert(newOutbox(checkIn));
+        return checkIn;
+    }
+
+    /**
+     * 批量写入打卡记录与发件箱 (各一条多行 INSERT，同一事务)
+     * 批内重复与数据库中已存在的记录不再写入，对应位置返回 null；
+     * 与其他实例并发写入同一记录时由唯一键兜底 (ON DUPLICATE KEY)，发件箱同样不会重复
+     * @return 与输入一一对应: 新写入的打卡记录，或 null (今日已打卡)
+     */
+    @Transactional
+    public List<DailyCheckIn> recordCheckIns(List<DailyCheckIn> checkIns) {
+        Set<String> existing = new HashSet<>();
+        for (DailyCheckIn row : dailyCheckInMapper.selectExisting(checkIns)) {
+            existing.add(batchKey(row));
+        }
+        List<DailyCheckIn> results = new ArrayList<>(checkIns.size());
+        List<DailyCheckIn> inserts = new ArrayList<>(checkIns.size());
+        List<ChainOutbox> outboxes = new ArrayList<>(checkIns.size());
+        for (DailyCheckIn checkIn : checkIns) {
+            if (existing.add(batchKey(checkIn))) {
+                inserts.add(checkIn);
+                outboxes.add(newOutbox(checkIn));
+                results.add(checkIn);
+            } else {
+                results.add(null);
+            }
+        }
+        if (!inserts.isEmpty()) {
+            dailyCheckInMapper.insertBatch(inserts);
+            chainOutboxMapper.insertBatch(outboxes);
+        }
+        // 已存在的也写入索引 (幂等)
+        markAfterCommit(checkIns);
+        return results;
+    }
+
+    /**
+     * 构造今日打卡记录 (待上链)
+     */
+    public DailyCheckIn newCheckIn(String walletAddress, Long challengeId, String proofContent) {
+        LocalDateTime now = LocalDateTime.now();
+        DailyCheckIn checkIn = new DailyCheckIn();
+        checkIn.setWalletAddress(walletAddress);
+        checkIn.setChallengeId(challengeId);
+        checkIn.setCheckInDate(today());
+        checkIn.setCreatedAt(now);
+        checkIn.setProofContent(proofContent);
+        checkIn.setTxStatus(Constants.TX_STATUS_PENDING);
+        checkIn.setTxUpdatedAt(now);
+        return checkIn;
+    }
+
+    private ChainOutbox newOutbox(DailyCheckIn checkIn) {
+        LocalDateTime now = LocalDateTime.now();
+        ChainOutbox outbox = new ChainOutbox();
+        outbox.setWalletAddress(checkIn.getWalletAddress());
+        outbox.setChallengeId(checkIn.getChallengeId());
+        outbox.setCheckInDate(checkIn.getCheckInDate());
+        outbox.setKind(Constants.OUTBOX_KIND_DAY_COMPLETE);
+        outbox.setStatus(Constants.TX_STATUS_PENDING);
+        outbox.setAttempts(0);
+        outbox.setNextAttemptAt(now);
+        outbox.setCreatedAt(now);
+        outbox.setUpdatedAt(now);
+        return outbox;
+    }
+
+    /**
+     * 事务提交后再写入索引，回滚时不会留下错误的“已打卡”
+     */
+    private void markAfterCommit(List<DailyCheckIn> checkIns) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (DailyCheckIn checkIn : checkIns) {
+                    checkInIndex.markCheckedIn(checkIn.getWalletAddress(), checkIn.getChallengeId(),
+                            checkIn.getCheckInDate());
+                }
+            }
+        });
+    }
+
+    /**
+     * 唯一键 uk_wallet_challenge_date (钱包地址按不区分大小写的排序规则比较)
+     */
+    private static String batchKey(DailyCheckIn checkIn) {
+        return checkIn.getWalletAddress().toLowerCase() + ":" + checkIn.getChallengeId() + ":"
+                + checkIn.getCheckInDate();
+    }
+
+    /**
+     * 回写上链状态到打卡记录
+     */
+    public void updateTxStatus(String walletAddress, Long challengeId, LocalDate checkInDate,
+                               String txStatus, String txHash) {
+        LambdaUpdateWrapper<DailyCheckIn> update = new LambdaUpdateWrapper<>();
+        update.eq(DailyCheckIn::getWalletAddress, walletAddress)
+              .eq(DailyCheckIn::getChallengeId, challengeId)
+              .eq(DailyCheckIn::getCheckInDate, checkInDate)
+              .set(DailyCheckIn::getTxStatus, txStatus)
+              .set(DailyCheckIn::getTxUpdatedAt, LocalDateTime.now());
+        if (txHash != null) {
+            update.set(DailyCheckIn::getTxHash, txHash);
+        }
+        dailyCheckInMapper.update(null, update);
+    }
+
+    /**
+     * 记录已发送的交易 (哈希、nonce、gas price)
+     */
+    public void markTxSent(String walletAddress, Long challengeId, LocalDate checkInDate,
+                           BlockchainService.SentTx tx) {
+        LambdaUpdateWrapper<DailyCheckIn> update = new LambdaUpdateWrapper<>();
+        update.eq(DailyCheckIn::getWalletAddress, walletAddress)
+              .eq(DailyCheckIn::getChallengeId, challengeId)
+              .eq(DailyCheckIn::getCheckInDate, checkInDate)
+              .set(DailyCheckIn::getTxStatus, Constants.TX_STATUS_SENT)
+              .set(DailyCheckIn::getTxHash, tx.hash)
+              .set(DailyCheckIn::getTxNonce, tx.nonce.longValueExact())
+              .set(DailyCheckIn::getTxGasPrice, tx.gasPrice.longValueExact())
+              .set(DailyCheckIn::getTxUpdatedAt, LocalDateTime.now());
+        dailyCheckInMapper.update(null, update);
+    }
+
+    /**
+     * 查询已发送、等待确认的打卡记录
+     */
+    public List<DailyCheckIn> listInFlight(int limit) {
+        LambdaQueryWrapper<DailyCheckIn> query = new LambdaQueryWrapper<>();
+        query.eq(DailyCheckIn::getTxStatus, Constants.TX_STATUS_SENT)
+             .isNotNull(DailyCheckIn::getTxHash)
+             .orderByAsc(DailyCheckIn::getTxUpdatedAt)
+             .last("LIMIT " + limit);
+        return dailyCheckInMapper.selectList(query);
+    }
+
+    /**
+     * 查询同一笔交易包含的全部打卡记录
+     */
+    public List<DailyCheckIn> listByTxHash(String txHash) {
+        LambdaQueryWrapper<DailyCheckIn> query = new LambdaQueryWrapper<>();
+        query.eq(DailyCheckIn::getTxHash, txHash)
+             .eq(DailyCheckIn::getTxStatus, Constants.TX_STATUS_SENT);
+        return dailyCheckInMapper.selectList(query);
+    }
+
+    /**
+     * 按交易哈希回写确认结果 (批量交易下多条打卡共享同一哈希)
+     */
+    public void updateTxStatusByHash(String txHash, String txStatus, Long blockNumber) {
+        updateTxStatusByHash(txHash, txStatus, blockNumber, txHash);
+    }
+
+    /**
+     * 回写确认结果，打包的是被替换的历史交易时同时改回该哈希
+     * @param minedTxHash 实际打包的交易哈希
+     */
+    @Transactional
+    public void updateTxStatusByHash(String txHash, String txStatus, Long blockNumber, String minedTxHash) {
+        LambdaUpdateWrapper<DailyCheckIn> update = new LambdaUpdateWrapper<>();
+        update.eq(DailyCheckIn::getTxHash, txHash)
+              .eq(DailyCheckIn::getTxStatus, Constants.TX_STATUS_SENT)
+              .set(DailyCheckIn::getTxStatus, txStatus)
+              .set(DailyCheckIn::getTxBlockNumber, blockNumber)
+              .set(DailyCheckIn::getTxUpdatedAt, LocalDateTime.now());
+        if (!minedTxHash.equals(txHash)) {
+            update.set(DailyCheckIn::getTxHash, minedTxHash);
+            updateOutboxTxHash(txHash, minedTxHash);
+        }
+        dailyCheckInMapper.update(null, update);
+    }
+
+    /**
+     * 同 nonce 替换交易后更新哈希 (打卡记录与发件箱)，原哈希计入历史，nonce 不变
+     */
+    @Transactional
+    public void replaceTxHash(String oldTxHash, BlockchainService.SentTx replacement) {
+        LambdaUpdateWrapper<DailyCheckIn> update = new LambdaUpdateWrapper<>();
+        update.eq(DailyCheckIn::getTxHash, oldTxHash)
+              .eq(DailyCheckIn::getTxStatus, Constants.TX_STATUS_SENT)
+              .set(DailyCheckIn::getTxHash, replacement.hash)
+              .set(DailyCheckIn::getTxNonce, replacement.nonce.longValueExact())
+              .set(DailyCheckIn::getTxGasPrice, replacement.gasPrice.longValueExact())
+              .setSql("tx_replaced_hashes = CONCAT_WS(',', tx_replaced_hashes, {0})", oldTxHash)
+              .setSql("tx_resubmits = tx_resubmits + 1")
+              .set(DailyCheckIn::getTxUpdatedAt, LocalDateTime.now());
+        dailyCheckInMapper.update(null, update);
+
+        LambdaUpdateWrapper<ChainOutbox> outbox = new LambdaUpdateWrapper<>();
+        outbox.eq(ChainOutbox::getTxHash, oldTxHash)
+              .set(ChainOutbox::getTxHash, replacement.hash)
+              .set(ChainOutbox::getTxGasPrice, replacement.gasPrice.longValueExact())
+              .set(ChainOutbox::getTxRaw, replacement.rawTransaction)
+              .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+        chainOutboxMapper.update(null, outbox);
+    }
+
+    /**
+     * 交易的 nonce 已被其他交易占用且从未上链: 清除交易信息，打卡记录与发件箱放回 PENDING 重新发送
+     * @return 放回的打卡记录数
+     */
+    @Transactional
+    public int requeueDeadTx(String txHash) {
+        LambdaUpdateWrapper<DailyCheckIn> update = new LambdaUpdateWrapper<>();
+        update.eq(DailyCheckIn::getTxHash, txHash)
+              .eq(DailyCheckIn::getTxStatus, Constants.TX_STATUS_SENT)
+              .set(DailyCheckIn::getTxStatus, Constants.TX_STATUS_PENDING)
+              .set(DailyCheckIn::getTxHash, null)
+              .set(DailyCheckIn::getTxNonce, null)
+              .set(DailyCheckIn::getTxGasPrice, null)
+              .set(DailyCheckIn::getTxReplacedHashes, null)
+              .set(DailyCheckIn::getTxResubmits, 0)
+              .set(DailyCheckIn::getTxUpdatedAt, LocalDateTime.now());
+        int requeued = dailyCheckInMapper.update(null, update);
+
+        LocalDateTime now = LocalDateTime.now();
+        LambdaUpdateWrapper<ChainOutbox> outbox = new LambdaUpdateWrapper<>();
+        outbox.eq(ChainOutbox::getTxHash, txHash)
+              .eq(ChainOutbox::getStatus, Constants.TX_STATUS_SENT)
+              .set(ChainOutbox::getStatus, Constants.TX_STATUS_PENDING)
+              .set(ChainOutbox::getTxHash, null)
+              .set(ChainOutbox::getTxNonce, null)
+              .set(ChainOutbox::getTxGasPrice, null)
+              .set(ChainOutbox::getTxRaw, null)
+              .set(ChainOutbox::getNextAttemptAt, now)
+              .set(ChainOutbox::getUpdatedAt, now);
+        chainOutboxMapper.update(null, outbox);
+        return requeued;
+    }
+
+    private void updateOutboxTxHash(String oldTxHash, String newTxHash) {
+        LambdaUpdateWrapper<ChainOutbox> update = new LambdaUpdateWrapper<>();
+        update.eq(ChainOutbox::getTxHash, oldTxHash)
+              .set(ChainOutbox::getTxHash, newTxHash)
+              .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+        chainOutboxMapper.update(null, update);
+    }
+
+    private LambdaQueryWrapper<DailyCheckIn> todayQuery(String walletAddress, Long challengeId) {
+        LambdaQueryWrapper<DailyCheckIn> query = new LambdaQueryWrapper<>();
+        query.eq(DailyCheckIn::getWalletAddress, walletAddress)
+             .eq(DailyCheckIn::getChallengeId, challengeId)
+             .eq(DailyCheckIn::getCheckInDate, today());
+        return query;
+    }
+}
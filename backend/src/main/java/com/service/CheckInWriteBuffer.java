@@ -0,0 +1,97 @@
+package com.service;
+
+import com.domain.DailyCheckIn;
+import com.utils.MicroBatcher;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 打卡记录合并写入 (write-behind)
+ * 打卡请求先进入缓冲，满 max-batch 条或等待 window-ms 后，一批记录以多行 INSERT ... ON DUPLICATE KEY
+ * 与发件箱一起在同一事务中写入 (CheckInService.recordCheckIns)；批量写入失败时逐条重试。
+ *
+ * 崩溃语义: 只有所在批次的事务提交后，submit 返回的 future 才完成，即“已提交上链”只在记录落库后返回给用户；
+ * 上链交易由 ChainOutboxWorker 读取已提交的发件箱发送，不会先于打卡记录上链。
+ * 进程在提交前崩溃时，缓冲中的打卡没有被确认，前端收到超时/错误，重新检测即可 (验证与写入均幂等)。
+ * 关闭时先写完缓冲中的记录。
+ */
+@Service
+public class CheckInWriteBuffer {
+
+    @Value("${checkin.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${checkin.write-behind.window-ms:20}")
+    private long windowMs;
+
+    @Value("${checkin.write-behind.max-batch:200}")
+    private int maxBatch;
+
+    @Value("${checkin.write-behind.workers:2}")
+    private int workers;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MicroBatcher<DailyCheckIn, Optional<DailyCheckIn>> batcher;
+    private DistributionSummary batchSize;
+
+    @PostConstruct
+    public void init() {
+        batchSize = DistributionSummary.builder("checkin.write.batch.size").register(meterRegistry);
+        if (enabled) {
+            batcher = new MicroBatcher<>("checkin-write", windowMs, maxBatch, workers,
+                    this::writeBatch, this::writeOne);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    /**
+     * 写入今日打卡记录与发件箱
+     * @return 事务提交后完成: 新写入的打卡记录；今日已打卡时为 null
+     */
+    public CompletableFuture<DailyCheckIn> submit(String walletAddress, Long challengeId, String proofContent) {
+        DailyCheckIn checkIn = checkInService.newCheckIn(walletAddress, challengeId, proofContent);
+        if (batcher == null) {
+            try {
+                return CompletableFuture.completedFuture(writeOne(checkIn).orElse(null));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return batcher.submit(checkIn).thenApply(written -> written.orElse(null));
+    }
+
+    private List<Optional<DailyCheckIn>> writeBatch(List<DailyCheckIn> checkIns) {
+        batchSize.record(checkIns.size());
+        List<Optional<DailyCheckIn>> results = new ArrayList<>(checkIns.size());
+        for (DailyCheckIn written : checkInService.recordCheckIns(checkIns)) {
+            results.add(Optional.ofNullable(written));
+        }
+        return results;
+    }
+
+    private Optional<DailyCheckIn> writeOne(DailyCheckIn checkIn) {
+        batchSize.record(1);
+        return Optional.ofNullable(checkInService.recordCheckIn(checkIn));
+    }
+}
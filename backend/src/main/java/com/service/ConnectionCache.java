@@ -0,0 +1,81 @@
+package com.service;
+
+import com.domain.entity.GitHubConnection;
+import com.domain.entity.StravaConnection;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * GitHub / Strava 连接的本地读缓存 (按钱包地址，小写)
+ * 容量上限 + 写入后 TTL，未绑定 (查询为空) 也会缓存；连接写入处 (授权回调、token 刷新、Webhook 状态变更) 显式失效。
+ * 实体含 access token，只保存在进程内存中，没有磁盘层。
+ * 指标: cache.gets {cache=connection.github|connection.strava, result=hit|miss}、cache.evictions、cache.size
+ */
+@Service
+public class ConnectionCache {
+
+    @Value("${cache.connection.max-size:10000}")
+    private long maxSize;
+
+    @Value("${cache.connection.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Optional<GitHubConnection>> github;
+    private Cache<String, Optional<StravaConnection>> strava;
+
+    @PostConstruct
+    public void init() {
+        github = build("connection.github");
+        strava = build("connection.strava");
+    }
+
+    /**
+     * 读取 GitHub 连接，未命中时调用 loader 查询数据库
+     */
+    public GitHubConnection github(String walletAddress, Supplier<GitHubConnection> loader) {
+        return github.get(key(walletAddress), k -> Optional.ofNullable(loader.get())).orElse(null);
+    }
+
+    public StravaConnection strava(String walletAddress, Supplier<StravaConnection> loader) {
+        return strava.get(key(walletAddress), k -> Optional.ofNullable(loader.get())).orElse(null);
+    }
+
+    public void invalidateGitHub(String walletAddress) {
+        if (walletAddress != null) {
+            github.invalidate(key(walletAddress));
+        }
+    }
+
+    public void invalidateStrava(String walletAddress) {
+        if (walletAddress != null) {
+            strava.invalidate(key(walletAddress));
+        }
+    }
+
+    private <T> Cache<String, Optional<T>> build(String name) {
+        Cache<String, Optional<T>> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        return cache;
+    }
+
+    private static String key(String walletAddress) {
+        return walletAddress.toLowerCase();
+    }
+}
@@ -0,0 +1,72 @@
+package com.service;
+
+import com.domain.DailyCheckIn;
+import com.domain.entity.GitHubConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 仪表盘聚合状态
+ * 一次返回账号绑定状态与各挑战今日打卡状态，替代前端逐个挑战轮询；
+ * 绑定状态走 ConnectionCache，打卡记录用一次 IN 查询
+ */
+@Service
+public class DashboardStatusService {
+
+    @Autowired
+    private GitHubOAuthService gitHubOAuthService;
+
+    @Autowired
+    private StravaService stravaService;
+
+    @Autowired
+    private ChallengeIndexService challengeIndexService;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    /**
+     * 查询仪表盘状态
+     * 结果字段顺序固定 (用于计算 ETag):
+     * day, github {connected, username, avatarUrl}, strava {connected},
+     * challenges [id...], checkIns {id: {txStatus, txHash}} (只包含今日已打卡的挑战)
+     * @param challengeIds 为空时取用户进行中的全部挑战
+     */
+    public Map<String, Object> getStatus(String walletAddress, List<Long> challengeIds) {
+        if (challengeIds == null || challengeIds.isEmpty()) {
+            challengeIds = challengeIndexService.listActiveIds(walletAddress);
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("day", checkInService.today().toString());
+
+        GitHubConnection gitHubConnection = gitHubOAuthService.getConnectionByWallet(walletAddress);
+        Map<String, Object> githubStatus = new LinkedHashMap<>();
+        githubStatus.put("connected", gitHubConnection != null);
+        if (gitHubConnection != null) {
+            githubStatus.put("username", gitHubConnection.getGithubUsername());
+            githubStatus.put("avatarUrl", gitHubConnection.getGithubAvatarUrl());
+        }
+        status.put("github", githubStatus);
+
+        Map<String, Object> stravaStatus = new LinkedHashMap<>();
+        stravaStatus.put("connected", stravaService.getConnection(walletAddress) != null);
+        status.put("strava", stravaStatus);
+
+        status.put("challenges", challengeIds);
+        Map<Long, Object> checkIns = new TreeMap<>();
+        for (DailyCheckIn checkIn : checkInService.listTodayCheckIns(walletAddress, challengeIds)) {
+            Map<String, Object> tx = new LinkedHashMap<>();
+            tx.put("txStatus", checkIn.getTxStatus());
+            tx.put("txHash", checkIn.getTxHash());
+            checkIns.put(checkIn.getChallengeId(), tx);
+        }
+        status.put("checkIns", checkIns);
+        return status;
+    }
+}
@@ -0,0 +1,193 @@
+package com.service;
+
+import com.common.Constants;
+import com.domain.entity.ChainOutbox;
+import com.mapper.ChainOutboxMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打卡上链批处理
+ * 在时间窗口内收集待上链的发件箱记录，达到窗口时长或批大小后合并为一笔
+ * recordDayCompleteBatch 交易发送。签名后先把交易写入本批次的发件箱记录再广播，
+ * slash 记录不合并，立即单独发送。
+ * 每个调用方拿到各自的 Future，解析结果为所在批次的交易 (哈希、nonce、gas price)；
+ * Future 异常结束时交易一定没有被节点接受，发件箱记录可以安全地放回重试。
+ */
+@Service
+public class DayCompleteBatcher {
+
+    @Value("${blockchain.batch.window-ms:2000}")
+    private long windowMs;
+
+    @Value("${blockchain.batch.max-size:50}")
+    private int maxSize;
+
+    @Value("${blockchain.batch.flush-threads:4}")
+    private int flushThreads;
+
+    @Autowired
+    private BlockchainService blockchainService;
+
+    @Autowired
+    private ChainOutboxMapper chainOutboxMapper;
+
+    private final Object lock = new Object();
+    private Map<Long, PendingRecord> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "day-complete-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+        // 只有 nonce 分配是原子的，签名与广播不持锁，多个批次并行发送
+        this.flushExecutor = Executors.newFixedThreadPool(flushThreads, r -> {
+            Thread t = new Thread(r, "day-complete-flush");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushNow();
+        scheduler.shutdown();
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 提交一条已抢占的发件箱记录，等待与同窗口内的其他记录合并上链
+     * 同一记录重复提交会共享同一个 Future
+     * @return 解析为批次交易的 Future
+     */
+    public CompletableFuture<BlockchainService.SentTx> submit(ChainOutbox outbox) {
+        if (Constants.OUTBOX_KIND_SLASH.equals(outbox.getKind())) {
+            PendingRecord record = new PendingRecord(outbox);
+            flushExecutor.execute(() -> send(List.of(record)));
+            return record.future;
+        }
+        List<PendingRecord> full = null;
+        CompletableFuture<BlockchainService.SentTx> future;
+        synchronized (lock) {
+            PendingRecord record = pending.get(outbox.getId());
+            if (record == null) {
+                record = new PendingRecord(outbox);
+                pending.put(outbox.getId(), record);
+            }
+            future = record.future;
+
+            if (pending.size() >= maxSize) {
+                full = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flushNow, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            List<PendingRecord> batch = full;
+            flushExecutor.execute(() -> send(batch));
+        }
+        return future;
+    }
+
+    /**
+     * 立即发送当前窗口内的所有记录
+     */
+    public void flushNow() {
+        List<PendingRecord> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            flushExecutor.execute(() -> send(batch));
+        }
+    }
+
+    private List<PendingRecord> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<PendingRecord> batch = new ArrayList<>(pending.values());
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void send(List<PendingRecord> batch) {
+        try {
+            List<String> users = new ArrayList<>(batch.size());
+            List<BigInteger> ids = new ArrayList<>(batch.size());
+            List<ChainOutbox> claims = new ArrayList<>(batch.size());
+            for (PendingRecord record : batch) {
+                users.add(record.outbox.getWalletAddress());
+                ids.add(BigInteger.valueOf(record.outbox.getChallengeId()));
+                claims.add(record.outbox);
+            }
+            BlockchainService.SentTx tx = Constants.OUTBOX_KIND_SLASH.equals(batch.get(0).outbox.getKind())
+                    ? blockchainService.prepareSlash(users.get(0), ids.get(0))
+                    : blockchainService.prepareDayComplete(users, ids);
+            attach(claims, tx);
+            blockchainService.broadcast(tx);
+            for (PendingRecord record : batch) {
+                record.future.complete(tx);
+            }
+        } catch (Exception e) {
+            for (PendingRecord record : batch) {
+                record.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 广播前把签名交易写入发件箱，有记录已被重新抢占时撤销并放弃整批
+     */
+    private void attach(List<ChainOutbox> claims, BlockchainService.SentTx tx) {
+        int attached;
+        try {
+            attached = chainOutboxMapper.attachTx(claims, tx.hash, tx.nonce.longValueExact(),
+                    tx.gasPrice.longValueExact(), tx.rawTransaction);
+        } catch (RuntimeException e) {
+            blockchainService.abandon(tx);
+            throw e;
+        }
+        if (attached != claims.size()) {
+            chainOutboxMapper.detachTx(tx.hash);
+            blockchainService.abandon(tx);
+            throw new IllegalStateException("发件箱记录已被重新抢占，放弃本批次: " + attached + "/" + claims.size());
+        }
+    }
+
+    private static class PendingRecord {
+        final ChainOutbox outbox;
+        final CompletableFuture<BlockchainService.SentTx> future = new CompletableFuture<>();
+
+        PendingRecord(ChainOutbox outbox) {
+            this.outbox = outbox;
+        }
+    }
+}
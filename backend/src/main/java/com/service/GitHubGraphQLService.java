@@ -0,0 +1,132 @@
+package com.service;
+
+import com.common.Constants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 基于 GraphQL contributionsCollection 的 GitHub 提交检查
+ * 一次查询即可得到用户今日的提交贡献数，不需要翻页；
+ * 多个用户以别名 (u0, u1, ...) 合并在同一个请求中，每批最多 batch-size 个用户。
+ * GraphQL 接口必须携带 token。
+ */
+@Service
+public class GitHubGraphQLService {
+
+    private static final String GRAPHQL_URL = "https://api.github.com/graphql";
+    /** GitHub 用户名只允许字母、数字和连字符 */
+    private static final Pattern LOGIN_PATTERN = Pattern.compile("^[A-Za-z0-9](?:[A-Za-z0-9-]{0,38})$");
+
+    @Value("${github.graphql.batch-size:50}")
+    private int batchSize;
+
+    @Autowired
+    private GitHubRequestScheduler gitHubRequestScheduler;
+
+    @Autowired
+    @Qualifier("githubRestTemplate")
+    private RestTemplate restTemplate;
+
+    /**
+     * 检查单个用户今日是否有提交贡献
+     */
+    public GitHubService.PushVerdict checkCommitsToday(String username, String token,
+                                                       GitHubRequestScheduler.Priority priority) {
+        return checkCommitsToday(List.of(username), token, priority)
+                .getOrDefault(username, GitHubService.PushVerdict.DEFERRED);
+    }
+
+    /**
+     * 批量检查，N 个用户约 N / batch-size 次请求
+     * @param usernames GitHub 用户名
+     * @param token 发起查询的 token
+     * @return 用户名 -> 结果；查询失败或用户不存在的记为 DEFERRED
+     */
+    public Map<String, GitHubService.PushVerdict> checkCommitsToday(List<String> usernames, String token,
+                                                                    GitHubRequestScheduler.Priority priority) {
+        ZoneId zone = ZoneId.of(Constants.ZONE_ID);
+        LocalDate today = LocalDate.now(zone);
+        String from = today.atStartOfDay(zone).toOffsetDateTime().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        String to = OffsetDateTime.now(zone).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+
+        Map<String, GitHubService.PushVerdict> verdicts = new LinkedHashMap<>();
+        List<String> valid = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            verdicts.put(username, GitHubService.PushVerdict.DEFERRED);
+            if (username != null && LOGIN_PATTERN.matcher(username).matches()) {
+                valid.add(username);
+            }
+        }
+
+        for (int start = 0; start < valid.size(); start += batchSize) {
+            List<String> batch = valid.subList(start, Math.min(valid.size(), start + batchSize));
+            try {
+                JsonNode data = query(batch, from, to, token, priority);
+                for (int i = 0; i < batch.size(); i++) {
+                    JsonNode collection = data.path("u" + i).path("contributionsCollection");
+                    if (collection.isMissingNode() || collection.isNull()) {
+                        continue;
+                    }
+                    // restrictedContributionsCount 含私有仓库的其他贡献 (issue、PR 等)，不能当作提交
+                    int commits = collection.path("totalCommitContributions").asInt();
+                    verdicts.put(batch.get(i), GitHubService.PushVerdict.of(commits > 0));
+                }
+            } catch (GitHubRequestScheduler.DeferredException e) {
+                System.err.println("GitHub GraphQL 额度不足，验证延后: " + e.getMessage());
+            } catch (Exception e) {
+                System.err.println("GitHub GraphQL 查询失败: " + e.getMessage());
+            }
+        }
+        return verdicts;
+    }
+
+    private JsonNode query(List<String> logins, String from, String to, String token,
+                           GitHubRequestScheduler.Priority priority) throws GitHubRequestScheduler.DeferredException {
+        // 用户名通过变量传入，不拼接到查询文本中
+        StringBuilder declarations = new StringBuilder("$from: DateTime!, $to: DateTime!");
+        StringBuilder selections = new StringBuilder();
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("from", from);
+        variables.put("to", to);
+        for (int i = 0; i < logins.size(); i++) {
+            declarations.append(", $l").append(i).append(": String!");
+            selections.append("u").append(i).append(": user(login: $l").append(i).append(") ")
+                    .append("{ contributionsCollection(from: $from, to: $to) ")
+                    .append("{ totalCommitContributions } } ");
+            variables.put("l" + i, logins.get(i));
+        }
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("query", "query(" + declarations + ") { " + selections + "}");
+        body.put("variables", variables);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        ResponseEntity<JsonNode> response = gitHubRequestScheduler.execute(token,
+                GitHubRequestScheduler.RESOURCE_GRAPHQL, priority,
+                () -> restTemplate.postForEntity(GRAPHQL_URL, new HttpEntity<>(body, headers), JsonNode.class));
+        return response.getBody() == null ? MissingNode.getInstance()
+                : response.getBody().path("data");
+    }
+}
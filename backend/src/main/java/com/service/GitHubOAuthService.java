@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.domain.entity.GitHubConnection;
 import com.mapper.GitHubConnectionMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -33,7 +34,12 @@ public class GitHubOAuthService {
     @Autowired
     private GitHubConnectionMapper gitHubConnectionMapper;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private ConnectionCache connectionCache;
+
+    @Autowired
+    @Qualifier("githubRestTemplate")
+    private RestTemplate restTemplate;
 
     /**
      * 生成 GitHub 授权 URL
@@ -129,16 +135,19 @@ public class GitHubOAuthService {
             connection.setUpdatedAt(LocalDateTime.now());
             gitHubConnectionMapper.insert(connection);
         }
+        connectionCache.invalidateGitHub(walletAddress);
     }
 
     /**
      * 根据钱包地址获取 GitHub 连接
      * @param walletAddress 钱包地址
-     * @return GitHub 连接信息
+     * @return GitHub 连接信息 (经由 ConnectionCache，返回的实例不要修改)
      */
     public GitHubConnection getConnectionByWallet(String walletAddress) {
-        LambdaQueryWrapper<GitHubConnection> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(GitHubConnection::getWalletAddress, walletAddress);
-        return gitHubConnectionMapper.selectOne(wrapper);
+        return connectionCache.github(walletAddress, () -> {
+            LambdaQueryWrapper<GitHubConnection> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(GitHubConnection::getWalletAddress, walletAddress);
+            return gitHubConnectionMapper.selectOne(wrapper);
+        });
     }
 }
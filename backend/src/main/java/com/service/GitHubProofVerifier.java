@@ -0,0 +1,49 @@
+package com.service;
+
+import com.domain.entity.GitHubConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * GitHub 提交验证: 已安装 Webhook 的用户直接查本地台账，否则回退到事件 API
+ */
+@Component
+public class GitHubProofVerifier implements ProofVerifier {
+
+    @Value("${checkin.pipeline.github.timeout-ms:15000}")
+    private long timeoutMs;
+
+    @Autowired
+    private GitHubOAuthService gitHubOAuthService;
+
+    @Autowired
+    private GitHubPushLedger gitHubPushLedger;
+
+    @Override
+    public String type() {
+        return "github";
+    }
+
+    @Override
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+
+    @Override
+    public Proof verify(String walletAddress, Long challengeId, String content) {
+        GitHubConnection connection = gitHubOAuthService.getConnectionByWallet(walletAddress);
+        if (connection == null) {
+            return Proof.invalid("请先绑定 GitHub 账号");
+        }
+        GitHubService.PushVerdict verdict = gitHubPushLedger.checkPushedToday(connection);
+        if (verdict == GitHubService.PushVerdict.DEFERRED) {
+            // GitHub 额度不足，不能判定为未打卡
+            return Proof.deferred("GitHub 验证繁忙，请稍后再试 ⏳");
+        }
+        if (verdict == GitHubService.PushVerdict.PUSHED) {
+            return Proof.passed("今日已打卡 ✅", null);
+        }
+        return Proof.notMet("今日未打卡 ❌");
+    }
+}
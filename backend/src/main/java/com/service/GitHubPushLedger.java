@@ -0,0 +1,93 @@
+package com.service;
+
+import com.common.Constants;
+import com.domain.entity.GitHubConnection;
+import com.mapper.GitHubPushDayMapper;
+import com.utils.DailyBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * GitHub 每日推送台账
+ * 内存位图 (按 github_connection 主键置位) 负责 O(1) 查询，github_push_day 负责持久化；
+ * 某天的位图在首次访问时从数据库整体加载一次，重启后不会丢失 Webhook 已记录的推送。
+ */
+@Service
+public class GitHubPushLedger {
+
+    private final DailyBitmap bitmap = new DailyBitmap(2);
+    private final Object loadLock = new Object();
+
+    /**
+     * Webhook 活跃有效期: 超过该时长未收到投递则回退到事件 API
+     */
+    @Value("${github.webhook.active-hours:24}")
+    private long webhookActiveHours;
+
+    @Autowired
+    private GitHubPushDayMapper gitHubPushDayMapper;
+
+    @Autowired
+    private GitHubService gitHubService;
+
+    public LocalDate today() {
+        return LocalDate.now(ZoneId.of(Constants.ZONE_ID));
+    }
+
+    /**
+     * 记录推送
+     * 先落库再置位，落库失败时位图不会记下未持久化的推送
+     */
+    public void markPushed(Long connectionId, LocalDate day) {
+        ensureLoaded(day);
+        if (!bitmap.get(day, connectionId)) {
+            gitHubPushDayMapper.insertIgnore(connectionId, day);
+            bitmap.set(day, connectionId);
+        }
+    }
+
+    public boolean hasPushed(Long connectionId, LocalDate day) {
+        ensureLoaded(day);
+        return bitmap.get(day, connectionId);
+    }
+
+    /**
+     * 今日是否有推送
+     * 近期收到过 Webhook 投递的用户只查本地台账；其余回退到事件 API 轮询，查到推送后同样记入台账
+     */
+    public GitHubService.PushVerdict checkPushedToday(GitHubConnection connection) {
+        LocalDate today = today();
+        if (hasPushed(connection.getId(), today)) {
+            return GitHubService.PushVerdict.PUSHED;
+        }
+        if (isWebhookActive(connection.getWebhookActiveAt())) {
+            return GitHubService.PushVerdict.NOT_PUSHED;
+        }
+        GitHubService.PushVerdict verdict = gitHubService.checkCommitsToday(connection.getGithubUsername(),
+                connection.getAccessToken(), GitHubRequestScheduler.Priority.USER);
+        if (verdict == GitHubService.PushVerdict.PUSHED) {
+            markPushed(connection.getId(), today);
+        }
+        return verdict;
+    }
+
+    private boolean isWebhookActive(LocalDateTime activeAt) {
+        return activeAt != null && activeAt.isAfter(LocalDateTime.now().minusHours(webhookActiveHours));
+    }
+
+    private void ensureLoaded(LocalDate day) {
+        if (bitmap.isLoaded(day)) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (!bitmap.isLoaded(day)) {
+                bitmap.load(day, gitHubPushDayMapper.selectConnectionIds(day));
+            }
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * GitHub 请求调度器
+ * 按 (token, 资源类型) 跟踪 X-RateLimit-Remaining/Reset，未登录请求共用 anonymous 额度；
+ * 额度表以 token 的 SHA-256 为键 (内存中不保留明文 token)，按数量上限与访问过期淘汰。
+ * 请求进入优先级队列，用户主动发起的检查先于后台巡检；后台请求只能用到额度的 (1 - reserve) 部分，
+ * 剩余部分留给用户请求。额度耗尽时请求延迟到重置时间后再发，而不是直接失败；
+ * 等待超过调用方可接受的时长时抛出 {@link DeferredException}，由调用方报告“稍后验证”。
+ */
+@Slf4j
+@Service
+public class GitHubRequestScheduler {
+
+    public static final String RESOURCE_CORE = "core";
+    public static final String RESOURCE_GRAPHQL = "graphql";
+
+    private static final String ANONYMOUS = "anonymous";
+
+    @Value("${github.scheduler.workers:8}")
+    private int workers;
+
+    @Value("${github.scheduler.background-reserve:0.2}")
+    private double backgroundReserve;
+
+    @Value("${github.scheduler.user-max-wait-ms:5000}")
+    private long userMaxWaitMs;
+
+    @Value("${github.scheduler.background-max-wait-ms:3600000}")
+    private long backgroundMaxWaitMs;
+
+    @Value("${github.scheduler.budgets-max-size:10000}")
+    private long budgetsMaxSize;
+
+    /**
+     * 额度窗口为 1 小时，闲置超过该时长的额度记录可以丢弃
+     */
+    @Value("${github.scheduler.budget-idle-minutes:120}")
+    private long budgetIdleMinutes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    private Cache<String, Budget> budgets;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ExecutorService workerPool;
+    private ScheduledExecutorService delayer;
+
+    @PostConstruct
+    public void init() {
+        this.budgets = Caffeine.newBuilder()
+                .maximumSize(budgetsMaxSize)
+                .expireAfterAccess(Duration.ofMinutes(budgetIdleMinutes))
+                .build();
+        this.workerPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "github-request");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::workLoop);
+        }
+        this.delayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "github-request-delay");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("github.ratelimit.queue.size", queue, PriorityBlockingQueue::size)
+                .register(meterRegistry);
+        for (String resource : new String[]{RESOURCE_CORE, RESOURCE_GRAPHQL}) {
+            Gauge.builder("github.ratelimit.utilization", this, s -> s.maxUtilization(resource, false))
+                    .tag("bucket", "tokens").tag("resource", resource)
+                    .description("已用额度占比，取所有 token 中的最大值")
+                    .register(meterRegistry);
+            Gauge.builder("github.ratelimit.tokens.exhausted", this, s -> s.exhaustedTokens(resource))
+                    .tag("resource", resource)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("github.ratelimit.utilization", this, s -> s.maxUtilization(RESOURCE_CORE, true))
+                .tag("bucket", ANONYMOUS).tag("resource", RESOURCE_CORE)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+        delayer.shutdownNow();
+    }
+
+    /**
+     * 提交请求并等待结果
+     * @param token 用户 token，为空时使用匿名额度
+     * @param resource 额度类型 (core / graphql)
+     * @param priority 优先级
+     * @param call 实际的 HTTP 调用，返回的响应头用于更新额度
+     * @throws DeferredException 额度不足且等待超过该优先级允许的时长
+     */
+    public <T> ResponseEntity<T> execute(String token, String resource, Priority priority,
+                                         Supplier<ResponseEntity<T>> call) throws DeferredException {
+        long maxWaitMs = priority == Priority.USER ? userMaxWaitMs : backgroundMaxWaitMs;
+        Task<T> task = new Task<>(budgetKey(token, resource), priority, sequence.incrementAndGet(),
+                System.currentTimeMillis() + maxWaitMs, call);
+        queue.add(task);
+        try {
+            return task.future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.future.cancel(false);
+            deferred(priority);
+            throw new DeferredException("GitHub request queued longer than " + maxWaitMs + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future.cancel(false);
+            throw new DeferredException("Interrupted while waiting for GitHub request");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DeferredException) {
+                throw (DeferredException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Task<?> task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task.future.isDone()) {
+                continue;
+            }
+            try {
+                run(task);
+            } catch (Exception e) {
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private <T> void run(Task<T> task) {
+        Budget budget = budgets.get(task.key, k -> new Budget(k.startsWith(ANONYMOUS + ":")));
+        long waitMs = budget.tryAcquire(task.priority, backgroundReserve);
+        if (waitMs > 0) {
+            delay(task, waitMs);
+            return;
+        }
+
+        Timer.builder("github.ratelimit.queue.wait")
+                .tag("priority", task.priority.name())
+                .register(meterRegistry)
+                .record(System.currentTimeMillis() - task.enqueuedAt, TimeUnit.MILLISECONDS);
+        try {
+            ResponseEntity<T> response = task.call.get();
+            budget.update(response.getHeaders());
+            task.future.complete(response);
+        } catch (HttpClientErrorException e) {
+            budget.update(e.getResponseHeaders());
+            if (isRateLimited(e)) {
+                // 主额度或二级限流，按 Retry-After / Reset 延后重发
+                long retryMs = budget.markExhausted(e.getResponseHeaders());
+                log.warn("GitHub 限流 ({}), {}ms 后重试", e.getStatusCode(), retryMs);
+                delay(task, retryMs);
+            } else {
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void delay(Task<?> task, long waitMs) {
+        if (System.currentTimeMillis() + waitMs > task.deadline) {
+            deferred(task.priority);
+            task.future.completeExceptionally(
+                    new DeferredException("GitHub rate limit exhausted, resets in " + waitMs + "ms"));
+            return;
+        }
+        delayer.schedule(() -> {
+            if (!task.future.isDone()) {
+                queue.add(task);
+            }
+        }, waitMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void deferred(Priority priority) {
+        Counter.builder("github.ratelimit.deferred")
+                .tag("priority", priority.name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static boolean isRateLimited(HttpClientErrorException e) {
+        if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+            return true;
+        }
+        HttpHeaders headers = e.getResponseHeaders();
+        return e.getStatusCode() == HttpStatus.FORBIDDEN && headers != null
+                && ("0".equals(headers.getFirst("X-RateLimit-Remaining")) || headers.getFirst("Retry-After") != null);
+    }
+
+    static String budgetKey(String token, String resource) {
+        return (token == null || token.isEmpty() ? ANONYMOUS : "token:" + sha256(token)) + ":" + resource;
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double maxUtilization(String resource, boolean anonymous) {
+        double max = 0;
+        for (Map.Entry<String, Budget> entry : budgets.asMap().entrySet()) {
+            if (entry.getValue().anonymous == anonymous && entry.getKey().endsWith(":" + resource)) {
+                max = Math.max(max, entry.getValue().utilization());
+            }
+        }
+        return max;
+    }
+
+    private double exhaustedTokens(String resource) {
+        long now = System.currentTimeMillis();
+        return budgets.asMap().entrySet().stream()
+                .filter(e -> !e.getValue().anonymous && e.getKey().endsWith(":" + resource))
+                .filter(e -> e.getValue().isExhausted(now))
+                .count();
+    }
+
+    /**
+     * 请求优先级，数值小的先执行
+     */
+    public enum Priority {
+        /** 用户主动发起的打卡检查 */
+        USER,
+        /** 后台巡检 */
+        BACKGROUND
+    }
+
+    /**
+     * 额度不足，验证被延后
+     */
+    public static class DeferredException extends Exception {
+        public DeferredException(String message) {
+            super(message);
+        }
+    }
+
+    private static class Task<T> implements Comparable<Task<?>> {
+        final String key;
+        final Priority priority;
+        final long seq;
+        final long deadline;
+        final long enqueuedAt = System.currentTimeMillis();
+        final Supplier<ResponseEntity<T>> call;
+        final CompletableFuture<ResponseEntity<T>> future = new CompletableFuture<>();
+
+        Task(String key, Priority priority, long seq, long deadline, Supplier<ResponseEntity<T>> call) {
+            this.key = key;
+            this.priority = priority;
+            this.seq = seq;
+            this.deadline = deadline;
+            this.call = call;
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * 单个 (token, 资源) 的额度；发出请求前先本地扣减，响应头到达后以服务端为准
+     */
+    private static class Budget {
+        final boolean anonymous;
+        int limit = -1;
+        int remaining = -1;
+        long resetAtMs;
+
+        Budget(boolean anonymous) {
+            this.anonymous = anonymous;
+        }
+
+        /**
+         * @return 0 表示可以立即发送 (已扣减额度)，否则为需要等待的毫秒数
+         */
+        synchronized long tryAcquire(Priority priority, double reserve) {
+            long now = System.currentTimeMillis();
+            if (remaining >= 0 && now >= resetAtMs) {
+                // 已过重置时间，下一次响应会带回新额度
+                remaining = -1;
+            }
+            if (remaining < 0) {
+                return 0;
+            }
+            int floor = priority == Priority.BACKGROUND && limit > 0 ? (int) Math.ceil(limit * reserve) : 0;
+            if (remaining > floor) {
+                remaining--;
+                return 0;
+            }
+            return Math.max(1, resetAtMs - now);
+        }
+
+        synchronized void update(HttpHeaders headers) {
+            if (headers == null || headers.getFirst("X-RateLimit-Remaining") == null) {
+                return;
+            }
+            try {
+                remaining = Integer.parseInt(headers.getFirst("X-RateLimit-Remaining"));
+                if (headers.getFirst("X-RateLimit-Limit") != null) {
+                    limit = Integer.parseInt(headers.getFirst("X-RateLimit-Limit"));
+                }
+                if (headers.getFirst("X-RateLimit-Reset") != null) {
+                    resetAtMs = Long.parseLong(headers.getFirst("X-RateLimit-Reset")) * 1000;
+                }
+            } catch (NumberFormatException ignored) {
+                // 保留原有估计
+            }
+        }
+
+        /**
+         * 被限流后标记额度为空
+         * @return 建议的重试等待毫秒数
+         */
+        synchronized long markExhausted(HttpHeaders headers) {
+            long now = System.currentTimeMillis();
+            String retryAfter = headers == null ? null : headers.getFirst("Retry-After");
+            if (retryAfter != null) {
+                try {
+                    resetAtMs = Math.max(resetAtMs, now + Long.parseLong(retryAfter) * 1000);
+                } catch (NumberFormatException ignored) {
+                    // 忽略非秒数格式
+                }
+            }
+            if (resetAtMs <= now) {
+                resetAtMs = now + 60_000;
+            }
+            remaining = 0;
+            return resetAtMs - now;
+        }
+
+        synchronized double utilization() {
+            if (limit <= 0 || remaining < 0) {
+                return 0;
+            }
+            return 1.0 - (double) remaining / limit;
+        }
+
+        synchronized boolean isExhausted(long now) {
+            return remaining == 0 && now < resetAtMs;
+        }
+    }
+}
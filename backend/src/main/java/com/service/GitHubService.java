@@ -1,15 +1,25 @@
 package com.service;
 
-import org.kohsuke.github.GHEvent;
-import org.kohsuke.github.GHEventInfo;
-import org.kohsuke.github.GitHub;
-import org.kohsuke.github.GitHubBuilder;
-import org.kohsuke.github.PagedIterable;
+import com.common.Constants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.util.Date;
 
 /**
  * GitHub 服务
@@ -18,46 +28,193 @@ import java.util.Date;
 @Service
 public class GitHubService {
 
+    private static final String EVENTS_URL = "https://api.github.com/users/{username}/events?per_page={perPage}&page={page}";
+    private static final int PER_PAGE = 100;
+    /** GitHub 事件接口最多返回 300 条 */
+    private static final int MAX_PAGES = 3;
+
+    @Autowired
+    @Qualifier("githubRestTemplate")
+    private RestTemplate restTemplate;
+
+    /**
+     * 提交检查方式: events (REST 事件翻页，默认) / graphql (contributionsCollection 单次查询)
+     */
+    @Value("${github.verify-strategy:events}")
+    private String verifyStrategy;
+
+    @Autowired
+    private GitHubRequestScheduler gitHubRequestScheduler;
+
+    @Autowired
+    private GitHubGraphQLService gitHubGraphQLService;
+
+    @Value("${github.events-state.max-size:50000}")
+    private long statesMaxSize;
+
+    /**
+     * 超过该时长未被查询的用户丢弃状态，下次查询重新全量翻页
+     */
+    @Value("${github.events-state.idle-hours:24}")
+    private long statesIdleHours;
+
+    /**
+     * 每个用户上次轮询的 ETag、已见过的最新事件ID 与当日判定结果 (按数量与闲置时长淘汰)
+     */
+    private Cache<String, EventsState> states;
+
+    @PostConstruct
+    public void init() {
+        this.states = Caffeine.newBuilder()
+                .maximumSize(statesMaxSize)
+                .expireAfterAccess(Duration.ofHours(statesIdleHours))
+                .build();
+    }
+
     /**
      * 检查用户今日是否有提交 (任意仓库)
+     * 第一页带 If-None-Match 条件请求，304 (不消耗限流额度) 时直接返回缓存结果；
+     * 有新事件时只翻到上次见过的最新事件为止
+     * 请求经由 GitHubRequestScheduler 发出，额度不足时返回 DEFERRED 而不是“未提交”
      * @param username GitHub 用户名
      * @param token GitHub Token
-     * @return true 如果今日有提交
+     * @param priority 用户主动检查或后台巡检
+     * @return 今日是否有提交，或验证被延后
      */
-    public boolean hasCommitsToday(String username, String token) {
+    public PushVerdict checkCommitsToday(String username, String token, GitHubRequestScheduler.Priority priority) {
+        // GraphQL 需要 token，未授权时仍走事件接口
+        if ("graphql".equals(verifyStrategy) && token != null && !token.isEmpty()) {
+            return gitHubGraphQLService.checkCommitsToday(username, token, priority);
+        }
         try {
-            GitHub github;
-            if (token != null && !token.isEmpty()) {
-                github = new GitHubBuilder().withOAuthToken(token).build();
-            } else {
-                github = new GitHubBuilder().build();
-            }
+            ZoneId zone = ZoneId.of(Constants.ZONE_ID);
+            LocalDate today = LocalDate.now(zone);
+            Instant todayStart = today.atStartOfDay(zone).toInstant();
 
-            // 获取今日零点时间
-            Date today = Date.from(LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant());
+            EventsState state = states.get(username.toLowerCase(), k -> new EventsState());
+            // 请求可能在调度器中排队很久，锁内只取快照和回写，请求期间不持锁
+            String knownEtag;
+            String knownNewestEventId;
+            boolean knownPushToday;
+            long version;
+            synchronized (state) {
+                knownEtag = state.etag;
+                knownNewestEventId = state.newestEventId;
+                // 没有新事件时，只有今天已经判定过的 Push 仍然有效
+                knownPushToday = today.equals(state.day) && state.pushedToday;
+                version = state.version;
+            }
 
-            // 获取用户事件列表
-            // events 是按时间倒序排列的
-            PagedIterable<GHEventInfo> events = github.getUser(username).listEvents();
+            String newEtag = null;
+            String newestEventId = null;
+            boolean pushedToday = false;
+            boolean notModified = false;
+            pages:
+            for (int page = 1; page <= MAX_PAGES; page++) {
+                String etag = page == 1 ? knownEtag : null;
+                int pageNo = page;
+                ResponseEntity<JsonNode> response = gitHubRequestScheduler.execute(token,
+                        GitHubRequestScheduler.RESOURCE_CORE, priority,
+                        () -> fetchEvents(username, token, pageNo, etag));
+                if (page == 1) {
+                    if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                        pushedToday = knownPushToday;
+                        notModified = true;
+                        break;
+                    }
+                    newEtag = response.getHeaders().getETag();
+                }
 
-            for (GHEventInfo event : events) {
-                // 如果事件时间早于今天，说明已经检查完今日所有事件，未发现 Push
-                if (event.getCreatedAt().before(today)) {
+                JsonNode events = response.getBody();
+                if (events == null || !events.isArray() || events.isEmpty()) {
                     break;
                 }
-
-                // 检查是否是 Push 事件
-                if (event.getType() == GHEvent.PUSH) {
-                    return true;
+                // events 是按时间倒序排列的
+                for (JsonNode event : events) {
+                    String eventId = event.path("id").asText();
+                    if (newestEventId == null) {
+                        newestEventId = eventId;
+                    }
+                    // 之后都是上次已检查过的事件
+                    if (eventId.equals(knownNewestEventId)) {
+                        pushedToday = knownPushToday;
+                        break pages;
+                    }
+                    // 如果事件时间早于今天，说明已经检查完今日所有事件
+                    if (Instant.parse(event.path("created_at").asText()).isBefore(todayStart)) {
+                        break pages;
+                    }
+                    // 检查是否是 Push 事件
+                    if ("PushEvent".equals(event.path("type").asText())) {
+                        pushedToday = true;
+                        break pages;
+                    }
+                }
+                if (events.size() < PER_PAGE) {
+                    break;
                 }
             }
 
-            return false;
+            synchronized (state) {
+                if (state.version != version) {
+                    // 期间已有其他请求回写了更新的状态，不覆盖，只合并今日的 Push 判定
+                    return PushVerdict.of(pushedToday || (today.equals(state.day) && state.pushedToday));
+                }
+                if (!notModified) {
+                    // 全部页面检查完才更新 ETag，中途延后时下次仍会完整检查
+                    state.etag = newEtag;
+                    if (newestEventId != null) {
+                        state.newestEventId = newestEventId;
+                    }
+                }
+                state.day = today;
+                state.pushedToday = pushedToday;
+                state.version++;
+                return PushVerdict.of(pushedToday);
+            }
+        } catch (GitHubRequestScheduler.DeferredException e) {
+            System.err.println("GitHub 额度不足，验证延后: " + e.getMessage());
+            return PushVerdict.DEFERRED;
         } catch (Exception e) {
-            // 记录日志但不抛出异常
+            // 接口异常时无法判断，不能当作未提交
             System.err.println("检查 GitHub 提交失败: " + e.getMessage());
-            return false;
+            return PushVerdict.DEFERRED;
         }
     }
-}
 
+    private ResponseEntity<JsonNode> fetchEvents(String username, String token, int page, String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, "application/vnd.github+json");
+        if (token != null && !token.isEmpty()) {
+            headers.setBearerAuth(token);
+        }
+        if (etag != null) {
+            headers.setIfNoneMatch(etag);
+        }
+        return restTemplate.exchange(EVENTS_URL, HttpMethod.GET, new HttpEntity<>(headers), JsonNode.class,
+                username, PER_PAGE, page);
+    }
+
+    /**
+     * 提交检查结果
+     */
+    public enum PushVerdict {
+        PUSHED,
+        NOT_PUSHED,
+        /** GitHub 额度不足或接口异常，稍后再验证 */
+        DEFERRED;
+
+        public static PushVerdict of(boolean pushed) {
+            return pushed ? PUSHED : NOT_PUSHED;
+        }
+    }
+
+    private static class EventsState {
+        String etag;
+        String newestEventId;
+        LocalDate day;
+        boolean pushedToday;
+        /** 每次回写递增，用于判断请求期间状态是否已被其他请求更新 */
+        long version;
+    }
+}
@@ -0,0 +1,86 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.domain.entity.GitHubConnection;
+import com.mapper.GitHubConnectionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GitHub 后台提交巡检
+ * 对未安装 Webhook 且今日尚未记录推送的用户，用 GraphQL 别名批量查询 (约 N / batch-size 次请求)，
+ * 查到的提交记入 GitHubPushLedger，之后用户打卡检查直接命中本地台账。
+ * 以 BACKGROUND 优先级提交，不占用留给用户请求的额度。
+ */
+@Slf4j
+@Component
+public class GitHubVerificationSweep {
+
+    @Value("${github.sweep.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 巡检使用的服务 token (GraphQL 必须认证)
+     */
+    @Value("${github.graphql.token:}")
+    private String token;
+
+    @Autowired
+    private GitHubConnectionMapper gitHubConnectionMapper;
+
+    @Autowired
+    private GitHubGraphQLService gitHubGraphQLService;
+
+    @Autowired
+    private GitHubPushLedger gitHubPushLedger;
+
+    @Scheduled(fixedDelayString = "${github.sweep.interval-ms:600000}")
+    public void sweep() {
+        if (!enabled || token.isEmpty()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            LocalDate today = gitHubPushLedger.today();
+
+            LambdaQueryWrapper<GitHubConnection> query = new LambdaQueryWrapper<>();
+            query.isNull(GitHubConnection::getWebhookActiveAt)
+                 .select(GitHubConnection::getId, GitHubConnection::getGithubUsername);
+            Map<String, Long> pending = new HashMap<>();
+            for (GitHubConnection connection : gitHubConnectionMapper.selectList(query)) {
+                if (!gitHubPushLedger.hasPushed(connection.getId(), today)) {
+                    pending.put(connection.getGithubUsername(), connection.getId());
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            Map<String, GitHubService.PushVerdict> verdicts = gitHubGraphQLService.checkCommitsToday(
+                    new ArrayList<>(pending.keySet()), token, GitHubRequestScheduler.Priority.BACKGROUND);
+            int pushed = 0;
+            int deferred = 0;
+            for (Map.Entry<String, GitHubService.PushVerdict> entry : verdicts.entrySet()) {
+                if (entry.getValue() == GitHubService.PushVerdict.PUSHED) {
+                    gitHubPushLedger.markPushed(pending.get(entry.getKey()), today);
+                    pushed++;
+                } else if (entry.getValue() == GitHubService.PushVerdict.DEFERRED) {
+                    deferred++;
+                }
+            }
+            log.info("GitHub 提交巡检: 检查 {} 人，新增推送 {}，延后 {}，耗时 {}ms",
+                    pending.size(), pushed, deferred, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("GitHub 提交巡检失败", e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.domain.entity.GitHubConnection;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mapper.GitHubConnectionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * GitHub Webhook 处理
+ * 校验 X-Hub-Signature-256 后用流式解析只读取需要的字段 (push 负载中的 commits 等大字段直接跳过)，
+ * 把推送记入 GitHubPushLedger，并刷新该用户的 Webhook 活跃时间；
+ * 活跃时间在有效期内的用户打卡检测不再调用事件 API，超出后回退到轮询。
+ */
+@Slf4j
+@Service
+public class GitHubWebhookService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Value("${github.webhook.secret:}")
+    private String secret;
+
+    @Autowired
+    private GitHubConnectionMapper gitHubConnectionMapper;
+
+    @Autowired
+    private ConnectionCache connectionCache;
+
+    @Autowired
+    private GitHubPushLedger gitHubPushLedger;
+
+    /**
+     * 校验签名 (HMAC-SHA256，常量时间比较)
+     * @param body 原始请求体
+     * @param signatureHeader X-Hub-Signature-256，形如 sha256=<hex>
+     */
+    public boolean verifySignature(byte[] body, String signatureHeader) {
+        if (secret == null || secret.isEmpty() || signatureHeader == null || !signatureHeader.startsWith("sha256=")) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] expected = mac.doFinal(body);
+            byte[] actual = HexFormat.of().parseHex(signatureHeader.substring("sha256=".length()));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false;
+        } catch (Exception e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * 处理已通过签名校验的事件
+     * @param event X-GitHub-Event
+     */
+    public void handle(String event, byte[] body) throws IOException {
+        Payload payload = parse(body);
+        switch (event) {
+            case "push":
+                // 删除分支的 push 不算提交
+                if (payload.senderId != null && !payload.deleted) {
+                    GitHubConnection connection = markActive(payload.senderId);
+                    if (connection != null) {
+                        gitHubPushLedger.markPushed(connection.getId(), gitHubPushLedger.today());
+                    }
+                }
+                break;
+            case "ping":
+                if (payload.senderId != null) {
+                    markActive(payload.senderId);
+                }
+                break;
+            case "installation":
+                if (payload.accountId == null) {
+                    break;
+                }
+                if ("deleted".equals(payload.action) || "suspend".equals(payload.action)) {
+                    GitHubConnection connection = findByGithubId(payload.accountId);
+                    if (connection != null) {
+                        setWebhookActiveAt(connection, null);
+                    }
+                } else {
+                    markActive(payload.accountId);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private GitHubConnection markActive(Long githubId) {
+        GitHubConnection connection = findByGithubId(githubId);
+        if (connection == null) {
+            log.debug("收到未绑定用户的 GitHub Webhook: githubId={}", githubId);
+            return null;
+        }
+        // 每次投递都刷新，长时间收不到投递 (Webhook 被删除/失效) 时由台账回退到事件 API
+        setWebhookActiveAt(connection, LocalDateTime.now());
+        return connection;
+    }
+
+    private GitHubConnection findByGithubId(Long githubId) {
+        LambdaQueryWrapper<GitHubConnection> query = new LambdaQueryWrapper<>();
+        query.eq(GitHubConnection::getGithubId, githubId);
+        return gitHubConnectionMapper.selectOne(query);
+    }
+
+    private void setWebhookActiveAt(GitHubConnection connection, LocalDateTime activeAt) {
+        LambdaUpdateWrapper<GitHubConnection> update = new LambdaUpdateWrapper<>();
+        update.eq(GitHubConnection::getGithubId, connection.getGithubId())
+              .set(GitHubConnection::getWebhookActiveAt, activeAt);
+        gitHubConnectionMapper.update(null, update);
+        connectionCache.invalidateGitHub(connection.getWalletAddress());
+    }
+
+    /**
+     * 流式解析顶层字段: action、deleted、sender.id、installation.account.id，其余字段整体跳过
+     */
+    static Payload parse(byte[] body) throws IOException {
+        Payload payload = new Payload();
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Webhook payload is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "action":
+                        payload.action = parser.getValueAsString();
+                        break;
+                    case "deleted":
+                        payload.deleted = parser.getValueAsBoolean();
+                        break;
+                    case "sender":
+                        payload.senderId = readId(parser, null);
+                        break;
+                    case "installation":
+                        payload.accountId = readId(parser, "account");
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+        }
+        return payload;
+    }
+
+    /**
+     * 读取当前对象 (或其 nested 子对象) 的 id 字段，读完后停在对象结束处
+     */
+    private static Long readId(JsonParser parser, String nested) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Long id = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (nested == null && "id".equals(field) && parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                id = parser.getLongValue();
+            } else if (field.equals(nested)) {
+                id = readId(parser, null);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return id;
+    }
+
+    static class Payload {
+        String action;
+        boolean deleted;
+        Long senderId;
+        Long accountId;
+    }
+}
@@ -0,0 +1,265 @@
+package com.service;
+
+import com.domain.entity.IndexerCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.common.Constants.ZONE_ID;
+
+/**
+ * HabitEscrow 合约事件索引器
+ * 按区块范围分段拉取 eth_getLogs，解码后交给 ChallengeIndexService 物化，
+ * 检查点随每段事件在同一事务中推进。只处理到 head - confirmations 的区块，
+ * 若检查点区块的哈希与链上不一致 (发生重组)，回退 reorg-rewind-blocks 个区块后重放。
+ * 定时轮询与惩罚巡检都会调用 {@link #syncOnce()}，进程内同一时间只有一个同步在运行；
+ * 多实例之间由检查点的条件更新保证同一区块范围只应用一次。
+ */
+@Slf4j
+@Service
+public class HabitEscrowIndexer {
+
+    private static final String CHECKPOINT_NAME = "habit_escrow";
+
+    static final Event CHALLENGE_CREATED = new Event("ChallengeCreated", Arrays.asList(
+            new TypeReference<Address>(true) {}, new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint256>() {}, new TypeReference<Uint256>() {}, new TypeReference<Uint8>() {}));
+    static final Event DAY_COMPLETED = new Event("DayCompleted", Arrays.asList(
+            new TypeReference<Address>(true) {}, new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint256>() {}));
+    static final Event CHALLENGE_COMPLETED = new Event("ChallengeCompleted", Arrays.asList(
+            new TypeReference<Address>(true) {}, new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint256>() {}));
+    static final Event SLASHED = new Event("Slashed", Arrays.asList(
+            new TypeReference<Address>(true) {}, new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint256>() {}, new TypeReference<Uint8>() {}));
+    static final Event EMERGENCY_WITHDRAW = new Event("EmergencyWithdraw", Arrays.asList(
+            new TypeReference<Address>(true) {}, new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint256>() {}, new TypeReference<Uint256>() {}));
+    static final Event RESURRECTION_USED = new Event("ResurrectionUsed", Arrays.asList(
+            new TypeReference<Address>(true) {}, new TypeReference<Uint256>(true) {}));
+
+    private static final Map<String, Event> EVENTS_BY_TOPIC = new HashMap<>();
+    private static final Map<String, ChallengeIndexService.EventType> TYPES_BY_TOPIC = new HashMap<>();
+
+    static {
+        register(CHALLENGE_CREATED, ChallengeIndexService.EventType.CHALLENGE_CREATED);
+        register(DAY_COMPLETED, ChallengeIndexService.EventType.DAY_COMPLETED);
+        register(CHALLENGE_COMPLETED, ChallengeIndexService.EventType.CHALLENGE_COMPLETED);
+        register(SLASHED, ChallengeIndexService.EventType.SLASHED);
+        register(EMERGENCY_WITHDRAW, ChallengeIndexService.EventType.EMERGENCY_WITHDRAW);
+        register(RESURRECTION_USED, ChallengeIndexService.EventType.RESURRECTION_USED);
+    }
+
+    private static void register(Event event, ChallengeIndexService.EventType type) {
+        String topic = EventEncoder.encode(event);
+        EVENTS_BY_TOPIC.put(topic, event);
+        TYPES_BY_TOPIC.put(topic, type);
+    }
+
+    @Value("${indexer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${indexer.start-block:0}")
+    private long startBlock;
+
+    @Value("${indexer.confirmations:6}")
+    private long confirmations;
+
+    @Value("${indexer.reorg-rewind-blocks:64}")
+    private long reorgRewindBlocks;
+
+    @Value("${indexer.max-block-range:2000}")
+    private long maxBlockRange;
+
+    @Autowired
+    private BlockchainService blockchainService;
+
+    @Autowired
+    private ChallengeIndexService challengeIndexService;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    @Scheduled(fixedDelayString = "${indexer.poll-interval-ms:15000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        // 惩罚巡检正在同步时跳过本轮
+        if (!syncLock.tryLock()) {
+            return;
+        }
+        try {
+            syncOnce();
+        } catch (Exception e) {
+            log.error("合约事件索引失败", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * 同步到当前安全高度 (head - confirmations)，其他同步正在运行时等待其结束
+     */
+    public void syncOnce() throws IOException {
+        syncLock.lock();
+        try {
+            doSync();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void doSync() throws IOException {
+        Web3j web3j = blockchainService.getWeb3j();
+        long head = web3j.ethBlockNumber().send().getBlockNumber().longValue();
+        long safeHead = head - confirmations;
+
+        IndexerCheckpoint checkpoint = challengeIndexService.getCheckpoint(CHECKPOINT_NAME);
+        long lastBlock = checkpoint == null ? startBlock - 1 : checkpoint.getLastBlock();
+        Long expectedLastBlock = checkpoint == null ? null : lastBlock;
+
+        // 重组检测: 检查点区块在链上的哈希发生变化
+        if (checkpoint != null && checkpoint.getLastBlockHash() != null && lastBlock >= 0) {
+            String canonicalHash = blockHash(web3j, lastBlock);
+            if (!checkpoint.getLastBlockHash().equalsIgnoreCase(canonicalHash)) {
+                long rewindTo = Math.max(startBlock - 1, lastBlock - reorgRewindBlocks);
+                log.warn("检测到链重组，检查点从 {} 回退到 {}", lastBlock, rewindTo);
+                challengeIndexService.rewind(CHECKPOINT_NAME, rewindTo);
+                lastBlock = rewindTo;
+                expectedLastBlock = rewindTo;
+            }
+        }
+
+        while (lastBlock < safeHead) {
+            long from = lastBlock + 1;
+            long to = Math.min(safeHead, from + maxBlockRange - 1);
+
+            List<Log> logs = fetchLogs(web3j, from, to);
+            List<ChallengeIndexService.ContractEvent> events = decode(web3j, logs);
+            challengeIndexService.apply(CHECKPOINT_NAME, events, expectedLastBlock, to, blockHash(web3j, to));
+
+            if (!events.isEmpty()) {
+                log.info("索引区块 {}-{}，事件 {} 条", from, to, events.size());
+            }
+            lastBlock = to;
+            expectedLastBlock = to;
+        }
+    }
+
+    private List<Log> fetchLogs(Web3j web3j, long from, long to) throws IOException {
+        EthFilter filter = new EthFilter(
+                DefaultBlockParameter.valueOf(BigInteger.valueOf(from)),
+                DefaultBlockParameter.valueOf(BigInteger.valueOf(to)),
+                blockchainService.getContractAddress());
+        filter.addOptionalTopics(EVENTS_BY_TOPIC.keySet().toArray(new String[0]));
+
+        EthLog ethLog = web3j.ethGetLogs(filter).send();
+        if (ethLog.hasError()) {
+            throw new IOException("eth_getLogs failed: " + ethLog.getError().getMessage());
+        }
+        List<Log> logs = new ArrayList<>();
+        for (EthLog.LogResult<?> result : ethLog.getLogs()) {
+            logs.add((Log) result.get());
+        }
+        return logs;
+    }
+
+    private List<ChallengeIndexService.ContractEvent> decode(Web3j web3j, List<Log> logs) throws IOException {
+        // 创建/复活事件需要区块时间，合并为一次批量请求
+        TreeSet<Long> timedBlocks = new TreeSet<>();
+        for (Log log : logs) {
+            ChallengeIndexService.EventType type = TYPES_BY_TOPIC.get(log.getTopics().get(0));
+            if (type == ChallengeIndexService.EventType.CHALLENGE_CREATED
+                    || type == ChallengeIndexService.EventType.RESURRECTION_USED) {
+                timedBlocks.add(log.getBlockNumber().longValue());
+            }
+        }
+        Map<Long, LocalDateTime> blockTimes = blockTimes(web3j, timedBlocks);
+
+        List<ChallengeIndexService.ContractEvent> events = new ArrayList<>(logs.size());
+        for (Log log : logs) {
+            if (log.isRemoved()) {
+                continue;
+            }
+            String topic = log.getTopics().get(0);
+            Event definition = EVENTS_BY_TOPIC.get(topic);
+            if (definition == null) {
+                continue;
+            }
+
+            ChallengeIndexService.ContractEvent event = new ChallengeIndexService.ContractEvent();
+            event.type = TYPES_BY_TOPIC.get(topic);
+            event.userAddress = ((Address) FunctionReturnDecoder.decodeIndexedValue(
+                    log.getTopics().get(1), new TypeReference<Address>() {})).getValue().toLowerCase();
+            event.challengeId = ((Uint256) FunctionReturnDecoder.decodeIndexedValue(
+                    log.getTopics().get(2), new TypeReference<Uint256>() {})).getValue().longValueExact();
+
+            List<Type> values = FunctionReturnDecoder.decode(log.getData(), definition.getNonIndexedParameters());
+            event.values = new BigInteger[values.size()];
+            for (int i = 0; i < values.size(); i++) {
+                event.values[i] = (BigInteger) values.get(i).getValue();
+            }
+            event.blockNumber = log.getBlockNumber().longValue();
+            event.blockTime = blockTimes.get(event.blockNumber);
+            events.add(event);
+        }
+        return events;
+    }
+
+    private Map<Long, LocalDateTime> blockTimes(Web3j web3j, TreeSet<Long> blockNumbers) throws IOException {
+        Map<Long, LocalDateTime> times = new HashMap<>();
+        if (blockNumbers.isEmpty()) {
+            return times;
+        }
+        BatchRequest batch = web3j.newBatch();
+        for (Long number : blockNumbers) {
+            batch.add(web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.valueOf(number)), false));
+        }
+        for (Response<?> response : batch.send().getResponses()) {
+            if (response instanceof EthBlock && ((EthBlock) response).getBlock() != null) {
+                EthBlock.Block block = ((EthBlock) response).getBlock();
+                times.put(block.getNumber().longValue(), LocalDateTime.ofInstant(
+                        Instant.ofEpochSecond(block.getTimestamp().longValue()), ZoneId.of(ZONE_ID)));
+            }
+        }
+        return times;
+    }
+
+    private String blockHash(Web3j web3j, long number) throws IOException {
+        EthBlock.Block block = web3j.ethGetBlockByNumber(
+                DefaultBlockParameter.valueOf(BigInteger.valueOf(number)), false).send().getBlock();
+        return block == null ? null : block.getHash();
+    }
+}
@@ -0,0 +1,196 @@
+package com.service;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agent 账户的本地 Nonce 分配器
+ * 首次使用时从 PENDING 状态拉取一次 nonce，之后在本地原子递增分配，
+ * 并发打卡时无需每笔交易都请求 RPC，也不会拿到重复的 nonce；分配之外的签名、广播不持有任何锁。
+ * 本地计数只增不减: 节点返回 nonce 过低时 {@link #resync()} 取本地与节点 PENDING 的较大值。
+ * 已分配未确认的 nonce 连同签名交易记录在内存中，{@link #reconcile} 对比节点 latest/pending nonce
+ * 找出空洞: 交易被丢弃的重新广播原签名交易，节点拒绝或从未广播的由调用方发送占位交易填补。
+ */
+public class NonceManager {
+
+    /**
+     * 节点 PENDING nonce 来源
+     */
+    public interface PendingNonceSource {
+        long fetch() throws IOException;
+    }
+
+    private final PendingNonceSource source;
+
+    private final AtomicLong nextNonce = new AtomicLong();
+    private final Object seedLock = new Object();
+    private volatile boolean seeded;
+
+    /**
+     * 本进程分配、尚未确认的 nonce
+     */
+    private final ConcurrentSkipListMap<Long, Slot> inFlight = new ConcurrentSkipListMap<>();
+
+    public NonceManager(Web3j web3j, String address) {
+        this(() -> fetchPendingNonce(web3j, address));
+    }
+
+    public NonceManager(PendingNonceSource source) {
+        this.source = source;
+    }
+
+    /**
+     * 分配下一个可用 nonce
+     */
+    public BigInteger acquire() throws IOException {
+        if (!seeded) {
+            synchronized (seedLock) {
+                if (!seeded) {
+                    nextNonce.set(source.fetch());
+                    seeded = true;
+                }
+            }
+        }
+        long nonce = nextNonce.getAndIncrement();
+        inFlight.put(nonce, new Slot(System.currentTimeMillis()));
+        return BigInteger.valueOf(nonce);
+    }
+
+    /**
+     * 记录 nonce 对应的签名交易 (广播前调用)，同 nonce 替换交易覆盖旧记录
+     * 崩溃恢复时重发的交易 nonce 可能不低于本地计数，之后分配的 nonce 跳过它
+     */
+    public void track(BigInteger nonce, String rawTransaction) {
+        long value = nonce.longValueExact();
+        inFlight.computeIfAbsent(value, k -> new Slot(System.currentTimeMillis()))
+                .rawTransaction = rawTransaction;
+        if (seeded) {
+            nextNonce.accumulateAndGet(value + 1, Math::max);
+        }
+    }
+
+    /**
+     * 归还被节点明确拒绝 (未进入交易池) 的 nonce
+     * 仍是最后分配的 nonce 时直接回退；否则记为空洞，由 {@link #reconcile} 安排占位交易填补
+     * @return 是否已回退
+     */
+    public boolean release(BigInteger nonce) {
+        long value = nonce.longValueExact();
+        Slot slot = inFlight.get(value);
+        if (nextNonce.compareAndSet(value + 1, value)) {
+            if (slot != null) {
+                inFlight.remove(value, slot);
+            }
+            return true;
+        }
+        if (slot != null) {
+            slot.rawTransaction = null;
+        }
+        return false;
+    }
+
+    /**
+     * 不再跟踪该 nonce (已被其他交易占用，本进程的签名交易不可能再上链)
+     */
+    public void forget(BigInteger nonce) {
+        inFlight.remove(nonce.longValueExact());
+    }
+
+    /**
+     * 与节点 PENDING nonce 对齐 (只前进不后退)
+     */
+    public void resync() throws IOException {
+        advanceTo(source.fetch());
+    }
+
+    /**
+     * 对比节点 nonce 找出需要处理的空洞
+     * latest 以下的 nonce 已打包，不再跟踪；pending 处的 nonce 不在交易池中 (之后的交易都卡在它后面):
+     * 有签名交易的重新广播，没有的 (被拒绝/签名失败) 超过 graceMs 后需要占位填补。
+     * @param latest 节点 latest nonce (已打包交易数)
+     * @param pending 节点 pending nonce (交易池中连续可执行交易之后的下一个)
+     * @param graceMs 刚分配的 nonce 可能正在签名广播，超过该时长才视为空洞
+     */
+    public Reconcile reconcile(long latest, long pending, long nowMillis, long graceMs) {
+        inFlight.headMap(latest).clear();
+        advanceTo(pending);
+
+        Reconcile plan = new Reconcile();
+        long next = nextNonce.get();
+        if (pending >= next) {
+            return plan;
+        }
+        Slot first = inFlight.get(pending);
+        if (first != null && first.rawTransaction != null) {
+            plan.rebroadcast.put(BigInteger.valueOf(pending), first.rawTransaction);
+        } else if (first != null && nowMillis - first.allocatedAt > graceMs) {
+            plan.fill.add(BigInteger.valueOf(pending));
+        }
+        // pending 之后已知的空洞一并填补，不必逐轮暴露
+        for (Map.Entry<Long, Slot> entry : inFlight.subMap(pending + 1, next).entrySet()) {
+            Slot slot = entry.getValue();
+            if (slot.rawTransaction == null && nowMillis - slot.allocatedAt > graceMs) {
+                plan.fill.add(BigInteger.valueOf(entry.getKey()));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * 节点错误是否为 nonce 过低 (该 nonce 已被使用，或本地计数落后于链上)
+     * “replacement transaction underpriced”、“nonce too high” 等不是计数落后，不能通过 resync 解决
+     */
+    public static boolean isNonceTooLow(String message) {
+        return message != null && message.toLowerCase().contains("nonce too low");
+    }
+
+    private void advanceTo(long pending) {
+        synchronized (seedLock) {
+            if (seeded) {
+                nextNonce.accumulateAndGet(pending, Math::max);
+            } else {
+                nextNonce.set(pending);
+                seeded = true;
+            }
+        }
+    }
+
+    private static long fetchPendingNonce(Web3j web3j, String address) throws IOException {
+        EthGetTransactionCount count = web3j.ethGetTransactionCount(
+                address, DefaultBlockParameterName.PENDING).send();
+        if (count.hasError()) {
+            throw new IOException("Failed to fetch pending nonce: " + count.getError().getMessage());
+        }
+        return count.getTransactionCount().longValueExact();
+    }
+
+    private static class Slot {
+        final long allocatedAt;
+        /** 最近一次签名的交易，null 表示尚未签名或已被节点拒绝 */
+        volatile String rawTransaction;
+
+        Slot(long allocatedAt) {
+            this.allocatedAt = allocatedAt;
+        }
+    }
+
+    /**
+     * 空洞处理计划
+     */
+    public static class Reconcile {
+        /** nonce -> 需要重新广播的签名交易 */
+        public final Map<BigInteger, String> rebroadcast = new LinkedHashMap<>();
+        /** 需要发送占位交易的 nonce */
+        public final List<BigInteger> fill = new ArrayList<>();
+    }
+}
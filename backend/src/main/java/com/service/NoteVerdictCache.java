@@ -0,0 +1,253 @@
+package com.service;
+
+import com.utils.SimHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 阅读笔记审核结果缓存
+ * 以归一化文本 (NFKC、小写、去掉空白) 的 SHA-256 为键，带 TTL 与 LRU 容量上限；
+ * 可选的 SimHash 近似重复索引: 同一用户小改后重交复用原结论，与其他用户雷同的笔记直接判定不通过，均不调用大模型。
+ * AI 调用失败时的兜底放行结论不缓存。
+ */
+@Component
+public class NoteVerdictCache {
+
+    static final String COPIED_REASON = "笔记与其他用户高度雷同，写点你自己的东西。";
+    /** 超过该距离时每段不足 8 位，分段索引基本失去筛选作用 */
+    static final int MAX_DISTANCE_LIMIT = 7;
+
+    @Value("${deepseek.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${deepseek.cache.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${deepseek.cache.near-duplicate.enabled:true}")
+    private boolean nearDuplicateEnabled;
+
+    /**
+     * 短文本指纹不稳定，少于该长度不参与近似匹配
+     */
+    @Value("${deepseek.cache.near-duplicate.min-chars:30}")
+    private int nearDuplicateMinChars;
+
+    /**
+     * 近似重复的汉明距离上限，指纹按 max-distance + 1 分段建索引，距离越大每段越短、候选越多
+     */
+    @Value("${deepseek.cache.near-duplicate.max-distance:3}")
+    private int maxDistance;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** SimHash 分段 -> 条目，key 为 (段号 << 32 | 段值) */
+    private final Map<Long, List<Entry>> bands = new HashMap<>();
+    private int bandCount;
+
+    private Timer llmTimer;
+    private DistributionSummary savedMs;
+
+    @PostConstruct
+    public void init() {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE_LIMIT) {
+            throw new IllegalStateException("deepseek.cache.near-duplicate.max-distance must be between 0 and "
+                    + MAX_DISTANCE_LIMIT + ": " + maxDistance);
+        }
+        bandCount = maxDistance + 1;
+        llmTimer = Timer.builder("deepseek.verdict.llm")
+                .description("实际调用大模型的耗时")
+                .register(meterRegistry);
+        savedMs = DistributionSummary.builder("deepseek.verdict.cache.saved")
+                .baseUnit("milliseconds")
+                .description("命中缓存节省的大模型耗时 (按平均调用耗时估算)")
+                .register(meterRegistry);
+        Gauge.builder("deepseek.verdict.cache.size", this, NoteVerdictCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查缓存，未命中时调用 loader 并缓存结果
+     * @param walletAddress 提交人
+     * @param content 笔记原文
+     * @param loader 大模型审核
+     */
+    public DeepSeekService.ValidationResult get(String walletAddress, String content,
+                                                Supplier<DeepSeekService.ValidationResult> loader) {
+        String owner = walletAddress == null ? "" : walletAddress.toLowerCase();
+        String normalized = normalize(content);
+        String key = sha256(normalized);
+        boolean fingerprinted = nearDuplicateEnabled && normalized.length() >= nearDuplicateMinChars;
+        long fingerprint = fingerprinted ? SimHash.of(normalized, 3) : 0L;
+
+        DeepSeekService.ValidationResult cached = lookup(owner, key, fingerprinted, fingerprint);
+        if (cached != null) {
+            savedMs.record(llmTimer.mean(TimeUnit.MILLISECONDS));
+            return cached;
+        }
+
+        long start = System.nanoTime();
+        DeepSeekService.ValidationResult verdict = loader.get();
+        llmTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        count("miss");
+        if (!verdict.fallback) {
+            put(new Entry(key, owner, fingerprinted, fingerprint, verdict,
+                    System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutes)));
+        }
+        return verdict;
+    }
+
+    private synchronized DeepSeekService.ValidationResult lookup(String owner, String key,
+                                                                  boolean fingerprinted, long fingerprint) {
+        long now = System.currentTimeMillis();
+        Entry exact = entries.get(key);
+        if (exact != null && exact.expiresAt < now) {
+            remove(exact);
+            exact = null;
+        }
+        if (exact != null) {
+            return resolve(exact, owner, "hit", fingerprinted);
+        }
+        if (!fingerprinted) {
+            return null;
+        }
+        for (int i = 0; i < bandCount; i++) {
+            List<Entry> candidates = bands.get(bandKey(fingerprint, i));
+            if (candidates == null) {
+                continue;
+            }
+            for (Entry candidate : candidates) {
+                if (candidate.expiresAt >= now && SimHash.distance(candidate.fingerprint, fingerprint) <= maxDistance) {
+                    return resolve(candidate, owner, "near_duplicate", true);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 同一用户复用结论；足够长且与他人笔记相同/雷同的判定为抄袭 (短句撞车很常见，只复用结论)
+     */
+    private DeepSeekService.ValidationResult resolve(Entry entry, String owner, String result, boolean detectCopy) {
+        if (detectCopy && !entry.owner.equals(owner)) {
+            count("copied");
+            return new DeepSeekService.ValidationResult(false, COPIED_REASON);
+        }
+        count(result);
+        return entry.verdict;
+    }
+
+    private synchronized void put(Entry entry) {
+        Entry previous = entries.get(entry.key);
+        if (previous != null) {
+            remove(previous);
+        }
+        entries.put(entry.key, entry);
+        if (entry.fingerprinted) {
+            for (int i = 0; i < bandCount; i++) {
+                bands.computeIfAbsent(bandKey(entry.fingerprint, i), k -> new ArrayList<>(1)).add(entry);
+            }
+        }
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key);
+        unindex(entry);
+    }
+
+    private void unindex(Entry entry) {
+        if (!entry.fingerprinted) {
+            return;
+        }
+        for (int i = 0; i < bandCount; i++) {
+            long band = bandKey(entry.fingerprint, i);
+            List<Entry> list = bands.get(band);
+            if (list != null) {
+                list.remove(entry);
+                if (list.isEmpty()) {
+                    bands.remove(band);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void count(String result) {
+        Counter.builder("deepseek.verdict.cache")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 只有一段时段值占满 64 位，段号为 0 不影响；两段及以上每段不超过 32 位
+     */
+    private long bandKey(long fingerprint, int i) {
+        return (long) i << 32 | SimHash.band(fingerprint, i, bandCount);
+    }
+
+    static String normalize(String content) {
+        return Normalizer.normalize(content, Normalizer.Form.NFKC)
+                .toLowerCase()
+                .replaceAll("\\s+", "");
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static class Entry {
+        final String key;
+        final String owner;
+        final boolean fingerprinted;
+        final long fingerprint;
+        final DeepSeekService.ValidationResult verdict;
+        final long expiresAt;
+
+        Entry(String key, String owner, boolean fingerprinted, long fingerprint,
+              DeepSeekService.ValidationResult verdict, long expiresAt) {
+            this.key = key;
+            this.owner = owner;
+            this.fingerprinted = fingerprinted;
+            this.fingerprint = fingerprint;
+            this.verdict = verdict;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
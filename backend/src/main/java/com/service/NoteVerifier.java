@@ -0,0 +1,23 @@
+package com.service;
+
+/**
+ * 阅读笔记审核引擎
+ * 实现: 大模型 (DashScope 或任意 OpenAI 兼容端点，见 ReadingNoteReviewer) 与本地规则 (RuleBasedNoteVerifier)，
+ * 由 reading.verifier.engine 选择
+ */
+public interface NoteVerifier extends AutoCloseable {
+
+    /**
+     * 引擎名称 (用于日志与回放报告)
+     */
+    String name();
+
+    /**
+     * 审核一条笔记，可能阻塞 (等待合并批次或模型响应)
+     */
+    DeepSeekService.ValidationResult verify(String content);
+
+    @Override
+    default void close() {
+    }
+}
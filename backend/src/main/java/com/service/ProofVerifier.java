@@ -0,0 +1,78 @@
+package com.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 打卡凭证验证 (CheckInPipeline 的第一阶段)
+ * 每种习惯类型一个实现: GitHub 提交、Strava 跑步、阅读笔记；新增类型只需注册一个 Bean
+ */
+public interface ProofVerifier {
+
+    /**
+     * 习惯类型 (github / strava / reading)，同时作为指标标签与并发去重 key 的前缀
+     */
+    String type();
+
+    /**
+     * 验证阶段超时 (毫秒)，超时视为延后验证
+     */
+    long timeoutMs();
+
+    /**
+     * 验证今日凭证，可能阻塞 (外部接口调用)
+     */
+    Proof verify(String walletAddress, Long challengeId, String content);
+
+    /**
+     * 异步验证，默认在流水线线程池中执行 verify；自带异步执行的实现 (如阅读审核) 可覆盖
+     */
+    default CompletableFuture<Proof> verifyAsync(String walletAddress, Long challengeId, String content,
+                                                 Executor executor) {
+        return CompletableFuture.supplyAsync(() -> verify(walletAddress, challengeId, content), executor);
+    }
+
+    /**
+     * 验证结果
+     */
+    class Proof {
+
+        public enum Status {
+            /** 凭证有效，进入打卡写入 */
+            PASSED,
+            /** 今日尚未达成 */
+            NOT_MET,
+            /** 外部接口繁忙或超时，稍后再验证 */
+            DEFERRED,
+            /** 未绑定账号、内容无效或审核不通过 */
+            INVALID
+        }
+
+        public final Status status;
+        public final String message;
+        /** 写入打卡记录的凭证内容 (阅读笔记)，其余类型为 null */
+        public final String proofContent;
+
+        private Proof(Status status, String message, String proofContent) {
+            this.status = status;
+            this.message = message;
+            this.proofContent = proofContent;
+        }
+
+        public static Proof passed(String message, String proofContent) {
+            return new Proof(Status.PASSED, message, proofContent);
+        }
+
+        public static Proof notMet(String message) {
+            return new Proof(Status.NOT_MET, message, null);
+        }
+
+        public static Proof deferred(String message) {
+            return new Proof(Status.DEFERRED, message, null);
+        }
+
+        public static Proof invalid(String message) {
+            return new Proof(Status.INVALID, message, null);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.utils.AdaptiveConcurrencyLimiter;
+import com.utils.MicroBatcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 大模型阅读笔记审核 (NoteVerifier 的 LLM 实现，适用于任意 OpenAI 兼容端点)
+ * 单条审核与合并审核共用规则；合并审核把时间窗口内的多条笔记放进一次请求 (系统提示词只发一次)，
+ * 要求模型按 id 返回结论数组，解析失败或缺项时退回逐条审核。
+ * 所有模型调用都经过自适应并发限制。
+ */
+@Slf4j
+public class ReadingNoteReviewer implements NoteVerifier {
+
+    /**
+     * 默认审核规则 (可通过配置替换)
+     */
+    public static final String DEFAULT_RULES =
+            "你是一个严格的习惯教练(Strict Habit Coach)。你的任务是审核用户的阅读笔记。\n" +
+            "规则：\n" +
+            "1. 如果内容是乱码、敷衍的单个词、或者完全与阅读无关，请判定为不通过。\n" +
+            "2. 笔记必须包含具体的感悟或内容摘要，至少10个字。\n";
+
+    private static final String SINGLE_FORMAT =
+            "3. 请以 JSON 格式返回结果，格式为：{\"pass\": true/false, \"reason\": \"简短的毒舌评语(中文)\"}。\n" +
+            "4. 评语风格：严格、稍微带点讽刺但有建设性。如果通过，给予肯定但不要太温和。";
+
+    private static final String BATCH_FORMAT =
+            "3. 输入是一个 JSON 数组，每项包含 id 和 note，每条笔记独立审核，互不影响。\n" +
+            "4. 请以 JSON 格式返回结果，格式为：{\"verdicts\": [{\"id\": 输入的id, \"pass\": true/false, \"reason\": \"简短的毒舌评语(中文)\"}]}，每条笔记一项。\n" +
+            "5. 评语风格：严格、稍微带点讽刺但有建设性。如果通过，给予肯定但不要太温和。";
+
+    private static final double TEMPERATURE = 0.7;
+
+    private final String name;
+    private final String singlePrompt;
+    private final String batchPrompt;
+    private final ChatCompletionClient client;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long acquireTimeoutMs;
+    private final MeterRegistry meterRegistry;
+    private final MicroBatcher<String, DeepSeekService.ValidationResult> batcher;
+    private final DistributionSummary batchSize;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @param name 引擎名称
+     * @param rules 审核规则 (系统提示词中输出格式之前的部分)，为空时使用 DEFAULT_RULES
+     * @param batchWindowMs 合并窗口，0 表示不合并
+     * @param maxBatchSize 单次请求最多包含的笔记数
+     */
+    public ReadingNoteReviewer(String name, String rules, ChatCompletionClient client, AdaptiveConcurrencyLimiter limiter,
+                               long acquireTimeoutMs, long batchWindowMs, int maxBatchSize, int workers,
+                               MeterRegistry meterRegistry) {
+        String prompt = rules == null || rules.isBlank() ? DEFAULT_RULES : rules.strip() + "\n";
+        this.name = name;
+        this.singlePrompt = prompt + SINGLE_FORMAT;
+        this.batchPrompt = prompt + BATCH_FORMAT;
+        this.client = client;
+        this.limiter = limiter;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("deepseek.batch.size")
+                .description("每次模型请求包含的笔记数")
+                .register(meterRegistry);
+        this.batcher = batchWindowMs > 0 && maxBatchSize > 1
+                ? new MicroBatcher<>("deepseek", batchWindowMs, maxBatchSize, workers, this::reviewBatch, this::review)
+                : null;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 审核单条笔记，开启合并时与同一窗口内的其他笔记一起发送
+     */
+    @Override
+    public DeepSeekService.ValidationResult verify(String content) {
+        if (batcher == null) {
+            return review(content);
+        }
+        try {
+            return batcher.submit(content).join();
+        } catch (CompletionException e) {
+            return busy("rejected");
+        }
+    }
+
+    /**
+     * 单条审核 (一次模型请求)
+     */
+    public DeepSeekService.ValidationResult review(String content) {
+        return limited(() -> {
+            batchSize.record(1);
+            try {
+                JsonNode result = objectMapper.readTree(client.complete(singlePrompt, "用户的阅读笔记内容: " + content, TEMPERATURE));
+                return new DeepSeekService.ValidationResult(result.path("pass").asBoolean(), result.path("reason").asText());
+            } catch (Exception e) {
+                log.warn("AI 审核失败: {}", e.getMessage());
+                // Fallback: if AI fails, let it pass to avoid blocking user, but mark as API error
+                return new DeepSeekService.ValidationResult(true, "AI 暂时睡着了，这次先放过你。", true);
+            }
+        }, result -> !result.fallback, () -> busy("limited"));
+    }
+
+    /**
+     * 合并审核，返回与输入一一对应的结论；模型漏掉的项为 null (由 MicroBatcher 逐条补审)
+     */
+    List<DeepSeekService.ValidationResult> reviewBatch(List<String> contents) {
+        return limited(() -> {
+            batchSize.record(contents.size());
+            String reply;
+            try {
+                reply = client.complete(batchPrompt, "待审核的阅读笔记: " + toNotesJson(contents), TEMPERATURE);
+            } catch (RuntimeException e) {
+                fallbackCount("request_failed");
+                throw e;
+            }
+            DeepSeekService.ValidationResult[] results = new DeepSeekService.ValidationResult[contents.size()];
+            try {
+                for (JsonNode verdict : objectMapper.readTree(reply).path("verdicts")) {
+                    int id = verdict.path("id").asInt(-1);
+                    if (id >= 0 && id < results.length && verdict.path("pass").isBoolean()) {
+                        results[id] = new DeepSeekService.ValidationResult(verdict.path("pass").asBoolean(),
+                                verdict.path("reason").asText());
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                fallbackCount("unparseable");
+                throw new IllegalStateException("Unparseable batch verdicts", e);
+            }
+            if (Arrays.asList(results).contains(null)) {
+                fallbackCount("missing_items");
+            }
+            return new ArrayList<>(Arrays.asList(results));
+        }, results -> true, () -> {
+            List<DeepSeekService.ValidationResult> busy = new ArrayList<>(contents.size());
+            for (int i = 0; i < contents.size(); i++) {
+                busy.add(busy("limited"));
+            }
+            return busy;
+        });
+    }
+
+    private String toNotesJson(List<String> contents) {
+        ArrayNode notes = objectMapper.createArrayNode();
+        for (int i = 0; i < contents.size(); i++) {
+            notes.addObject().put("id", i).put("note", contents.get(i));
+        }
+        return notes.toString();
+    }
+
+    /**
+     * 经并发限制执行模型调用，按结果调整并发上限
+     */
+    private <T> T limited(Supplier<T> call, Predicate<T> success, Supplier<T> onBusy) {
+        try {
+            if (!limiter.acquire(acquireTimeoutMs)) {
+                return onBusy.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return onBusy.get();
+        }
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            T result = call.get();
+            ok = success.test(result);
+            return result;
+        } finally {
+            limiter.release(System.nanoTime() - start, ok);
+        }
+    }
+
+    DeepSeekService.ValidationResult busy(String reason) {
+        Counter.builder("deepseek.limiter.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        return new DeepSeekService.ValidationResult(false, "审核排队的人太多了，稍后再交一次。", true);
+    }
+
+    private void fallbackCount(String reason) {
+        Counter.builder("deepseek.batch.fallback")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void close() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 阅读笔记验证: AI 审核 (结论缓存、合并批次) 在 deepseek-review 线程池中执行
+ */
+@Component
+public class ReadingProofVerifier implements ProofVerifier {
+
+    @Value("${deepseek.request-timeout-ms:90000}")
+    private long timeoutMs;
+
+    @Autowired
+    private DeepSeekService deepSeekService;
+
+    @Override
+    public String type() {
+        return "reading";
+    }
+
+    @Override
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+
+    @Override
+    public Proof verify(String walletAddress, Long challengeId, String content) {
+        return verifyAsync(walletAddress, challengeId, content, Runnable::run).join();
+    }
+
+    @Override
+    public CompletableFuture<Proof> verifyAsync(String walletAddress, Long challengeId, String content,
+                                                Executor executor) {
+        if (content == null || content.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(Proof.invalid("请填写阅读笔记"));
+        }
+        return deepSeekService.validateReadingNoteAsync(walletAddress, content)
+                .thenApply(validation -> {
+                    if (validation.pass) {
+                        // 将 AI 的评语也返回给前端，笔记随打卡记录保存
+                        return Proof.passed("打卡成功 ✅ " + validation.reason, content);
+                    }
+                    if (validation.fallback) {
+                        // 审核繁忙/限流时没有真正审核笔记，不能判为不合格
+                        return Proof.deferred(validation.reason + " ⏳");
+                    }
+                    return Proof.invalid("打卡失败: " + validation.reason);
+                });
+    }
+}
@@ -0,0 +1,376 @@
+package com.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.reactivex.Flowable;
+import okhttp3.OkHttpClient;
+import org.web3j.crypto.Hash;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.websocket.events.Notification;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多 RPC 节点连接池
+ * 作为 Web3jService 交给 Web3j 使用，上层代码无需感知多节点:
+ * 读请求 (nonce、gas、回执、日志等) 发往健康且延迟 EWMA 最低的节点，网络错误时依次切换下一个节点；
+ * 连续失败达到阈值的节点在一段时间内被剔除，到期后重新参与路由，再失败会再次剔除；
+ * 写请求 (eth_sendRawTransaction) 同时广播到延迟最低的若干个节点，任一节点接受即返回。
+ * 每个节点的请求耗时 (p50/p99) 与错误数记录到 blockchain.rpc.requests 指标，按 endpoint/outcome 区分。
+ */
+public class RpcEndpointPool implements Web3jService {
+
+    private static final String METRIC_NAME = "blockchain.rpc.requests";
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final int failuresToEject;
+    private final long ejectionMs;
+    private final long failurePenaltyMs;
+    private final int broadcastCount;
+    private final long maxBlockLag;
+    private final ExecutorService executor;
+
+    public RpcEndpointPool(List<String> urls, OkHttpClient httpClient, MeterRegistry meterRegistry,
+                           int failuresToEject, long ejectionMs, int broadcastCount, long maxBlockLag) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one RPC url is required");
+        }
+        this.failuresToEject = failuresToEject;
+        this.ejectionMs = ejectionMs;
+        // 失败按读超时计入延迟，让偶发失败的节点自然排到后面
+        this.failurePenaltyMs = httpClient.readTimeoutMillis();
+        this.broadcastCount = Math.max(1, broadcastCount);
+        this.maxBlockLag = maxBlockLag;
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "rpc-pool");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < urls.size(); i++) {
+            endpoints.add(new Endpoint(i + ":" + hostOf(urls.get(i)), urls.get(i), httpClient, meterRegistry));
+        }
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if ("eth_sendRawTransaction".equals(request.getMethod())) {
+            return broadcast(request, responseType);
+        }
+        Exception lastError = null;
+        for (Endpoint endpoint : routingOrder()) {
+            long start = System.nanoTime();
+            try {
+                T response = endpoint.service.send(request, responseType);
+                endpoint.recordSuccess(System.nanoTime() - start);
+                return response;
+            } catch (IOException | ClientConnectionException e) {
+                // 连接失败、超时、HTTP 5xx/429 切换节点；JSON-RPC 业务错误正常返回，不切换
+                endpoint.recordFailure(System.nanoTime() - start);
+                lastError = e;
+            }
+        }
+        throw asIOException(lastError);
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(request, responseType);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        Exception lastError = null;
+        for (Endpoint endpoint : routingOrder()) {
+            long start = System.nanoTime();
+            try {
+                BatchResponse response = endpoint.service.sendBatch(batchRequest);
+                endpoint.recordSuccess(System.nanoTime() - start);
+                return response;
+            } catch (IOException | ClientConnectionException e) {
+                endpoint.recordFailure(System.nanoTime() - start);
+                lastError = e;
+            }
+        }
+        throw asIOException(lastError);
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendBatch(batchRequest);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public <T extends Notification<?>> Flowable<T> subscribe(Request request, String unsubscribeMethod,
+                                                            Class<T> responseType) {
+        throw new UnsupportedOperationException("Subscriptions are not supported over HTTP");
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        for (Endpoint endpoint : endpoints) {
+            endpoint.service.close();
+        }
+    }
+
+    /**
+     * 主动探测所有节点 (包括已剔除的)，刷新延迟并标记区块高度落后过多的节点
+     * 只走最优节点时其他节点的延迟不会更新，需要定期调用
+     */
+    public void probe() {
+        List<Future<?>> futures = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            futures.add(executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    EthBlockNumber response = endpoint.service.send(
+                            new Request<>("eth_blockNumber", List.of(), endpoint.service, EthBlockNumber.class),
+                            EthBlockNumber.class);
+                    endpoint.recordSuccess(System.nanoTime() - start);
+                    endpoint.blockNumber = response.hasError() ? -1 : response.getBlockNumber().longValue();
+                } catch (IOException | ClientConnectionException e) {
+                    endpoint.recordFailure(System.nanoTime() - start);
+                    endpoint.blockNumber = -1;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ignored) {
+                // 单个节点探测失败已计入该节点
+            }
+        }
+        long highest = endpoints.stream().mapToLong(e -> e.blockNumber).max().orElse(-1);
+        for (Endpoint endpoint : endpoints) {
+            endpoint.lagging = highest > 0 && endpoint.blockNumber >= 0 && highest - endpoint.blockNumber > maxBlockLag;
+        }
+    }
+
+    /**
+     * 当前各节点状态，供日志与排查使用
+     */
+    public List<String> describe() {
+        List<String> states = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            states.add(String.format("%s ewma=%.1fms failures=%d ejected=%s lagging=%s",
+                    endpoint.name, endpoint.ewmaMs, endpoint.consecutiveFailures,
+                    endpoint.isEjected(), endpoint.lagging));
+        }
+        return states;
+    }
+
+    /**
+     * 广播签名交易，任一节点接受即成功
+     * 其他节点可能因交易已经通过 P2P 传播而返回 already known，同样视为成功
+     */
+    private <T extends Response> T broadcast(Request request, Class<T> responseType) throws IOException {
+        List<Endpoint> targets = routingOrder();
+        if (targets.size() > broadcastCount) {
+            targets = targets.subList(0, broadcastCount);
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(targets.size());
+        for (Endpoint endpoint : targets) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    T response = endpoint.service.send(request, responseType);
+                    endpoint.recordSuccess(System.nanoTime() - start);
+                    return response;
+                } catch (IOException | ClientConnectionException e) {
+                    endpoint.recordFailure(System.nanoTime() - start);
+                    throw new RuntimeException(e);
+                }
+            }, executor));
+        }
+
+        CompletableFuture<T> accepted = new CompletableFuture<>();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, e) -> {
+            for (CompletableFuture<T> future : futures) {
+                if (!future.isCompletedExceptionally() && isAccepted(future.join())) {
+                    accepted.complete(withKnownHash(request, future.join()));
+                    return;
+                }
+            }
+            // 全部返回后仍未有节点接受，交给调用方按节点返回的错误处理 (如 nonce 重新对齐)
+            for (CompletableFuture<T> future : futures) {
+                if (!future.isCompletedExceptionally()) {
+                    accepted.complete(future.join());
+                    return;
+                }
+            }
+            accepted.completeExceptionally(new IOException("All RPC endpoints failed to accept transaction"));
+        });
+        for (CompletableFuture<T> future : futures) {
+            future.thenAccept(response -> {
+                if (isAccepted(response)) {
+                    accepted.complete(withKnownHash(request, response));
+                }
+            });
+        }
+
+        try {
+            return accepted.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while broadcasting transaction", e);
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        }
+    }
+
+    private static IOException asIOException(Throwable e) {
+        return e instanceof IOException ? (IOException) e : new IOException(e);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Response> T withKnownHash(Request request, T response) {
+        if (isAlreadyKnown(response)) {
+            String rawTransaction = (String) request.getParams().get(0);
+            response.setError(null);
+            ((Response<String>) response).setResult(Hash.sha3(rawTransaction));
+        }
+        return response;
+    }
+
+    private static boolean isAccepted(Response<?> response) {
+        return !response.hasError() || isAlreadyKnown(response);
+    }
+
+    private static boolean isAlreadyKnown(Response<?> response) {
+        if (!response.hasError() || response.getError().getMessage() == null) {
+            return false;
+        }
+        String message = response.getError().getMessage().toLowerCase();
+        return message.contains("already known") || message.contains("known transaction");
+    }
+
+    /**
+     * 健康节点按延迟 EWMA 升序，全部被剔除时仍按剔除到期先后尝试，避免整体不可用
+     */
+    private List<Endpoint> routingOrder() {
+        List<Endpoint> healthy = new ArrayList<>(endpoints.size());
+        List<Endpoint> unhealthy = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isEjected() || endpoint.lagging) {
+                unhealthy.add(endpoint);
+            } else {
+                healthy.add(endpoint);
+            }
+        }
+        healthy.sort(Comparator.comparingDouble(e -> e.ewmaMs));
+        unhealthy.sort(Comparator.comparingLong(e -> e.ejectedUntil));
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    private static String hostOf(String url) {
+        // 只用主机名做指标标签，避免把 URL 中的 API Key 暴露到监控
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? url : host;
+        } catch (IllegalArgumentException e) {
+            return "invalid";
+        }
+    }
+
+    private class Endpoint {
+        final String name;
+        final HttpService service;
+        final Timer successTimer;
+        final Timer errorTimer;
+        final Counter ejections;
+
+        volatile double ewmaMs;
+        volatile int consecutiveFailures;
+        volatile long ejectedUntil;
+        volatile long blockNumber = -1;
+        volatile boolean lagging;
+
+        Endpoint(String name, String url, OkHttpClient httpClient, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.service = new HttpService(url, httpClient, false);
+            this.successTimer = timer(meterRegistry, "success");
+            this.errorTimer = timer(meterRegistry, "error");
+            this.ejections = Counter.builder("blockchain.rpc.ejections")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            Gauge.builder("blockchain.rpc.latency.ewma", this, e -> e.ewmaMs)
+                    .tag("endpoint", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("blockchain.rpc.healthy", this, e -> e.isEjected() || e.lagging ? 0 : 1)
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(MeterRegistry meterRegistry, String outcome) {
+            return Timer.builder(METRIC_NAME)
+                    .tag("endpoint", name)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+
+        boolean isEjected() {
+            return ejectedUntil > System.currentTimeMillis();
+        }
+
+        synchronized void recordSuccess(long elapsedNanos) {
+            successTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            updateEwma(elapsedNanos / 1_000_000.0);
+            consecutiveFailures = 0;
+            ejectedUntil = 0;
+        }
+
+        synchronized void recordFailure(long elapsedNanos) {
+            errorTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            updateEwma(Math.max(elapsedNanos / 1_000_000.0, failurePenaltyMs));
+            consecutiveFailures++;
+            if (consecutiveFailures >= failuresToEject) {
+                ejectedUntil = System.currentTimeMillis() + ejectionMs;
+                ejections.increment();
+            }
+        }
+
+        private void updateEwma(double sampleMs) {
+            ewmaMs = ewmaMs == 0 ? sampleMs : EWMA_ALPHA * sampleMs + (1 - EWMA_ALPHA) * ewmaMs;
+        }
+    }
+}
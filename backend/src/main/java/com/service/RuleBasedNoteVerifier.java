@@ -0,0 +1,54 @@
+package com.service;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地规则审核
+ * 不依赖外部服务，按长度、字符重复度、有效字符占比与乱敲键盘特征判断，
+ * 用于离线测试、压测基线以及模型不可用时的替代。
+ */
+public class RuleBasedNoteVerifier implements NoteVerifier {
+
+    /** 连续 6 个以上辅音字母视为乱敲键盘 */
+    private static final Pattern KEYBOARD_MASH = Pattern.compile("[bcdfghjklmnpqrstvwxz]{6,}", Pattern.CASE_INSENSITIVE);
+
+    private final int minChars;
+    private final double minDistinctRatio;
+    private final double minMeaningfulRatio;
+
+    public RuleBasedNoteVerifier(int minChars, double minDistinctRatio, double minMeaningfulRatio) {
+        this.minChars = minChars;
+        this.minDistinctRatio = minDistinctRatio;
+        this.minMeaningfulRatio = minMeaningfulRatio;
+    }
+
+    @Override
+    public String name() {
+        return "rules";
+    }
+
+    @Override
+    public DeepSeekService.ValidationResult verify(String content) {
+        int[] chars = content.codePoints().filter(c -> !Character.isWhitespace(c)).toArray();
+        if (chars.length < minChars) {
+            return new DeepSeekService.ValidationResult(false, "就这几个字？至少写 " + minChars + " 个字的感悟。");
+        }
+        long distinct = Arrays.stream(chars).distinct().count();
+        if ((double) distinct / chars.length < minDistinctRatio) {
+            return new DeepSeekService.ValidationResult(false, "复制粘贴同一个字凑字数，这招骗不了我。");
+        }
+        long meaningful = Arrays.stream(chars)
+                .filter(c -> Character.isLetterOrDigit(c) || Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN)
+                .count();
+        if ((double) meaningful / chars.length < minMeaningfulRatio) {
+            return new DeepSeekService.ValidationResult(false, "满屏符号和表情，读的是天书吗？");
+        }
+        Matcher mash = KEYBOARD_MASH.matcher(content);
+        if (mash.find()) {
+            return new DeepSeekService.ValidationResult(false, "“" + mash.group() + "”是哪本书里的词？");
+        }
+        return new DeepSeekService.ValidationResult(true, "勉强过关，明天写点更有料的。");
+    }
+}
@@ -0,0 +1,154 @@
+package com.service;
+
+import com.common.Constants;
+import com.domain.entity.ChainOutbox;
+import com.domain.entity.ChallengeIndex;
+import com.mapper.ChainOutboxMapper;
+import com.mapper.ChallengeIndexMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每日惩罚巡检
+ * 业务时区零点过后检查前一天: 进行中且前一天之前已开始的挑战，在 daily_check_in 中没有当天记录即为漏打卡。
+ * 候选集由 challenge_index 与 daily_check_in 的一次反连接按主键分页取出，不按用户逐条查询；
+ * 每页候选批量写入上链发件箱 (类型 SLASH)，由 ChainOutboxWorker 发送、TxReceiptTracker 跟踪回执，
+ * 唯一键与候选查询保证同一挑战不会重复入队。超出时间预算后停止入队，剩余数量记入报告。
+ * 默认 dry-run，只输出候选与耗时，确认无误后再关闭。
+ */
+@Slf4j
+@Component
+public class SlashSweepJob {
+
+    @Value("${slash.sweep.enabled:true}")
+    private boolean enabled;
+
+    @Value("${slash.sweep.dry-run:true}")
+    private boolean dryRun;
+
+    @Value("${slash.sweep.page-size:5000}")
+    private int pageSize;
+
+    @Value("${slash.sweep.time-budget-minutes:30}")
+    private long timeBudgetMinutes;
+
+    @Autowired
+    private ChallengeIndexMapper challengeIndexMapper;
+
+    @Autowired
+    private HabitEscrowIndexer habitEscrowIndexer;
+
+    @Autowired
+    private ChainOutboxMapper chainOutboxMapper;
+
+    @Scheduled(cron = "${slash.sweep.cron:0 10 0 * * *}", zone = Constants.ZONE_ID)
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate yesterday = LocalDate.now(ZoneId.of(Constants.ZONE_ID)).minusDays(1);
+        try {
+            SweepReport report = run(yesterday, dryRun);
+            log.info("惩罚巡检完成: {}", report);
+        } catch (Exception e) {
+            log.error("惩罚巡检失败: day={}", yesterday, e);
+        }
+    }
+
+    /**
+     * 检查指定日期的漏打卡并把惩罚写入发件箱
+     * @param day 检查的打卡日期 (业务时区)
+     * @param dryRun 为 true 时只统计候选，不入队
+     */
+    public SweepReport run(LocalDate day, boolean dryRun) throws Exception {
+        SweepReport report = new SweepReport();
+        report.setDay(day);
+        report.setDryRun(dryRun);
+        long startedAt = System.currentTimeMillis();
+        long deadline = startedAt + TimeUnit.MINUTES.toMillis(timeBudgetMinutes);
+
+        // 1. 先把读模型同步到安全高度，避免把刚创建/刚完成的挑战判错
+        long phaseStart = System.currentTimeMillis();
+        habitEscrowIndexer.syncOnce();
+        report.setIndexSyncMs(System.currentTimeMillis() - phaseStart);
+
+        LocalDateTime dayStart = day.atStartOfDay();
+        long afterId = 0;
+
+        while (true) {
+            // 2. 候选查询
+            phaseStart = System.currentTimeMillis();
+            List<ChallengeIndex> page = challengeIndexMapper.selectMissedCheckIns(day, dayStart, afterId, pageSize);
+            report.setQueryMs(report.getQueryMs() + System.currentTimeMillis() - phaseStart);
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            report.setCandidates(report.getCandidates() + page.size());
+
+            if (dryRun) {
+                continue;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                report.setSkipped(report.getSkipped() + page.size());
+                continue;
+            }
+
+            // 3. 整页写入发件箱 (一条 INSERT)
+            phaseStart = System.currentTimeMillis();
+            LocalDateTime now = LocalDateTime.now();
+            List<ChainOutbox> rows = new ArrayList<>(page.size());
+            for (ChallengeIndex candidate : page) {
+                ChainOutbox outbox = new ChainOutbox();
+                outbox.setWalletAddress(candidate.getUserAddress());
+                outbox.setChallengeId(candidate.getChallengeId());
+                outbox.setCheckInDate(day);
+                outbox.setKind(Constants.OUTBOX_KIND_SLASH);
+                outbox.setStatus(Constants.TX_STATUS_PENDING);
+                outbox.setAttempts(0);
+                outbox.setNextAttemptAt(now);
+                outbox.setCreatedAt(now);
+                outbox.setUpdatedAt(now);
+                rows.add(outbox);
+            }
+            chainOutboxMapper.insertBatch(rows);
+            report.setEnqueued(report.getEnqueued() + rows.size());
+            report.setEnqueueMs(report.getEnqueueMs() + System.currentTimeMillis() - phaseStart);
+        }
+
+        report.setTotalMs(System.currentTimeMillis() - startedAt);
+        if (report.getSkipped() > 0) {
+            log.warn("惩罚巡检超出时间预算 {} 分钟，{} 条候选未入队", timeBudgetMinutes, report.getSkipped());
+        }
+        return report;
+    }
+
+    /**
+     * 巡检报告，各阶段耗时单位为毫秒
+     */
+    @Data
+    public static class SweepReport {
+        private LocalDate day;
+        private boolean dryRun;
+        private int candidates;
+        /** 写入发件箱的候选数 (已入队的挑战由唯一键去重) */
+        private int enqueued;
+        /** 超出时间预算未入队的候选数 */
+        private int skipped;
+        private long indexSyncMs;
+        private long queryMs;
+        private long enqueueMs;
+        private long totalMs;
+    }
+}
@@ -0,0 +1,49 @@
+package com.service;
+
+import com.domain.entity.StravaConnection;
+import com.domain.entity.StravaRunCriteria;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Strava 跑步验证: 按挑战的达标条件检查，已接入推送订阅的用户只查本地台账
+ */
+@Component
+public class StravaProofVerifier implements ProofVerifier {
+
+    @Value("${checkin.pipeline.strava.timeout-ms:15000}")
+    private long timeoutMs;
+
+    @Autowired
+    private StravaService stravaService;
+
+    @Autowired
+    private StravaRunLedger stravaRunLedger;
+
+    @Autowired
+    private StravaRunCriteriaService stravaRunCriteriaService;
+
+    @Override
+    public String type() {
+        return "strava";
+    }
+
+    @Override
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+
+    @Override
+    public Proof verify(String walletAddress, Long challengeId, String content) {
+        StravaConnection connection = stravaService.getConnection(walletAddress);
+        if (connection == null) {
+            return Proof.invalid("请先连接 Strava");
+        }
+        StravaRunCriteria criteria = stravaRunCriteriaService.resolve(walletAddress, challengeId);
+        if (stravaRunLedger.checkRunToday(connection, criteria)) {
+            return Proof.passed("今日跑步已达标 ✅", null);
+        }
+        return Proof.notMet("今日尚未检测到有效的跑步记录 ❌");
+    }
+}
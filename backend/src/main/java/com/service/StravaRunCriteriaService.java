@@ -0,0 +1,85 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.domain.entity.StravaRunCriteria;
+import com.mapper.StravaRunCriteriaMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+/**
+ * Strava 跑步达标条件
+ * 挑战在 strava_run_criteria 中配置了条件时按其判断，否则使用 strava.criteria.* 默认条件
+ */
+@Service
+public class StravaRunCriteriaService {
+
+    @Value("${strava.criteria.activity-types:Run}")
+    private String activityTypes;
+
+    @Value("${strava.criteria.min-distance-m:0}")
+    private int minDistanceM;
+
+    @Value("${strava.criteria.min-moving-time-s:0}")
+    private int minMovingTimeS;
+
+    @Autowired
+    private StravaRunCriteriaMapper stravaRunCriteriaMapper;
+
+    /**
+     * 默认条件 (id 为空)
+     */
+    public StravaRunCriteria defaults() {
+        StravaRunCriteria criteria = new StravaRunCriteria();
+        criteria.setActivityTypes(activityTypes);
+        criteria.setMinDistanceM(minDistanceM);
+        criteria.setMinMovingTimeS(minMovingTimeS);
+        return criteria;
+    }
+
+    /**
+     * 查询挑战的达标条件，未配置时返回默认条件
+     */
+    public StravaRunCriteria resolve(String walletAddress, Long challengeId) {
+        if (challengeId == null) {
+            return defaults();
+        }
+        StravaRunCriteria criteria = stravaRunCriteriaMapper.selectOne(new LambdaQueryWrapper<StravaRunCriteria>()
+                .eq(StravaRunCriteria::getUserAddress, walletAddress.toLowerCase())
+                .eq(StravaRunCriteria::getChallengeId, challengeId));
+        return criteria != null ? criteria : defaults();
+    }
+
+    public static boolean isDefault(StravaRunCriteria criteria) {
+        return criteria.getId() == null;
+    }
+
+    /**
+     * 活动是否满足条件
+     * 距离为 0 的活动 (如手动记录的时长) 一律不算
+     */
+    public static boolean matches(StravaRunCriteria criteria, StravaService.ActivitySummary activity) {
+        if (activity.getDistance() <= 0) {
+            return false;
+        }
+        String types = criteria.getActivityTypes();
+        if (types != null && !types.isBlank() && Arrays.stream(types.split(","))
+                .map(String::trim)
+                .noneMatch(t -> t.equalsIgnoreCase(activity.getSportType()) || t.equalsIgnoreCase(activity.getType()))) {
+            return false;
+        }
+        if (criteria.getMinDistanceM() != null && activity.getDistance() < criteria.getMinDistanceM()) {
+            return false;
+        }
+        if (criteria.getMinMovingTimeS() != null && activity.getMovingTime() < criteria.getMinMovingTimeS()) {
+            return false;
+        }
+        double pace = activity.getMovingTime() / (activity.getDistance() / 1000.0);
+        if (criteria.getMinPaceSPerKm() != null && pace < criteria.getMinPaceSPerKm()) {
+            return false;
+        }
+        return criteria.getMaxPaceSPerKm() == null || pace <= criteria.getMaxPaceSPerKm();
+    }
+}
@@ -0,0 +1,98 @@
+package com.service;
+
+import com.common.Constants;
+import com.domain.entity.StravaConnection;
+import com.domain.entity.StravaRunCriteria;
+import com.mapper.StravaRunDayMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Strava 每日跑步台账
+ * strava_run_day 是唯一的事实来源: 推送事件可能由任一实例处理 (包括删除活动)，
+ * 进程内缓存看不到其他实例的写入/删除，因此查询直接走 (connection_id, run_date) 唯一索引；
+ * 推送事件写入台账后，打卡检测只查本地，不再调用 Strava 活动接口。
+ */
+@Service
+public class StravaRunLedger {
+
+    /**
+     * 推送活跃有效期: 超过该时长未收到事件则回退到活动接口
+     */
+    @Value("${strava.webhook.active-hours:24}")
+    private long webhookActiveHours;
+
+    /**
+     * 未配置订阅时推送不可用，残留的活跃时间一律不认
+     */
+    @Value("${strava.webhook.subscription-id:0}")
+    private long subscriptionId;
+
+    @Autowired
+    private StravaRunDayMapper stravaRunDayMapper;
+
+    @Autowired
+    private StravaService stravaService;
+
+    public LocalDate today() {
+        return LocalDate.now(ZoneId.of(Constants.ZONE_ID));
+    }
+
+    /**
+     * 记录达标跑步 (INSERT IGNORE，重复事件无副作用)
+     */
+    public void markRun(Long connectionId, LocalDate day, Long activityId) {
+        stravaRunDayMapper.insertIgnore(connectionId, day, activityId);
+    }
+
+    public boolean hasRun(Long connectionId, LocalDate day) {
+        return stravaRunDayMapper.existsRun(connectionId, day);
+    }
+
+    /**
+     * 撤销以该活动记账的记录 (活动被删除或修改后不再达标)
+     * @return 是否撤销了今日的记录，调用方需要重新核对今日是否还有其他达标跑步
+     */
+    public boolean revokeRun(Long connectionId, Long activityId) {
+        List<LocalDate> days = stravaRunDayMapper.selectRunDates(connectionId, activityId);
+        if (days.isEmpty()) {
+            return false;
+        }
+        stravaRunDayMapper.deleteByActivity(connectionId, activityId);
+        return days.contains(today());
+    }
+
+    /**
+     * 今日是否有达标跑步
+     * 台账只记录满足默认条件的跑步: 挑战配置了专门条件时直接按条件查询活动接口；
+     * 否则先查台账，未命中时近期收到过推送事件的用户判定未跑，其余用户回退到活动接口，查到后同样记入台账
+     */
+    public boolean checkRunToday(StravaConnection connection, StravaRunCriteria criteria) {
+        if (!StravaRunCriteriaService.isDefault(criteria)) {
+            return stravaService.checkRunningToday(connection, criteria);
+        }
+        LocalDate today = today();
+        if (hasRun(connection.getId(), today)) {
+            return true;
+        }
+        if (isWebhookActive(connection.getWebhookActiveAt())) {
+            return false;
+        }
+        boolean ran = stravaService.checkRunningToday(connection, criteria);
+        if (ran) {
+            markRun(connection.getId(), today, null);
+        }
+        return ran;
+    }
+
+    private boolean isWebhookActive(LocalDateTime activeAt) {
+        return subscriptionId > 0 && activeAt != null
+                && activeAt.isAfter(LocalDateTime.now().minusHours(webhookActiveHours));
+    }
+}
@@ -2,6 +2,7 @@ package com.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.domain.entity.StravaConnection;
+import com.domain.entity.StravaRunCriteria;
 import com.mapper.StravaConnectionMapper;
 import javastrava.api.v3.auth.AuthorisationService;
 import javastrava.api.v3.auth.impl.retrofit.AuthorisationServiceImpl;
@@ -22,6 +23,16 @@ import java.util.List;
 @Service
 public class StravaService {
 
+    private static final String ACTIVITIES_URL =
+            "https://www.strava.com/api/v3/athlete/activities?after={after}&page={page}&per_page={perPage}";
+    private static final com.fasterxml.jackson.core.JsonFactory JSON_FACTORY = new com.fasterxml.jackson.core.JsonFactory();
+
+    @Value("${strava.activities.per-page:50}")
+    private int perPage;
+
+    @Value("${strava.activities.max-pages:10}")
+    private int maxPages;
+
     @Value("${strava.client-id}")
     private Integer clientId;
 
@@ -31,6 +42,19 @@ public class StravaService {
     @Autowired
     private StravaConnectionMapper stravaConnectionMapper;
 
+    @Autowired
+    private ConnectionCache connectionCache;
+
+    @Autowired
+    private StravaTokenManager stravaTokenManager;
+
+    @Autowired
+    private StravaRunCriteriaService stravaRunCriteriaService;
+
+    @Autowired
+    @org.springframework.beans.factory.annotation.Qualifier("stravaRestTemplate")
+    private org.springframework.web.client.RestTemplate restTemplate;
+
     @Autowired
     private com.fasterxml.jackson.databind.ObjectMapper objectMapper;
 
@@ -40,8 +64,6 @@ public class StravaService {
     public void handleCallback(String walletAddress, String code) {
         // 使用 RestTemplate 手动调用 Strava API
         // 避免 javastrava-api 的配置问题
-        org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate();
-        
         org.springframework.util.MultiValueMap<String, String> map = new org.springframework.util.LinkedMultiValueMap<>();
         map.add("client_id", String.valueOf(clientId));
         map.add("client_secret", clientSecret);
@@ -71,6 +93,10 @@ public class StravaService {
                 connection.setRefreshToken(refreshToken);
                 // ExpiresAt 是秒数，转换为 LocalDateTime
                 connection.setExpiresAt(java.time.Instant.ofEpochSecond(expiresAt).atZone(ZoneId.of("Asia/Shanghai")).toLocalDateTime());
+                // 重新授权后清除刷新失败状态
+                connection.setRefreshFailures(0);
+                connection.setRefreshRetryAt(LocalDateTime.now());
+                connection.setRefreshRevoked(false);
 
                 StravaConnection existing = stravaConnectionMapper.selectOne(
                         new LambdaQueryWrapper<StravaConnection>().eq(StravaConnection::getWalletAddress, walletAddress)
@@ -78,6 +104,7 @@ public class StravaService {
 
                 if (existing != null) {
                     connection.setId(existing.getId());
+                    connection.setVersion(existing.getVersion());
                     connection.setUpdatedAt(LocalDateTime.now());
                     stravaConnectionMapper.updateById(connection);
                 } else {
@@ -85,6 +112,7 @@ public class StravaService {
                     connection.setUpdatedAt(LocalDateTime.now());
                     stravaConnectionMapper.insert(connection);
                 }
+                connectionCache.invalidateStrava(walletAddress);
             } else {
                 throw new RuntimeException("Strava Auth failed: " + response.getStatusCode());
             }
@@ -93,56 +121,59 @@ public class StravaService {
         }
     }
 
+    /**
+     * 根据钱包地址获取 Strava 连接 (经由 ConnectionCache，返回的实例不要修改)
+     */
     public StravaConnection getConnection(String walletAddress) {
-        return stravaConnectionMapper.selectOne(
+        return connectionCache.strava(walletAddress, () -> stravaConnectionMapper.selectOne(
                 new LambdaQueryWrapper<StravaConnection>().eq(StravaConnection::getWalletAddress, walletAddress)
-        );
+        ));
     }
 
     /**
-     * 检查用户今日是否跑步超过 5km (或任意距离)
+     * 检查用户今日是否有满足默认条件的跑步
      */
     public boolean checkRunningToday(String walletAddress) {
         StravaConnection connection = getConnection(walletAddress);
         if (connection == null) return false;
+        return checkRunningToday(connection, stravaRunCriteriaService.defaults());
+    }
 
-        String accessToken = connection.getAccessToken();
-
-        // 使用 RestTemplate 手动调用 Strava API 获取活动
-        org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate();
-        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-        headers.setBearerAuth(accessToken);
-        org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
+    /**
+     * 调用活动列表接口检查今日是否有达标跑步 (未接入推送订阅或挑战配置了专门条件时使用)
+     * 按 page/per_page 翻页，响应流式解析，找到第一个达标活动即停止，不构建整页的 JSON 树
+     */
+    public boolean checkRunningToday(StravaConnection connection, StravaRunCriteria criteria) {
+        String accessToken;
+        try {
+            // 临近过期时先刷新 (通常已由后台任务提前刷新)
+            accessToken = stravaTokenManager.getAccessToken(connection);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
 
         try {
             // 获取今日之后的活动 (epoch seconds)
-            // Strava API: /athlete/activities?after={epoch}
             long startOfDayEpoch = java.time.LocalDate.now(ZoneId.of("Asia/Shanghai"))
                     .atStartOfDay(ZoneId.of("Asia/Shanghai"))
                     .toEpochSecond();
 
-            String url = "https://www.strava.com/api/v3/athlete/activities?after=" + startOfDayEpoch;
-            
-            org.springframework.http.ResponseEntity<String> response = restTemplate.exchange(
-                    url, 
-                    org.springframework.http.HttpMethod.GET, 
-                    entity, 
-                    String.class
-            );
-
-            if (response.getStatusCode() == org.springframework.http.HttpStatus.OK) {
-                com.fasterxml.jackson.databind.JsonNode activities = objectMapper.readTree(response.getBody());
-                
-                if (activities.isArray()) {
-                    for (com.fasterxml.jackson.databind.JsonNode activity : activities) {
-                        String type = activity.path("type").asText();
-                        double distance = activity.path("distance").asDouble(); // 米
-
-                        // 检查是否是跑步且距离 > 0
-                        if ("Run".equalsIgnoreCase(type) && distance > 0) {
-                            return true;
-                        }
-                    }
+            for (int page = 1; page <= maxPages; page++) {
+                ActivityPage result = restTemplate.execute(ACTIVITIES_URL,
+                        org.springframework.http.HttpMethod.GET,
+                        request -> request.getHeaders().setBearerAuth(accessToken),
+                        response -> scanActivities(response.getBody(),
+                                activity -> StravaRunCriteriaService.matches(criteria, activity)),
+                        startOfDayEpoch, page, perPage);
+                if (result == null) {
+                    return false;
+                }
+                if (result.matched != null) {
+                    return true;
+                }
+                if (result.count < perPage) {
+                    return false;
                 }
             }
         } catch (Exception e) {
@@ -152,6 +183,118 @@ public class StravaService {
 
         return false;
     }
+
+    /**
+     * 获取单个活动 (推送事件只带活动ID)
+     * @return 活动摘要，不存在或无权访问时返回 null
+     */
+    public ActivitySummary getActivity(StravaConnection connection, long activityId) {
+        String accessToken = stravaTokenManager.getAccessToken(connection);
+        try {
+            return restTemplate.execute("https://www.strava.com/api/v3/activities/{id}",
+                    org.springframework.http.HttpMethod.GET,
+                    request -> request.getHeaders().setBearerAuth(accessToken),
+                    response -> {
+                        try (com.fasterxml.jackson.core.JsonParser parser = JSON_FACTORY.createParser(response.getBody())) {
+                            return parser.nextToken() == com.fasterxml.jackson.core.JsonToken.START_OBJECT
+                                    ? readActivity(parser) : null;
+                        }
+                    },
+                    activityId);
+        } catch (org.springframework.web.client.HttpClientErrorException.NotFound e) {
+            return null;
+        }
+    }
+
+    /**
+     * 流式扫描活动数组，遇到第一个满足条件的活动即停止解析；
+     * 剩余内容直接读完丢弃 (不解析)，连接读到 EOF 后才能回到连接池复用
+     */
+    static ActivityPage scanActivities(java.io.InputStream body,
+                                       java.util.function.Predicate<ActivitySummary> qualifies) throws java.io.IOException {
+        ActivityPage page = new ActivityPage();
+        try (com.fasterxml.jackson.core.JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != com.fasterxml.jackson.core.JsonToken.START_ARRAY) {
+                return page;
+            }
+            while (parser.nextToken() == com.fasterxml.jackson.core.JsonToken.START_OBJECT) {
+                ActivitySummary activity = readActivity(parser);
+                page.count++;
+                if (qualifies.test(activity)) {
+                    page.matched = activity;
+                    body.transferTo(java.io.OutputStream.nullOutputStream());
+                    return page;
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 读取当前活动对象中需要的字段，其余 (地图、分段等) 整体跳过，读完停在对象结束处
+     */
+    private static ActivitySummary readActivity(com.fasterxml.jackson.core.JsonParser parser) throws java.io.IOException {
+        ActivitySummary activity = new ActivitySummary();
+        while (parser.nextToken() == com.fasterxml.jackson.core.JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    activity.setId(parser.getValueAsLong());
+                    break;
+                case "type":
+                    activity.setType(parser.getValueAsString());
+                    break;
+                case "sport_type":
+                    activity.setSportType(parser.getValueAsString());
+                    break;
+                case "distance":
+                    activity.setDistance(parser.getValueAsDouble());
+                    break;
+                case "moving_time":
+                    activity.setMovingTime(parser.getValueAsLong());
+                    break;
+                case "start_date":
+                    activity.setStartDate(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return activity;
+    }
+
+    /**
+     * 活动摘要 (只保留达标判断需要的字段)
+     */
+    @lombok.Data
+    public static class ActivitySummary {
+        private long id;
+        private String type;
+        private String sportType;
+        /** 米 */
+        private double distance;
+        /** 秒 */
+        private long movingTime;
+        /** UTC 开始时间 (ISO-8601) */
+        private String startDate;
+
+        /**
+         * 开始时间对应的业务日期 (Asia/Shanghai)
+         */
+        public java.time.LocalDate localDate() {
+            if (startDate == null) {
+                return null;
+            }
+            return java.time.Instant.parse(startDate).atZone(ZoneId.of("Asia/Shanghai")).toLocalDate();
+        }
+    }
+
+    static class ActivityPage {
+        int count;
+        ActivitySummary matched;
+    }
     
     public String getAuthUrl(String redirectUrl) {
          // 手动构造 URL，因为库可能会检查旧的端点
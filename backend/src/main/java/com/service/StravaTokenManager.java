@@ -0,0 +1,200 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.common.Constants;
+import com.domain.entity.StravaConnection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mapper.StravaConnectionMapper;
+import com.utils.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Strava Access Token 管理
+ * token 在 expiresAt 前的刷新窗口内即刷新；同一运动员的并发刷新只发一次请求 (single-flight)，
+ * 新 token 通过乐观锁版本号写回，版本冲突说明其他实例已刷新，直接读取数据库中的结果。
+ * 后台任务按过期时间先后提前刷新近期活跃用户的 token，请求路径上通常不需要等待刷新。
+ * 刷新失败按指数退避推迟下次后台刷新；Strava 拒绝刷新令牌 (400/401，如 invalid_grant) 时标记失效，
+ * 用户重新连接前不再请求。
+ */
+@Slf4j
+@Service
+public class StravaTokenManager {
+
+    private static final String TOKEN_URL = "https://www.strava.com/oauth/token";
+
+    @Value("${strava.client-id}")
+    private Integer clientId;
+
+    @Value("${strava.client-secret}")
+    private String clientSecret;
+
+    @Value("${strava.token.refresh-window-minutes:10}")
+    private long refreshWindowMinutes;
+
+    @Value("${strava.token.pre-refresh-window-minutes:60}")
+    private long preRefreshWindowMinutes;
+
+    @Value("${strava.token.active-days:7}")
+    private int activeDays;
+
+    @Value("${strava.token.pre-refresh-batch:200}")
+    private int preRefreshBatch;
+
+    @Value("${strava.token.retry-base-minutes:5}")
+    private long retryBaseMinutes;
+
+    @Value("${strava.token.retry-max-minutes:360}")
+    private long retryMaxMinutes;
+
+    @Autowired
+    private StravaConnectionMapper stravaConnectionMapper;
+
+    @Autowired
+    private ConnectionCache connectionCache;
+
+    @Autowired
+    @Qualifier("stravaRestTemplate")
+    private RestTemplate restTemplate;
+
+    private final SingleFlight<Long, StravaConnection> refreshes = new SingleFlight<>();
+
+    /**
+     * 获取可用的 Access Token，临近过期时先刷新
+     */
+    public String getAccessToken(StravaConnection connection) {
+        if (Boolean.TRUE.equals(connection.getRefreshRevoked())) {
+            throw new IllegalStateException("Strava 授权已失效，请重新连接");
+        }
+        if (!needsRefresh(connection, refreshWindowMinutes)) {
+            return connection.getAccessToken();
+        }
+        return refresh(connection, refreshWindowMinutes).getAccessToken();
+    }
+
+    /**
+     * 刷新 token，同一运动员的并发调用共享同一次刷新
+     * @param windowMinutes 数据库中的 token 距过期超过该时长时视为已被刷新，不再请求
+     */
+    private StravaConnection refresh(StravaConnection connection, long windowMinutes) {
+        return refreshes.execute(connection.getStravaAthleteId(), () -> doRefresh(connection.getId(), windowMinutes));
+    }
+
+    /**
+     * 提前刷新即将过期且近期活跃的用户
+     */
+    @Scheduled(fixedDelayString = "${strava.token.pre-refresh-interval-ms:300000}")
+    public void preRefresh() {
+        ZoneId zone = ZoneId.of(Constants.ZONE_ID);
+        LocalDateTime now = LocalDateTime.now(zone);
+        List<StravaConnection> expiring = stravaConnectionMapper.selectExpiringActive(
+                now.plusMinutes(preRefreshWindowMinutes), now,
+                LocalDate.now(zone).minusDays(activeDays),
+                preRefreshBatch);
+        for (StravaConnection connection : expiring) {
+            try {
+                refresh(connection, preRefreshWindowMinutes);
+            } catch (Exception e) {
+                log.warn("Strava token 预刷新失败: athleteId={}, {}", connection.getStravaAthleteId(), e.getMessage());
+            }
+        }
+        if (!expiring.isEmpty()) {
+            log.info("Strava token 预刷新 {} 个", expiring.size());
+        }
+    }
+
+    private StravaConnection doRefresh(Long connectionId, long windowMinutes) {
+        // 以数据库为准: 其他实例可能已经刷新
+        StravaConnection current = stravaConnectionMapper.selectById(connectionId);
+        if (current == null) {
+            throw new IllegalStateException("Strava connection not found: " + connectionId);
+        }
+        if (Boolean.TRUE.equals(current.getRefreshRevoked())) {
+            throw new IllegalStateException("Strava 授权已失效，请重新连接");
+        }
+        if (!needsRefresh(current, windowMinutes)) {
+            return current;
+        }
+
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("client_id", String.valueOf(clientId));
+        form.add("client_secret", clientSecret);
+        form.add("grant_type", "refresh_token");
+        form.add("refresh_token", current.getRefreshToken());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        JsonNode root;
+        try {
+            root = restTemplate.postForObject(TOKEN_URL, new HttpEntity<>(form, headers), JsonNode.class);
+        } catch (HttpClientErrorException.BadRequest | HttpClientErrorException.Unauthorized e) {
+            markFailed(current, true);
+            throw e;
+        } catch (RuntimeException e) {
+            markFailed(current, false);
+            throw e;
+        }
+        if (root == null || root.path("access_token").asText().isEmpty()) {
+            markFailed(current, false);
+            throw new IllegalStateException("Strava token refresh returned no access_token");
+        }
+
+        current.setAccessToken(root.path("access_token").asText());
+        current.setRefreshToken(root.path("refresh_token").asText(current.getRefreshToken()));
+        current.setExpiresAt(Instant.ofEpochSecond(root.path("expires_at").asLong())
+                .atZone(ZoneId.of(Constants.ZONE_ID)).toLocalDateTime());
+        current.setRefreshFailures(0);
+        current.setRefreshRetryAt(LocalDateTime.now(ZoneId.of(Constants.ZONE_ID)));
+        current.setUpdatedAt(LocalDateTime.now());
+        boolean updated = stravaConnectionMapper.updateById(current) > 0;
+        connectionCache.invalidateStrava(current.getWalletAddress());
+        if (!updated) {
+            // 版本冲突: 其他实例先写入，使用其结果
+            StravaConnection latest = stravaConnectionMapper.selectById(connectionId);
+            return latest != null ? latest : current;
+        }
+        return current;
+    }
+
+    /**
+     * 记录刷新失败: 令牌被拒绝时标记失效，否则按连续失败次数退避
+     */
+    private void markFailed(StravaConnection connection, boolean revoked) {
+        int failures = (connection.getRefreshFailures() == null ? 0 : connection.getRefreshFailures()) + 1;
+        long delay = Math.min(retryBaseMinutes << Math.min(failures - 1, 16), retryMaxMinutes);
+        LambdaUpdateWrapper<StravaConnection> update = new LambdaUpdateWrapper<>();
+        update.eq(StravaConnection::getId, connection.getId())
+              .set(StravaConnection::getRefreshFailures, failures)
+              .set(StravaConnection::getRefreshRetryAt, LocalDateTime.now(ZoneId.of(Constants.ZONE_ID)).plusMinutes(delay))
+              .set(StravaConnection::getUpdatedAt, LocalDateTime.now());
+        if (revoked) {
+            update.set(StravaConnection::getRefreshRevoked, true);
+        }
+        stravaConnectionMapper.update(null, update);
+        connectionCache.invalidateStrava(connection.getWalletAddress());
+        if (revoked) {
+            log.warn("Strava 刷新令牌已失效，等待用户重新连接: athleteId={}", connection.getStravaAthleteId());
+        }
+    }
+
+    private static boolean needsRefresh(StravaConnection connection, long windowMinutes) {
+        return connection.getExpiresAt() == null || connection.getExpiresAt()
+                .isBefore(LocalDateTime.now(ZoneId.of(Constants.ZONE_ID)).plusMinutes(windowMinutes));
+    }
+}
@@ -0,0 +1,182 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.domain.entity.StravaConnection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mapper.StravaConnectionMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Strava 推送订阅 (Push Subscription) 处理
+ * 订阅需在 Strava 侧创建一次 (POST /api/v3/push_subscriptions，callback_url 指向 /agent/strava/webhook)。
+ * Strava 要求 2 秒内响应，事件只带对象ID，因此接收后异步处理:
+ * 活动 create/update 时拉取一次活动详情，满足默认条件则记入 StravaRunLedger；
+ * 活动被删除或修改后不再达标时撤销对应记录。处理成功后才刷新推送活跃时间，
+ * 处理失败的用户在有效期过后自然回退到轮询。未配置订阅ID时不接收事件，全部走轮询。
+ */
+@Slf4j
+@Service
+public class StravaWebhookService {
+
+    @Value("${strava.webhook.verify-token:}")
+    private String verifyToken;
+
+    /**
+     * 订阅ID (创建订阅时 Strava 返回)，只接受该订阅的事件；未配置时关闭推送
+     */
+    @Value("${strava.webhook.subscription-id:0}")
+    private long subscriptionId;
+
+    @Autowired
+    private StravaConnectionMapper stravaConnectionMapper;
+
+    @Autowired
+    private ConnectionCache connectionCache;
+
+    @Autowired
+    private StravaService stravaService;
+
+    @Autowired
+    private StravaRunLedger stravaRunLedger;
+
+    @Autowired
+    private StravaRunCriteriaService stravaRunCriteriaService;
+
+    /**
+     * 有界队列: 突发事件过多时丢弃，未处理的用户仍可走轮询兜底
+     */
+    private final ExecutorService executor = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(10_000), r -> {
+                Thread thread = new Thread(r, "strava-webhook");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @PostConstruct
+    public void init() {
+        if (subscriptionId <= 0) {
+            log.info("未配置 strava.webhook.subscription-id，Strava 推送关闭，跑步检测使用轮询");
+        }
+    }
+
+    public boolean isEnabled() {
+        return subscriptionId > 0;
+    }
+
+    /**
+     * 订阅校验握手: hub.verify_token 与配置一致时回显 hub.challenge
+     * @return 校验失败返回 null
+     */
+    public String verifySubscription(String mode, String token, String challenge) {
+        if (!isEnabled() || verifyToken.isEmpty() || !"subscribe".equals(mode) || !verifyToken.equals(token)) {
+            return null;
+        }
+        return challenge;
+    }
+
+    /**
+     * 接收事件，立即返回，后台处理
+     */
+    public void receive(JsonNode event) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (event.path("subscription_id").asLong() != subscriptionId) {
+            log.warn("忽略未知订阅的 Strava 事件: {}", event.path("subscription_id").asText());
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    handle(event);
+                } catch (Exception e) {
+                    log.error("处理 Strava 推送事件失败: {}", event, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Strava 推送事件被拒绝: {}", e.getMessage());
+        }
+    }
+
+    void handle(JsonNode event) {
+        String objectType = event.path("object_type").asText();
+        String aspectType = event.path("aspect_type").asText();
+        long ownerId = event.path("owner_id").asLong();
+
+        StravaConnection connection = findByAthlete(ownerId);
+        if (connection == null) {
+            log.debug("收到未绑定用户的 Strava 事件: athleteId={}", ownerId);
+            return;
+        }
+
+        if ("athlete".equals(objectType)) {
+            // 取消授权后回退到轮询 (连接本身由用户重新授权时覆盖)
+            if ("false".equals(event.path("updates").path("authorized").asText())) {
+                setWebhookActiveAt(connection, null);
+                log.info("Strava 运动员取消授权: athleteId={}", ownerId);
+            }
+            return;
+        }
+        if (!"activity".equals(objectType)) {
+            return;
+        }
+
+        long activityId = event.path("object_id").asLong();
+        if ("delete".equals(aspectType)) {
+            revoke(connection, activityId);
+        } else if ("create".equals(aspectType) || "update".equals(aspectType)) {
+            // 台账按默认条件记录，配置了专门条件的挑战在检测时单独查询
+            StravaService.ActivitySummary activity = stravaService.getActivity(connection, activityId);
+            LocalDate day = activity == null ? null : activity.localDate();
+            if (day != null && StravaRunCriteriaService.matches(stravaRunCriteriaService.defaults(), activity)) {
+                stravaRunLedger.markRun(connection.getId(), day, activityId);
+            } else {
+                revoke(connection, activityId);
+            }
+        }
+        // 处理成功才刷新，长时间收不到 (或处理不了) 事件时由台账回退到活动接口
+        setWebhookActiveAt(connection, LocalDateTime.now());
+    }
+
+    /**
+     * 撤销该活动的记账；撤销的是今日记录时重新核对今日是否还有其他达标跑步
+     */
+    private void revoke(StravaConnection connection, long activityId) {
+        if (stravaRunLedger.revokeRun(connection.getId(), activityId)
+                && stravaService.checkRunningToday(connection, stravaRunCriteriaService.defaults())) {
+            stravaRunLedger.markRun(connection.getId(), stravaRunLedger.today(), null);
+        }
+    }
+
+    private StravaConnection findByAthlete(long athleteId) {
+        return stravaConnectionMapper.selectOne(new LambdaQueryWrapper<StravaConnection>()
+                .eq(StravaConnection::getStravaAthleteId, athleteId));
+    }
+
+    private void setWebhookActiveAt(StravaConnection connection, LocalDateTime activeAt) {
+        LambdaUpdateWrapper<StravaConnection> update = new LambdaUpdateWrapper<>();
+        update.eq(StravaConnection::getStravaAthleteId, connection.getStravaAthleteId())
+              .set(StravaConnection::getWebhookActiveAt, activeAt);
+        stravaConnectionMapper.update(null, update);
+        connectionCache.invalidateStrava(connection.getWalletAddress());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,340 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.common.Constants;
+import com.domain.DailyCheckIn;
+import com.domain.entity.ChainOutbox;
+import com.mapper.ChainOutboxMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 交易回执跟踪
+ * 每个周期把所有已发送未确认的交易哈希合并为一次 JSON-RPC 批量请求查询回执，
+ * 轮询开销与在途交易数量无关。已打包的回写 CONFIRMED/REVERTED，
+ * 超时仍未打包或已被节点丢弃的交易以原 nonce 提高 gas price 替换，
+ * 同一 nonce 的原交易与替换交易最多只有一笔上链，被替换的哈希也会一并查询。
+ * 发件箱中的 slash 交易同样按批查询回执，超时未打包的按原 nonce 重发同一签名交易。
+ */
+@Slf4j
+@Component
+public class TxReceiptTracker {
+
+    @Value("${tx-tracker.max-per-tick:500}")
+    private int maxPerTick;
+
+    @Value("${tx-tracker.resubmit-after-minutes:10}")
+    private long resubmitAfterMinutes;
+
+    @Value("${tx-tracker.fee-bump-percent:20}")
+    private int feeBumpPercent;
+
+    @Value("${tx-tracker.max-resubmits:5}")
+    private int maxResubmits;
+
+    @Autowired
+    private BlockchainService blockchainService;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private ChainOutboxMapper chainOutboxMapper;
+
+    @Scheduled(fixedDelayString = "${tx-tracker.poll-interval-ms:15000}")
+    public void poll() {
+        pollCheckIns();
+        pollSlashes();
+    }
+
+    private void pollCheckIns() {
+        try {
+            List<DailyCheckIn> inFlight = checkInService.listInFlight(maxPerTick);
+            if (inFlight.isEmpty()) {
+                return;
+            }
+
+            // 批量交易下多条打卡共享一个哈希
+            Map<String, List<DailyCheckIn>> byHash = new LinkedHashMap<>();
+            for (DailyCheckIn checkIn : inFlight) {
+                byHash.computeIfAbsent(checkIn.getTxHash(), k -> new ArrayList<>()).add(checkIn);
+            }
+
+            // 被替换的历史交易可能先于替换交易打包，一起查询
+            List<String> hashes = new ArrayList<>(byHash.keySet());
+            for (List<DailyCheckIn> checkIns : byHash.values()) {
+                hashes.addAll(replacedHashes(checkIns.get(0)));
+            }
+            Map<String, BlockchainService.TxLookup> lookups = blockchainService.lookupTransactions(hashes);
+
+            for (Map.Entry<String, List<DailyCheckIn>> entry : byHash.entrySet()) {
+                BlockchainService.TxLookup lookup = lookups.get(entry.getKey());
+                if (lookup != null) {
+                    handle(entry.getKey(), entry.getValue(), lookup, lookups);
+                }
+            }
+        } catch (Exception e) {
+            log.error("交易回执轮询失败", e);
+        }
+    }
+
+    /**
+     * slash 交易回执: 打包后回写发件箱 CONFIRMED/REVERTED；
+     * 超时未打包的重发原签名交易 (合约 slash 只能成功一次，重发不会重复惩罚)，
+     * nonce 已被占用且查不到回执时放回发件箱重新签名
+     */
+    private void pollSlashes() {
+        try {
+            LambdaQueryWrapper<ChainOutbox> query = new LambdaQueryWrapper<>();
+            query.eq(ChainOutbox::getKind, Constants.OUTBOX_KIND_SLASH)
+                 .eq(ChainOutbox::getStatus, Constants.TX_STATUS_SENT)
+                 .isNotNull(ChainOutbox::getTxHash)
+                 .orderByAsc(ChainOutbox::getUpdatedAt)
+                 .last("LIMIT " + maxPerTick);
+            List<ChainOutbox> slashes = chainOutboxMapper.selectList(query);
+            if (slashes.isEmpty()) {
+                return;
+            }
+            List<String> hashes = new ArrayList<>(slashes.size());
+            for (ChainOutbox slash : slashes) {
+                hashes.add(slash.getTxHash());
+            }
+            Map<String, BlockchainService.TxLookup> lookups = blockchainService.lookupTransactions(hashes);
+            for (ChainOutbox slash : slashes) {
+                BlockchainService.TxLookup lookup = lookups.get(slash.getTxHash());
+                if (lookup != null) {
+                    handleSlash(slash, lookup);
+                }
+            }
+        } catch (Exception e) {
+            log.error("惩罚交易回执轮询失败", e);
+        }
+    }
+
+    private void handleSlash(ChainOutbox slash, BlockchainService.TxLookup lookup) {
+        switch (lookup.state) {
+            case MINED:
+                updateSlashStatus(slash, Constants.TX_STATUS_CONFIRMED);
+                break;
+            case REVERTED:
+                // 挑战已不是进行中 (已完成/已被惩罚)，不再重试
+                updateSlashStatus(slash, Constants.TX_STATUS_REVERTED);
+                log.warn("惩罚交易执行回滚: challengeId={}, txHash={}", slash.getChallengeId(), slash.getTxHash());
+                break;
+            case PENDING:
+            case UNKNOWN:
+                if (slash.getUpdatedAt() == null
+                        || slash.getUpdatedAt().isBefore(LocalDateTime.now().minusMinutes(resubmitAfterMinutes))) {
+                    rebroadcastSlash(slash);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void rebroadcastSlash(ChainOutbox slash) {
+        try {
+            blockchainService.rebroadcast(slash.getTxHash(), BigInteger.valueOf(slash.getTxNonce()),
+                    BigInteger.valueOf(slash.getTxGasPrice()), slash.getTxRaw());
+            touchSlash(slash);
+            log.warn("惩罚交易超时未确认，已重发: challengeId={}, txHash={}", slash.getChallengeId(), slash.getTxHash());
+        } catch (BlockchainService.TxRejectedException e) {
+            if (!e.nonceConsumed) {
+                touchSlash(slash);
+                log.error("惩罚交易重发失败: txHash={}, {}", slash.getTxHash(), e.getMessage());
+                return;
+            }
+            BlockchainService.TxLookup again;
+            try {
+                again = blockchainService.lookupTransactions(List.of(slash.getTxHash())).get(slash.getTxHash());
+            } catch (Exception lookupError) {
+                log.warn("查询惩罚交易回执失败，下个周期重试: txHash={}", slash.getTxHash());
+                return;
+            }
+            if (again != null && (again.state == BlockchainService.TxState.MINED
+                    || again.state == BlockchainService.TxState.REVERTED)) {
+                handleSlash(slash, again);
+                return;
+            }
+            LambdaUpdateWrapper<ChainOutbox> update = new LambdaUpdateWrapper<>();
+            update.eq(ChainOutbox::getId, slash.getId())
+                  .eq(ChainOutbox::getStatus, Constants.TX_STATUS_SENT)
+                  .set(ChainOutbox::getStatus, Constants.TX_STATUS_PENDING)
+                  .set(ChainOutbox::getTxHash, null)
+                  .set(ChainOutbox::getTxNonce, null)
+                  .set(ChainOutbox::getTxGasPrice, null)
+                  .set(ChainOutbox::getTxRaw, null)
+                  .set(ChainOutbox::getNextAttemptAt, LocalDateTime.now())
+                  .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+            chainOutboxMapper.update(null, update);
+            log.warn("惩罚交易的 nonce 已被其他交易占用且未上链，放回发件箱: challengeId={}", slash.getChallengeId());
+        }
+    }
+
+    private void updateSlashStatus(ChainOutbox slash, String status) {
+        LambdaUpdateWrapper<ChainOutbox> update = new LambdaUpdateWrapper<>();
+        update.eq(ChainOutbox::getId, slash.getId())
+              .eq(ChainOutbox::getStatus, Constants.TX_STATUS_SENT)
+              .set(ChainOutbox::getStatus, status)
+              .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+        chainOutboxMapper.update(null, update);
+    }
+
+    private void touchSlash(ChainOutbox slash) {
+        LambdaUpdateWrapper<ChainOutbox> update = new LambdaUpdateWrapper<>();
+        update.eq(ChainOutbox::getId, slash.getId())
+              .set(ChainOutbox::getUpdatedAt, LocalDateTime.now());
+        chainOutboxMapper.update(null, update);
+    }
+
+    private void handle(String txHash, List<DailyCheckIn> checkIns, BlockchainService.TxLookup lookup,
+                        Map<String, BlockchainService.TxLookup> lookups) {
+        if (lookup.state == BlockchainService.TxState.PENDING || lookup.state == BlockchainService.TxState.UNKNOWN) {
+            for (String replacedHash : replacedHashes(checkIns.get(0))) {
+                BlockchainService.TxLookup replaced = lookups.get(replacedHash);
+                if (replaced == null) {
+                    continue;
+                }
+                if (replaced.state == BlockchainService.TxState.MINED) {
+                    checkInService.updateTxStatusByHash(txHash, Constants.TX_STATUS_CONFIRMED,
+                            replaced.blockNumber.longValue(), replacedHash);
+                    log.info("被替换的打卡交易已打包: {} (替换交易 {})", replacedHash, txHash);
+                    return;
+                }
+                if (replaced.state == BlockchainService.TxState.REVERTED) {
+                    checkInService.updateTxStatusByHash(txHash, Constants.TX_STATUS_REVERTED,
+                            replaced.blockNumber.longValue(), replacedHash);
+                    log.error("被替换的打卡交易执行回滚: txHash={}", replacedHash);
+                    return;
+                }
+            }
+        }
+
+        switch (lookup.state) {
+            case MINED:
+                checkInService.updateTxStatusByHash(txHash, Constants.TX_STATUS_CONFIRMED, lookup.blockNumber.longValue());
+                break;
+            case REVERTED:
+                checkInService.updateTxStatusByHash(txHash, Constants.TX_STATUS_REVERTED, lookup.blockNumber.longValue());
+                log.error("打卡交易执行回滚: txHash={}", txHash);
+                break;
+            case PENDING:
+            case UNKNOWN:
+                if (isOverdue(checkIns.get(0))) {
+                    resubmit(txHash, lookup);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private List<String> replacedHashes(DailyCheckIn checkIn) {
+        String replaced = checkIn.getTxReplacedHashes();
+        return replaced == null || replaced.isEmpty() ? List.of() : List.of(replaced.split(","));
+    }
+
+    private boolean isOverdue(DailyCheckIn checkIn) {
+        return checkIn.getTxUpdatedAt() == null
+                || checkIn.getTxUpdatedAt().isBefore(LocalDateTime.now().minusMinutes(resubmitAfterMinutes));
+    }
+
+    /**
+     * 无论仍在交易池中还是已被丢弃，都沿用原 nonce 提价替换；
+     * 换新 nonce 重发时原交易仍可能被打包，合约会重复计数
+     */
+    private void resubmit(String txHash, BlockchainService.TxLookup lookup) {
+        // 单周期可能只拉到批量交易的一部分记录，重新提交前取全量
+        List<DailyCheckIn> checkIns = checkInService.listByTxHash(txHash);
+        if (checkIns.isEmpty()) {
+            return;
+        }
+        int resubmits = checkIns.get(0).getTxResubmits() == null ? 0 : checkIns.get(0).getTxResubmits();
+        if (resubmits >= maxResubmits) {
+            checkInService.updateTxStatusByHash(txHash, Constants.TX_STATUS_FAILED, null);
+            log.error("打卡交易多次重新提交仍未确认，放弃: txHash={}", txHash);
+            return;
+        }
+
+        List<String> users = new ArrayList<>(checkIns.size());
+        List<BigInteger> ids = new ArrayList<>(checkIns.size());
+        for (DailyCheckIn checkIn : checkIns) {
+            users.add(checkIn.getWalletAddress());
+            ids.add(BigInteger.valueOf(checkIn.getChallengeId()));
+        }
+
+        DailyCheckIn first = checkIns.get(0);
+        BigInteger nonce = first.getTxNonce() != null ? BigInteger.valueOf(first.getTxNonce()) : lookup.nonce;
+        if (nonce == null) {
+            // 未记录 nonce 且节点已不认识该交易，无法安全替换
+            log.warn("打卡交易未记录 nonce，跳过重新提交: txHash={}", txHash);
+            return;
+        }
+        BigInteger previousGasPrice = lookup.gasPrice;
+        if (first.getTxGasPrice() != null) {
+            BigInteger stored = BigInteger.valueOf(first.getTxGasPrice());
+            previousGasPrice = previousGasPrice == null ? stored : previousGasPrice.max(stored);
+        }
+
+        BlockchainService.SentTx replacement;
+        try {
+            replacement = blockchainService.prepareReplacement(users, ids, nonce, previousGasPrice, feeBumpPercent);
+        } catch (Exception e) {
+            log.error("打卡交易替换签名失败: txHash={}", txHash, e);
+            return;
+        }
+        // 先持久化替换交易再广播: 崩溃后替换交易即使已上链，哈希也在记录中
+        checkInService.replaceTxHash(txHash, replacement);
+        try {
+            blockchainService.broadcast(replacement);
+            log.warn("打卡交易超时未确认，已按原 nonce 提价替换: {} -> {} (nonce={}, {})",
+                    txHash, replacement.hash, nonce, lookup.state);
+        } catch (BlockchainService.TxRejectedException e) {
+            if (e.nonceConsumed) {
+                requeueIfDead(replacement.hash, first, txHash);
+                return;
+            }
+            // 替换期间原交易可能已被打包，下个周期会查到回执
+            log.error("打卡交易重新提交失败: txHash={}", txHash, e);
+        }
+    }
+
+    /**
+     * nonce 已被使用: 原交易或之前的替换交易已打包时等待回执；
+     * 所有哈希都查不到回执说明该 nonce 被其他交易占用，本笔打卡从未上链，放回发件箱换新 nonce 发送
+     */
+    private void requeueIfDead(String currentHash, DailyCheckIn checkIn, String previousHash) {
+        List<String> hashes = new ArrayList<>(replacedHashes(checkIn));
+        hashes.add(previousHash);
+        hashes.add(currentHash);
+        Map<String, BlockchainService.TxLookup> lookups;
+        try {
+            lookups = blockchainService.lookupTransactions(hashes);
+        } catch (Exception e) {
+            log.warn("查询交易回执失败，下个周期重试: txHash={}, {}", currentHash, e.getMessage());
+            return;
+        }
+        for (BlockchainService.TxLookup lookup : lookups.values()) {
+            if (lookup.state == BlockchainService.TxState.MINED || lookup.state == BlockchainService.TxState.REVERTED) {
+                // 不计重新提交次数，等待回执
+                log.info("打卡交易 nonce 已被使用，等待回执: txHash={}", currentHash);
+                return;
+            }
+        }
+        int requeued = checkInService.requeueDeadTx(currentHash);
+        log.warn("打卡交易的 nonce 已被其他交易占用且未上链，放回发件箱重新发送: txHash={}, 记录数={}",
+                currentHash, requeued);
+    }
+}
@@ -0,0 +1,77 @@
+package com.utils;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按天分片的位图
+ * 以自增主键作为位下标记录“某天是否发生过”，查询与写入都是 O(1)。
+ * 只保留最近 retainDays 天的数据，更早的分片在加载新的一天时丢弃。
+ */
+public class DailyBitmap {
+
+    private final int retainDays;
+    private final Map<LocalDate, BitSet> days = new ConcurrentHashMap<>();
+
+    public DailyBitmap(int retainDays) {
+        this.retainDays = retainDays;
+    }
+
+    /**
+     * 该天的分片是否已加载
+     */
+    public boolean isLoaded(LocalDate day) {
+        return days.containsKey(day);
+    }
+
+    /**
+     * 用持久化的数据初始化某天的分片 (已有分片时合并)
+     */
+    public void load(LocalDate day, Collection<Long> ids) {
+        // 先构建完整分片再发布，避免并发查询看到加载了一半的数据
+        BitSet loaded = new BitSet();
+        for (Long id : ids) {
+            loaded.set(index(id));
+        }
+        days.merge(day, loaded, (current, incoming) -> {
+            synchronized (current) {
+                current.or(incoming);
+            }
+            return current;
+        });
+        days.keySet().removeIf(d -> d.isBefore(day.minusDays(retainDays - 1)));
+    }
+
+    /**
+     * 置位
+     * @return 此前未置位时返回 true
+     */
+    public boolean set(LocalDate day, long id) {
+        BitSet bits = days.computeIfAbsent(day, d -> new BitSet());
+        synchronized (bits) {
+            int index = index(id);
+            if (bits.get(index)) {
+                return false;
+            }
+            bits.set(index);
+            return true;
+        }
+    }
+
+    public boolean get(LocalDate day, long id) {
+        BitSet bits = days.get(day);
+        if (bits == null) {
+            return false;
+        }
+        synchronized (bits) {
+            return bits.get(index(id));
+        }
+    }
+
+    private static int index(long id) {
+        return Math.toIntExact(id);
+    }
+}
@@ -0,0 +1,173 @@
+package com.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 微批处理
+ * 第一个请求到达后最多等待 windowMs，期间到达的请求合并为一批 (满 maxBatchSize 立即发出)；
+ * 批处理抛异常或某项结果为 null 时，对应请求退回逐个处理。
+ */
+@Slf4j
+public class MicroBatcher<I, O> implements AutoCloseable {
+
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final Function<List<I>, List<O>> batchHandler;
+    private final Function<I, O> singleHandler;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timer;
+
+    private final List<Pending<I, O>> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * @param batchHandler 批处理，返回与输入一一对应的结果
+     * @param singleHandler 单个处理 (批大小为 1 或批处理失败时使用)
+     * @param workers 执行批处理的线程数
+     */
+    public MicroBatcher(String name, long windowMs, int maxBatchSize, int workers,
+                        Function<List<I>, List<O>> batchHandler, Function<I, O> singleHandler) {
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.batchHandler = batchHandler;
+        this.singleHandler = singleHandler;
+        this.workers = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, name + "-batch");
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name + "-batch-timer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public CompletableFuture<O> submit(I input) {
+        Pending<I, O> request = new Pending<>(input);
+        List<Pending<I, O>> ready = null;
+        synchronized (this) {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                ready = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flushDue, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return request.future;
+    }
+
+    private void flushDue() {
+        List<Pending<I, O>> ready;
+        synchronized (this) {
+            scheduledFlush = null;
+            ready = pending.isEmpty() ? null : drain();
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+    }
+
+    /**
+     * 取出当前等待的请求 (调用方持有锁)
+     */
+    private List<Pending<I, O>> drain() {
+        List<Pending<I, O>> ready = new ArrayList<>(pending);
+        pending.clear();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return ready;
+    }
+
+    private void dispatch(List<Pending<I, O>> batch) {
+        try {
+            workers.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(request -> request.future.completeExceptionally(e));
+        }
+    }
+
+    private void run(List<Pending<I, O>> batch) {
+        if (batch.size() == 1) {
+            runSingle(batch.get(0));
+            return;
+        }
+        List<I> inputs = new ArrayList<>(batch.size());
+        for (Pending<I, O> request : batch) {
+            inputs.add(request.input);
+        }
+        List<O> outputs = null;
+        try {
+            outputs = batchHandler.apply(inputs);
+        } catch (Exception e) {
+            log.warn("批处理失败，退回逐个处理 ({} 项): {}", batch.size(), e.getMessage());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            O output = outputs != null && outputs.size() == batch.size() ? outputs.get(i) : null;
+            if (output != null) {
+                batch.get(i).future.complete(output);
+            } else {
+                Pending<I, O> request = batch.get(i);
+                try {
+                    workers.execute(() -> runSingle(request));
+                } catch (RejectedExecutionException e) {
+                    request.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void runSingle(Pending<I, O> request) {
+        try {
+            request.future.complete(singleHandler.apply(request.input));
+        } catch (Exception e) {
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 关闭前发出仍在等待窗口中的请求，并等待执行中的批次结束 (最多 5 秒)
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        List<Pending<I, O>> ready;
+        synchronized (this) {
+            ready = pending.isEmpty() ? null : drain();
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Pending<I, O> {
+        final I input;
+        final CompletableFuture<O> future = new CompletableFuture<>();
+
+        Pending(I input) {
+            this.input = input;
+        }
+    }
+}
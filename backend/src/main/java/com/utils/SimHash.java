@@ -0,0 +1,62 @@
+package com.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 64 位 SimHash
+ * 以字符 n-gram 为特征 (中文不分词也能工作)，相似文本的指纹汉明距离小。
+ */
+public final class SimHash {
+
+    private SimHash() {
+    }
+
+    /**
+     * 计算指纹
+     * @param text 已归一化的文本
+     * @param shingle n-gram 长度
+     */
+    public static long of(String text, int shingle) {
+        int[] weights = new int[64];
+        int[] codePoints = text.codePoints().toArray();
+        int n = Math.min(shingle, codePoints.length);
+        for (int i = 0; i + n <= codePoints.length; i++) {
+            long hash = fnv1a64(new String(Arrays.copyOfRange(codePoints, i, i + n), 0, n));
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((hash >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+        }
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * 把 64 位均分为 bands 段，取第 i 段；
+     * 汉明距离 ≤ bands - 1 的两个指纹至少有一段完全相同 (鸽巢原理)
+     */
+    public static long band(long fingerprint, int i, int bands) {
+        int from = i * 64 / bands;
+        int width = (i + 1) * 64 / bands - from;
+        long mask = width == 64 ? -1L : (1L << width) - 1;
+        return (fingerprint >>> from) & mask;
+    }
+
+    private static long fnv1a64(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
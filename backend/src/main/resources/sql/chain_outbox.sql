@@ -0,0 +1,40 @@
+-- =============================================
+-- 上链发件箱
+-- 打卡记录与发件箱记录在同一事务中写入，后台任务异步发送交易
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS `chain_outbox` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `wallet_address` varchar(100) NOT NULL COMMENT '钱包地址',
+  `challenge_id` bigint NOT NULL COMMENT '挑战ID',
+  `check_in_date` date NOT NULL COMMENT '打卡日期 (SLASH 为漏打卡日期)',
+  `kind` varchar(20) NOT NULL DEFAULT 'DAY_COMPLETE' COMMENT '交易类型: DAY_COMPLETE/SLASH',
+  `status` varchar(20) NOT NULL DEFAULT 'PENDING' COMMENT '状态: PENDING/SENDING/SENT/FAILED',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+  `next_attempt_at` datetime NOT NULL COMMENT '下次尝试时间',
+  `tx_hash` varchar(66) DEFAULT NULL COMMENT '交易哈希',
+  `tx_nonce` bigint DEFAULT NULL COMMENT '交易 nonce',
+  `tx_gas_price` bigint DEFAULT NULL COMMENT '交易 gas price (wei)',
+  `tx_raw` text DEFAULT NULL COMMENT '已签名交易 (广播前写入)',
+  `last_error` varchar(500) DEFAULT NULL COMMENT '最近一次错误',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_wallet_challenge_date_kind` (`wallet_address`,`challenge_id`,`check_in_date`,`kind`),
+  INDEX `idx_status_next_attempt` (`status`,`next_attempt_at`),
+  INDEX `idx_tx_hash` (`tx_hash`),
+  INDEX `idx_challenge_kind` (`challenge_id`,`kind`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='上链发件箱表';
+
+-- 已有部署升级:
+-- ALTER TABLE `chain_outbox`
+--   ADD COLUMN `tx_nonce` bigint DEFAULT NULL COMMENT '交易 nonce',
+--   ADD COLUMN `tx_gas_price` bigint DEFAULT NULL COMMENT '交易 gas price (wei)',
+--   ADD COLUMN `tx_raw` text DEFAULT NULL COMMENT '已签名交易 (广播前写入)',
+--   ADD INDEX `idx_tx_hash` (`tx_hash`);
+--
+-- ALTER TABLE `chain_outbox`
+--   ADD COLUMN `kind` varchar(20) NOT NULL DEFAULT 'DAY_COMPLETE' COMMENT '交易类型: DAY_COMPLETE/SLASH' AFTER `check_in_date`,
+--   DROP INDEX `uk_wallet_challenge_date`,
+--   ADD UNIQUE KEY `uk_wallet_challenge_date_kind` (`wallet_address`,`challenge_id`,`check_in_date`,`kind`),
+--   ADD INDEX `idx_challenge_kind` (`challenge_id`,`kind`);
@@ -0,0 +1,31 @@
+-- =============================================
+-- 挑战读模型
+-- 由 HabitEscrowIndexer 消费合约事件物化，列表与仪表盘直接查询此表
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS `challenge_index` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `user_address` varchar(42) NOT NULL COMMENT '用户地址 (小写)',
+  `challenge_id` bigint NOT NULL COMMENT '挑战ID (用户维度)',
+  `stake_amount` decimal(38,0) NOT NULL DEFAULT 0 COMMENT '质押金额 (wei)',
+  `target_days` int NOT NULL COMMENT '目标天数',
+  `completed_days` int NOT NULL DEFAULT 0 COMMENT '已完成天数',
+  `penalty_type` tinyint NOT NULL COMMENT '惩罚去向: 0销毁 1慈善 2项目方',
+  `status` tinyint NOT NULL DEFAULT 0 COMMENT '状态: 0进行中 1已完成 2已失败 3已退出',
+  `resurrection_used` tinyint(1) NOT NULL DEFAULT 0 COMMENT '复活卡是否已使用',
+  `start_time` datetime DEFAULT NULL COMMENT '开始时间 (区块时间)',
+  `created_block` bigint NOT NULL COMMENT '创建所在区块',
+  `last_event_block` bigint NOT NULL COMMENT '最近事件所在区块',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_challenge` (`user_address`,`challenge_id`),
+  INDEX `idx_status` (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='挑战读模型表';
+
+CREATE TABLE IF NOT EXISTS `indexer_checkpoint` (
+  `name` varchar(64) NOT NULL COMMENT '索引器名称',
+  `last_block` bigint NOT NULL COMMENT '已处理到的区块',
+  `last_block_hash` varchar(66) DEFAULT NULL COMMENT '已处理区块的哈希 (用于检测重组)',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='索引器检查点表';
@@ -3,7 +3,33 @@ CREATE TABLE IF NOT EXISTS `daily_check_in` (
   `wallet_address` varchar(100) NOT NULL COMMENT '钱包地址',
   `challenge_id` bigint NOT NULL COMMENT '挑战ID',
   `check_in_date` date NOT NULL COMMENT '打卡日期',
+  `proof_content` text DEFAULT NULL COMMENT '打卡凭证内容',
+  `tx_hash` varchar(66) DEFAULT NULL COMMENT '上链交易哈希',
+  `tx_status` varchar(20) DEFAULT NULL COMMENT '上链状态: PENDING/SENT/CONFIRMED/REVERTED/FAILED',
+  `tx_updated_at` datetime DEFAULT NULL COMMENT '上链状态更新时间',
+  `tx_block_number` bigint DEFAULT NULL COMMENT '交易打包区块',
+  `tx_resubmits` int NOT NULL DEFAULT 0 COMMENT '交易重新提交次数',
+  `tx_nonce` bigint DEFAULT NULL COMMENT '交易 nonce (重新提交沿用)',
+  `tx_gas_price` bigint DEFAULT NULL COMMENT '当前交易 gas price (wei)',
+  `tx_replaced_hashes` varchar(400) DEFAULT NULL COMMENT '被替换的历史交易哈希 (逗号分隔)',
   `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   PRIMARY KEY (`id`),
-  UNIQUE KEY `uk_wallet_challenge_date` (`wallet_address`,`challenge_id`,`check_in_date`)
+  UNIQUE KEY `uk_wallet_challenge_date` (`wallet_address`,`challenge_id`,`check_in_date`),
+  INDEX `idx_tx_status` (`tx_status`),
+  INDEX `idx_tx_hash` (`tx_hash`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='每日打卡记录表';
+
+-- 已有部署升级:
+-- ALTER TABLE `daily_check_in`
+--   ADD COLUMN `tx_hash` varchar(66) DEFAULT NULL COMMENT '上链交易哈希',
+--   ADD COLUMN `tx_status` varchar(20) DEFAULT NULL COMMENT '上链状态: PENDING/SENT/FAILED',
+--   ADD COLUMN `tx_updated_at` datetime DEFAULT NULL COMMENT '上链状态更新时间',
+--   ADD COLUMN `tx_block_number` bigint DEFAULT NULL COMMENT '交易打包区块',
+--   ADD COLUMN `tx_resubmits` int NOT NULL DEFAULT 0 COMMENT '交易重新提交次数',
+--   ADD INDEX `idx_tx_status` (`tx_status`),
+--   ADD INDEX `idx_tx_hash` (`tx_hash`);
+--
+-- ALTER TABLE `daily_check_in`
+--   ADD COLUMN `tx_nonce` bigint DEFAULT NULL COMMENT '交易 nonce (重新提交沿用)',
+--   ADD COLUMN `tx_gas_price` bigint DEFAULT NULL COMMENT '当前交易 gas price (wei)',
+--   ADD COLUMN `tx_replaced_hashes` varchar(400) DEFAULT NULL COMMENT '被替换的历史交易哈希 (逗号分隔)';
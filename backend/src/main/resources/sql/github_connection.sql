@@ -12,6 +12,7 @@ CREATE TABLE IF NOT EXISTS `github_connection` (
     `access_token` VARCHAR(255) NOT NULL COMMENT 'GitHub OAuth Access Token',
     `token_type` VARCHAR(50) DEFAULT 'bearer' COMMENT 'Token 类型',
     `scope` VARCHAR(255) DEFAULT NULL COMMENT '授权范围',
+    `webhook_active_at` DATETIME DEFAULT NULL COMMENT '最近一次收到该用户 Webhook 的时间 (为空时回退到 API 轮询)',
     `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     
@@ -19,3 +20,7 @@ CREATE TABLE IF NOT EXISTS `github_connection` (
     UNIQUE KEY `uk_github_id` (`github_id`),
     INDEX `idx_github_username` (`github_username`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='GitHub 授权连接表';
+
+-- 已有部署升级:
+-- ALTER TABLE `github_connection`
+--   ADD COLUMN `webhook_active_at` DATETIME DEFAULT NULL COMMENT '最近一次收到该用户 Webhook 的时间 (为空时回退到 API 轮询)' AFTER `scope`;
@@ -0,0 +1,14 @@
+-- =============================================
+-- GitHub 每日推送记录
+-- 由 Webhook 写入，每个连接每天一条，重启后用于恢复内存位图
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS `github_push_day` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `connection_id` bigint NOT NULL COMMENT 'github_connection 主键',
+  `push_date` date NOT NULL COMMENT '推送日期 (业务时区)',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_connection_date` (`connection_id`,`push_date`),
+  INDEX `idx_push_date` (`push_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='GitHub 每日推送记录表';
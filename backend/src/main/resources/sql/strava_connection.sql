@@ -5,9 +5,26 @@ CREATE TABLE IF NOT EXISTS `strava_connection` (
   `access_token` varchar(255) NOT NULL COMMENT '访问令牌',
   `refresh_token` varchar(255) NOT NULL COMMENT '刷新令牌',
   `expires_at` datetime NOT NULL COMMENT '过期时间',
+  `version` int NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
+  `webhook_active_at` datetime DEFAULT NULL COMMENT '最近一次收到该运动员推送事件的时间 (为空时回退到 API 轮询)',
+  `refresh_failures` int NOT NULL DEFAULT 0 COMMENT '连续刷新失败次数',
+  `refresh_retry_at` datetime DEFAULT NULL COMMENT '刷新失败后下次后台刷新时间 (退避)',
+  `refresh_revoked` tinyint(1) NOT NULL DEFAULT 0 COMMENT '刷新令牌已失效 (invalid_grant/撤销授权)，需要重新连接',
   `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_wallet` (`wallet_address`),
-  UNIQUE KEY `uk_strava_id` (`strava_athlete_id`)
+  UNIQUE KEY `uk_strava_id` (`strava_athlete_id`),
+  INDEX `idx_expires_at` (`expires_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Strava连接表';
+
+-- 已有部署升级:
+-- ALTER TABLE `strava_connection`
+--   ADD COLUMN `version` int NOT NULL DEFAULT 0 COMMENT '乐观锁版本号' AFTER `expires_at`,
+--   ADD COLUMN `webhook_active_at` datetime DEFAULT NULL COMMENT '最近一次收到该运动员推送事件的时间 (为空时回退到 API 轮询)' AFTER `version`;
+--
+-- ALTER TABLE `strava_connection`
+--   ADD COLUMN `refresh_failures` int NOT NULL DEFAULT 0 COMMENT '连续刷新失败次数' AFTER `webhook_active_at`,
+--   ADD COLUMN `refresh_retry_at` datetime DEFAULT NULL COMMENT '刷新失败后下次后台刷新时间 (退避)' AFTER `refresh_failures`,
+--   ADD COLUMN `refresh_revoked` tinyint(1) NOT NULL DEFAULT 0 COMMENT '刷新令牌已失效 (invalid_grant/撤销授权)，需要重新连接' AFTER `refresh_retry_at`,
+--   ADD INDEX `idx_expires_at` (`expires_at`);
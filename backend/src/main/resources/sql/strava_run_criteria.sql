@@ -0,0 +1,18 @@
+-- =============================================
+-- Strava 跑步达标条件 (按挑战配置)
+-- 未配置的挑战使用 strava.criteria.* 默认条件；字段为空表示不限制
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS `strava_run_criteria` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `user_address` varchar(42) NOT NULL COMMENT '用户地址 (小写)',
+  `challenge_id` bigint NOT NULL COMMENT '挑战ID (用户维度)',
+  `activity_types` varchar(255) DEFAULT NULL COMMENT '允许的活动类型，逗号分隔 (如 Run,TrailRun,VirtualRun)',
+  `min_distance_m` int DEFAULT NULL COMMENT '最小距离 (米)',
+  `min_moving_time_s` int DEFAULT NULL COMMENT '最小运动时间 (秒)',
+  `min_pace_s_per_km` int DEFAULT NULL COMMENT '最快配速 (秒/公里)，快于此视为异常 (如骑车误记为跑步)',
+  `max_pace_s_per_km` int DEFAULT NULL COMMENT '最慢配速 (秒/公里)',
+  `updated_at` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_user_challenge` (`user_address`,`challenge_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Strava 跑步达标条件表';
@@ -0,0 +1,15 @@
+-- =============================================
+-- Strava 每日达标跑步记录
+-- 由推送订阅 (Webhook) 写入，每个连接每天一条，打卡检测直接查询该表 (多实例共享)
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS `strava_run_day` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键',
+  `connection_id` bigint NOT NULL COMMENT 'strava_connection 主键',
+  `run_date` date NOT NULL COMMENT '跑步日期 (业务时区)',
+  `activity_id` bigint DEFAULT NULL COMMENT '首个达标活动ID',
+  `created_at` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_connection_date` (`connection_id`,`run_date`),
+  INDEX `idx_run_date` (`run_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Strava 每日达标跑步记录表';
@@ -0,0 +1,140 @@
+package com.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 出站连接池: 并发压测下的连接复用与池满等待，使用本地 HTTP 桩服务
+ */
+class HttpClientConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+    private HttpServer server;
+    private ExecutorService serverPool;
+
+    /** 服务端看到的客户端端口，一个端口即一条 TCP 连接 */
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+        if (server != null) {
+            server.stop(0);
+            serverPool.shutdownNow();
+        }
+    }
+
+    @Test
+    void reusesPooledConnectionsUnderLoad() throws Exception {
+        String url = startStub(5);
+        RestTemplate restTemplate = restTemplate("load", new HttpClientConfig.Settings(1_000, 5_000, 8, 8, 5_000));
+
+        int threads = 16;
+        int perThread = 25;
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        assertEquals("ok", restTemplate.getForObject(url, String.class));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, requests.get());
+        // 400 次请求最多只建立 max-per-route 条连接
+        assertTrue(connections.size() <= 8, "connections opened: " + connections.size());
+        assertEquals(8.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "load").gauge().value());
+        assertEquals(0.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "load").tag("state", "leased").gauge().value());
+    }
+
+    @Test
+    void waitsForFreeConnectionThenTimesOut() throws Exception {
+        String url = startStub(500);
+        RestTemplate restTemplate = restTemplate("limited", new HttpClientConfig.Settings(1_000, 5_000, 1, 1, 100));
+
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = clients.submit(() -> restTemplate.getForObject(url, String.class));
+            Thread.sleep(100);
+            Future<String> second = clients.submit(() -> restTemplate.getForObject(url, String.class));
+
+            assertEquals("ok", first.get());
+            Exception error = null;
+            try {
+                second.get();
+            } catch (Exception e) {
+                error = e;
+            }
+            assertInstanceOf(ResourceAccessException.class, error == null ? null : error.getCause());
+        } finally {
+            clients.shutdownNow();
+        }
+        assertEquals(1, requests.get());
+    }
+
+    private RestTemplate restTemplate(String name, HttpClientConfig.Settings settings) {
+        HttpComponentsClientHttpRequestFactory factory = HttpClientConfig.requestFactory(name, settings, meterRegistry);
+        closeables.add(factory::destroy);
+        return new RestTemplate(factory);
+    }
+
+    private String startStub(long delayMs) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverPool = Executors.newFixedThreadPool(32);
+        server.setExecutor(serverPool);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            connections.add(exchange.getRemoteAddress().getPort());
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+}
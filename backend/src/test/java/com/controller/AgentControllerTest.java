@@ -0,0 +1,111 @@
+package com.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.service.CheckInPipeline;
+import com.service.DashboardStatusService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AgentControllerTest {
+
+    private final CheckInPipeline checkInPipeline = mock(CheckInPipeline.class);
+    private final DashboardStatusService dashboardStatusService = mock(DashboardStatusService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        AgentController controller = new AgentController();
+        ReflectionTestUtils.setField(controller, "checkInPipeline", checkInPipeline);
+        ReflectionTestUtils.setField(controller, "dashboardStatusService", dashboardStatusService);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "maxChallengeIds", 3);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void readingCheckReturnsTimeoutResultWhenPipelineDoesNotFinish() throws Exception {
+        when(checkInPipeline.timeoutMs("reading")).thenReturn(50L);
+        when(checkInPipeline.check(eq("reading"), anyString(), anyLong(), any()))
+                .thenReturn(new CompletableFuture<>());
+
+        MvcResult started = mockMvc.perform(post("/agent/reading/check")
+                        .param("walletAddress", "0xabc")
+                        .param("challengeId", "1")
+                        .param("content", "今天读完了第三章"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // 模拟容器触发异步超时
+        MockAsyncContext asyncContext = (MockAsyncContext) started.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("打卡检测超时，请稍后重试"));
+    }
+
+    @Test
+    void dashboardStatusReturns304WhenEtagMatches() throws Exception {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("day", "2026-01-01");
+        status.put("challenges", List.of(1L));
+        when(dashboardStatusService.getStatus("0xabc", List.of(1L))).thenReturn(status);
+
+        String etag = mockMvc.perform(get("/agent/dashboard/status")
+                        .param("walletAddress", "0xabc")
+                        .param("challengeIds", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.day").value("2026-01-01"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/agent/dashboard/status")
+                        .param("walletAddress", "0xabc")
+                        .param("challengeIds", "1")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void dashboardStatusRejectsTooManyChallengeIds() throws Exception {
+        mockMvc.perform(get("/agent/dashboard/status")
+                        .param("walletAddress", "0xabc")
+                        .param("challengeIds", "1,2,3,4"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+        verify(dashboardStatusService, never()).getStatus(any(), any());
+    }
+}
@@ -0,0 +1,160 @@
+package com.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 发送路径: 只有 nonce 分配是原子的，广播失败时保留/归还 nonce
+ */
+class BlockchainServiceTest {
+
+    private static final String USER = "0x000000000000000000000000000000000000dEaD";
+
+    private final Web3j web3j = mock(Web3j.class);
+    private final NonceManager nonceManager = new NonceManager(() -> 7);
+    private final BlockchainService service = new BlockchainService();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(service, "web3j", web3j);
+        ReflectionTestUtils.setField(service, "credentials", Credentials.create(
+                "0x4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318"));
+        ReflectionTestUtils.setField(service, "nonceManager", nonceManager);
+        ReflectionTestUtils.setField(service, "chainId", 1L);
+        ReflectionTestUtils.setField(service, "contractAddress", "0x0000000000000000000000000000000000000001");
+        ReflectionTestUtils.setField(service, "broadcastAttempts", 2);
+
+        EthGasPrice gasPrice = new EthGasPrice();
+        gasPrice.setResult("0x3b9aca00");
+        Request<?, EthGasPrice> gasRequest = mock(Request.class);
+        when(gasRequest.send()).thenReturn(gasPrice);
+        doReturn(gasRequest).when(web3j).ethGasPrice();
+    }
+
+    @Test
+    void concurrentSendsOverlapRpcLatency() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Set<String> raws = ConcurrentHashMap.newKeySet();
+        stubSend(() -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(200);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return accepted();
+        }, raws);
+
+        int sends = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(sends);
+        try {
+            List<Future<BlockchainService.SentTx>> futures = new ArrayList<>();
+            for (int i = 0; i < sends; i++) {
+                BigInteger challengeId = BigInteger.valueOf(i);
+                futures.add(pool.submit(() -> service.recordDayComplete(USER, challengeId)));
+            }
+            Set<BigInteger> nonces = ConcurrentHashMap.newKeySet();
+            for (Future<BlockchainService.SentTx> future : futures) {
+                nonces.add(future.get().nonce);
+            }
+            assertEquals(sends, nonces.size());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(maxInFlight.get() > 1, "sends were serialized");
+    }
+
+    @Test
+    void networkErrorKeepsNonceAndSignedTxForRebroadcast() throws Exception {
+        Set<String> raws = ConcurrentHashMap.newKeySet();
+        stubSend(() -> {
+            throw new IOException("read timed out");
+        }, raws);
+
+        BlockchainService.SentTx tx = service.recordDayComplete(USER, BigInteger.ONE);
+
+        assertEquals(BigInteger.valueOf(7), tx.nonce);
+        // 同一签名交易重试，没有换 nonce
+        assertEquals(Set.of(tx.rawTransaction), raws);
+        verify(web3j, times(2)).ethSendRawTransaction(tx.rawTransaction);
+        NonceManager.Reconcile plan = nonceManager.reconcile(7, 7, System.currentTimeMillis(), 60_000);
+        assertEquals(tx.rawTransaction, plan.rebroadcast.get(BigInteger.valueOf(7)));
+        assertEquals(BigInteger.valueOf(8), nonceManager.acquire());
+    }
+
+    @Test
+    void rejectionReleasesNonce() throws Exception {
+        Set<String> raws = ConcurrentHashMap.newKeySet();
+        stubSend(() -> rejected("insufficient funds for gas"), raws);
+
+        assertThrows(BlockchainService.TxRejectedException.class,
+                () -> service.recordDayComplete(USER, BigInteger.ONE));
+
+        assertEquals(BigInteger.valueOf(7), nonceManager.acquire());
+    }
+
+    private interface Reply {
+        EthSendTransaction get() throws Exception;
+    }
+
+    private void stubSend(Reply reply, Set<String> raws) {
+        when(web3j.ethSendRawTransaction(anyString())).thenAnswer(invocation -> {
+            String raw = invocation.getArgument(0);
+            return new Request<String, EthSendTransaction>("eth_sendRawTransaction", List.of(raw), null,
+                    EthSendTransaction.class) {
+                @Override
+                public EthSendTransaction send() throws IOException {
+                    raws.add(raw);
+                    try {
+                        return reply.get();
+                    } catch (IOException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+        });
+    }
+
+    private static EthSendTransaction accepted() {
+        EthSendTransaction response = new EthSendTransaction();
+        response.setResult("0xabc");
+        return response;
+    }
+
+    private static EthSendTransaction rejected(String message) {
+        EthSendTransaction response = new EthSendTransaction();
+        response.setError(new Response.Error(-32000, message));
+        return response;
+    }
+}
@@ -0,0 +1,273 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.common.Constants;
+import com.domain.entity.ChainOutbox;
+import com.mapper.ChainOutboxMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 发件箱: 抢占版本号、失败重试、超时恢复
+ */
+class ChainOutboxWorkerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 1);
+    private static final Pattern PARAM = Pattern.compile("(\\w+)\\s*(=|IS NULL|IS NOT NULL)\\s*(?:#\\{ew\\.paramNameValuePairs\\.(\\w+)})?");
+
+    private final ChainOutboxMapper chainOutboxMapper = mock(ChainOutboxMapper.class);
+    private final DayCompleteBatcher dayCompleteBatcher = mock(DayCompleteBatcher.class);
+    private final CheckInService checkInService = mock(CheckInService.class);
+    private final BlockchainService blockchainService = mock(BlockchainService.class);
+    private final ChainOutboxWorker worker = new ChainOutboxWorker();
+
+    /** 每次 update 的条件，以及按顺序给出的影响行数 */
+    private final List<LambdaUpdateWrapper<ChainOutbox>> updates = new CopyOnWriteArrayList<>();
+    private volatile int claimResult = 1;
+    private volatile int writeBackResult = 1;
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), ChainOutbox.class);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(worker, "batchSize", 10);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "backoffBaseMs", 1000L);
+        ReflectionTestUtils.setField(worker, "backoffMaxMs", 60_000L);
+        ReflectionTestUtils.setField(worker, "stuckTimeoutMinutes", 5L);
+        ReflectionTestUtils.setField(worker, "workers", 1);
+        ReflectionTestUtils.setField(worker, "chainOutboxMapper", chainOutboxMapper);
+        ReflectionTestUtils.setField(worker, "dayCompleteBatcher", dayCompleteBatcher);
+        ReflectionTestUtils.setField(worker, "checkInService", checkInService);
+        ReflectionTestUtils.setField(worker, "blockchainService", blockchainService);
+        worker.init();
+
+        when(chainOutboxMapper.update(any(), any())).thenAnswer(invocation -> {
+            LambdaUpdateWrapper<ChainOutbox> update = invocation.getArgument(1);
+            updates.add(update);
+            Object target = set(update, "status");
+            if (Constants.TX_STATUS_SENDING.equals(target)) {
+                return claimResult;
+            }
+            // 超时恢复的批量重置
+            if (update.getSqlSegment().contains("tx_raw IS NULL")) {
+                return 0;
+            }
+            return writeBackResult;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        worker.shutdown();
+    }
+
+    @Test
+    void claimIsFencedByAttempts() {
+        ChainOutbox row = row(1L, 2);
+        CompletableFuture<BlockchainService.SentTx> pending = new CompletableFuture<>();
+        when(dayCompleteBatcher.submit(row)).thenReturn(pending);
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(), List.of(row));
+
+        worker.poll();
+
+        verify(dayCompleteBatcher, timeout(2000)).submit(row);
+        LambdaUpdateWrapper<ChainOutbox> claim = updates.get(1);
+        assertEquals(Constants.TX_STATUS_PENDING, where(claim, "status"));
+        assertEquals(2, where(claim, "attempts"));
+        assertEquals(3, set(claim, "attempts"));
+        assertEquals(3, row.getAttempts());
+    }
+
+    @Test
+    void lostClaimIsNotDispatched() {
+        claimResult = 0;
+        ChainOutbox row = row(1L, 0);
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(), List.of(row));
+
+        worker.poll();
+
+        verify(dayCompleteBatcher, never()).submit(any());
+    }
+
+    @Test
+    void sentIsWrittenBackUnderTheClaimVersion() {
+        ChainOutbox row = row(1L, 0);
+        BlockchainService.SentTx tx = sentTx("0xaa", 7);
+        when(dayCompleteBatcher.submit(row)).thenReturn(CompletableFuture.completedFuture(tx));
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(), List.of(row));
+
+        worker.poll();
+
+        verify(checkInService, timeout(2000)).markTxSent("0xabc", 11L, DAY, tx);
+        LambdaUpdateWrapper<ChainOutbox> sent = updates.get(2);
+        assertEquals(Constants.TX_STATUS_SENT, set(sent, "status"));
+        assertEquals(Constants.TX_STATUS_SENDING, where(sent, "status"));
+        assertEquals(1, where(sent, "attempts"));
+    }
+
+    @Test
+    void failureClearsSignedTxAndRetriesWithBackoff() {
+        ChainOutbox row = row(1L, 0);
+        when(dayCompleteBatcher.submit(row)).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("insufficient funds")));
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(), List.of(row));
+
+        LocalDateTime before = LocalDateTime.now();
+        worker.poll();
+
+        verify(chainOutboxMapper, timeout(2000).times(3)).update(any(), any());
+        LambdaUpdateWrapper<ChainOutbox> failed = updates.get(2);
+        assertEquals(Constants.TX_STATUS_PENDING, set(failed, "status"));
+        assertEquals(1, where(failed, "attempts"));
+        for (String column : new String[]{"tx_hash", "tx_nonce", "tx_gas_price", "tx_raw"}) {
+            assertTrue(failed.getSqlSet().contains(column + "="), column);
+            assertNull(set(failed, column), column);
+        }
+        assertEquals("insufficient funds", set(failed, "last_error"));
+        assertTrue(((LocalDateTime) set(failed, "next_attempt_at")).isAfter(before.plusNanos(999_000_000)));
+        verify(checkInService, never()).updateTxStatus(anyString(), any(), any(), anyString(), any());
+    }
+
+    @Test
+    void exhaustedAttemptsMarkCheckInFailed() {
+        ChainOutbox row = row(1L, 2);
+        when(dayCompleteBatcher.submit(row)).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("reverted")));
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(), List.of(row));
+
+        worker.poll();
+
+        verify(checkInService, timeout(2000)).updateTxStatus("0xabc", 11L, DAY, Constants.TX_STATUS_FAILED, null);
+        assertEquals(Constants.TX_STATUS_FAILED, set(updates.get(2), "status"));
+    }
+
+    @Test
+    void staleFailureAfterReclaimIsIgnored() {
+        writeBackResult = 0;
+        ChainOutbox row = row(1L, 2);
+        when(dayCompleteBatcher.submit(row)).thenReturn(
+                CompletableFuture.failedFuture(new IllegalStateException("reverted")));
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(), List.of(row));
+
+        worker.poll();
+
+        verify(chainOutboxMapper, timeout(2000).times(3)).update(any(), any());
+        verify(checkInService, never()).updateTxStatus(anyString(), any(), any(), anyString(), any());
+    }
+
+    @Test
+    void stuckUnsignedRowsGoBackToPending() {
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of());
+
+        worker.recoverStuck();
+
+        LambdaUpdateWrapper<ChainOutbox> reset = updates.get(0);
+        assertTrue(reset.getSqlSegment().contains("tx_raw IS NULL"));
+        assertEquals(Constants.TX_STATUS_SENDING, where(reset, "status"));
+        assertEquals(Constants.TX_STATUS_PENDING, set(reset, "status"));
+        verify(blockchainService, never()).rebroadcast(any(), any(), any(), any());
+    }
+
+    @Test
+    void stuckSignedRowsRebroadcastSameTxAndMarkSent() {
+        ChainOutbox first = signed(row(1L, 1), "0xaa", 7);
+        ChainOutbox second = signed(row(2L, 1), "0xaa", 7);
+        second.setWalletAddress("0xdef");
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(first, second));
+        doThrow(new BlockchainService.TxRejectedException("nonce too low", true))
+                .when(blockchainService).rebroadcast(any(), any(), any(), any());
+
+        worker.recoverStuck();
+
+        // 一笔交易只重发一次，节点拒绝也不换 nonce
+        verify(blockchainService, times(1)).rebroadcast("0xaa", BigInteger.valueOf(7), BigInteger.TEN, "0xraw");
+        verify(checkInService).markTxSent(eq("0xabc"), eq(11L), eq(DAY), any());
+        verify(checkInService).markTxSent(eq("0xdef"), eq(11L), eq(DAY), any());
+        verify(dayCompleteBatcher, never()).submit(any());
+    }
+
+    private static ChainOutbox row(long id, int attempts) {
+        ChainOutbox outbox = new ChainOutbox();
+        outbox.setId(id);
+        outbox.setWalletAddress("0xabc");
+        outbox.setChallengeId(11L);
+        outbox.setCheckInDate(DAY);
+        outbox.setKind(Constants.OUTBOX_KIND_DAY_COMPLETE);
+        outbox.setStatus(Constants.TX_STATUS_PENDING);
+        outbox.setAttempts(attempts);
+        return outbox;
+    }
+
+    private static ChainOutbox signed(ChainOutbox outbox, String hash, long nonce) {
+        outbox.setStatus(Constants.TX_STATUS_SENDING);
+        outbox.setTxHash(hash);
+        outbox.setTxNonce(nonce);
+        outbox.setTxGasPrice(10L);
+        outbox.setTxRaw("0xraw");
+        return outbox;
+    }
+
+    private static BlockchainService.SentTx sentTx(String hash, long nonce) {
+        return new BlockchainService.SentTx(hash, BigInteger.valueOf(nonce), BigInteger.TEN, "0xraw", false);
+    }
+
+    /**
+     * SET 子句中某列的取值
+     */
+    private static Object set(LambdaUpdateWrapper<ChainOutbox> update, String column) {
+        return value(update, update.getSqlSet(), column);
+    }
+
+    /**
+     * WHERE 条件中某列的取值
+     */
+    private static Object where(LambdaUpdateWrapper<ChainOutbox> update, String column) {
+        return value(update, update.getSqlSegment(), column);
+    }
+
+    private static Object value(LambdaUpdateWrapper<ChainOutbox> update, String sql, String column) {
+        Map<String, Object> params = update.getParamNameValuePairs();
+        Matcher matcher = PARAM.matcher(sql == null ? "" : sql);
+        while (matcher.find()) {
+            if (matcher.group(1).equals(column) && matcher.group(3) != null) {
+                return params.get(matcher.group(3));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * 打卡写入吞吐对比: 逐条自动提交 INSERT vs 多行 INSERT ... ON DUPLICATE KEY (CheckInWriteBuffer 的写法)
+ * 需要 MySQL，默认跳过:
+ * mvn test -Dtest=CheckInInsertBenchmark -Dbench.jdbc.url=jdbc:mysql://localhost:3306/bench
+ *     -Dbench.jdbc.user=root -Dbench.jdbc.password=... [-Dbench.rows=20000 -Dbench.batch=200]
+ */
+@EnabledIfSystemProperty(named = "bench.jdbc.url", matches = ".+")
+class CheckInInsertBenchmark {
+
+    private static final String TABLE = "daily_check_in_bench";
+
+    @Test
+    void compareSingleRowAndBatchedInserts() throws Exception {
+        int rows = Integer.getInteger("bench.rows", 20_000);
+        int batch = Integer.getInteger("bench.batch", 200);
+        try (Connection connection = DriverManager.getConnection(System.getProperty("bench.jdbc.url"),
+                System.getProperty("bench.jdbc.user", "root"), System.getProperty("bench.jdbc.password", ""))) {
+            reset(connection);
+            long single = timeSingle(connection, rows);
+            reset(connection);
+            long batched = timeBatched(connection, rows, batch);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE " + TABLE);
+            }
+            System.out.printf("daily_check_in 写入 %d 行: 逐条 %.0f 行/秒，多行批次(%d) %.0f 行/秒，提升 %.1fx%n",
+                    rows, rows * 1e9 / single, batch, rows * 1e9 / batched, (double) single / batched);
+        }
+    }
+
+    private static long timeSingle(Connection connection, int rows) throws Exception {
+        connection.setAutoCommit(true);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE
+                + " (wallet_address, challenge_id, check_in_date, tx_status) VALUES (?, ?, ?, 'PENDING')")) {
+            Date day = Date.valueOf(LocalDate.now());
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, wallet(i));
+                insert.setLong(2, i % 5);
+                insert.setDate(3, day);
+                insert.executeUpdate();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long timeBatched(Connection connection, int rows, int batch) throws Exception {
+        Date day = Date.valueOf(LocalDate.now());
+        long start = System.nanoTime();
+        for (int from = 0; from < rows; from += batch) {
+            int size = Math.min(batch, rows - from);
+            StringBuilder sql = new StringBuilder("INSERT INTO " + TABLE
+                    + " (wallet_address, challenge_id, check_in_date, tx_status) VALUES ");
+            for (int i = 0; i < size; i++) {
+                sql.append(i == 0 ? "" : ",").append("(?, ?, ?, 'PENDING')");
+            }
+            sql.append(" ON DUPLICATE KEY UPDATE id = id");
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < size; i++) {
+                    insert.setString(i * 3 + 1, wallet(from + i));
+                    insert.setLong(i * 3 + 2, (from + i) % 5);
+                    insert.setDate(i * 3 + 3, day);
+                }
+                insert.executeUpdate();
+            }
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+        return System.nanoTime() - start;
+    }
+
+    private static void reset(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " LIKE daily_check_in");
+        }
+    }
+
+    private static String wallet(int i) {
+        return String.format("0x%040x", i / 5);
+    }
+}
@@ -0,0 +1,165 @@
+package com.service;
+
+import com.domain.DailyCheckIn;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CheckInPipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CheckInService checkInService = mock(CheckInService.class);
+    private final StubVerifier stub = new StubVerifier();
+    private final CheckInPipeline pipeline = new CheckInPipeline();
+
+    @BeforeEach
+    void setUp() {
+        when(checkInService.today()).thenReturn(LocalDate.of(2026, 1, 1));
+        ReflectionTestUtils.setField(pipeline, "proofVerifiers", List.of(stub));
+        when(checkInService.newCheckIn(anyString(), anyLong(), any())).thenAnswer(invocation -> {
+            DailyCheckIn checkIn = new DailyCheckIn();
+            checkIn.setWalletAddress(invocation.getArgument(0));
+            checkIn.setChallengeId(invocation.getArgument(1));
+            return checkIn;
+        });
+        CheckInWriteBuffer writeBuffer = new CheckInWriteBuffer();
+        ReflectionTestUtils.setField(writeBuffer, "enabled", false);
+        ReflectionTestUtils.setField(writeBuffer, "checkInService", checkInService);
+        ReflectionTestUtils.setField(writeBuffer, "meterRegistry", meterRegistry);
+        writeBuffer.init();
+        ReflectionTestUtils.setField(pipeline, "checkInService", checkInService);
+        ReflectionTestUtils.setField(pipeline, "checkInWriteBuffer", writeBuffer);
+        ReflectionTestUtils.setField(pipeline, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(pipeline, "workers", 4);
+        ReflectionTestUtils.setField(pipeline, "queueSize", 100);
+        ReflectionTestUtils.setField(pipeline, "persistTimeoutMs", 1000L);
+        pipeline.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneVerificationAndOneWrite() {
+        DailyCheckIn checkIn = new DailyCheckIn();
+        checkIn.setTxStatus("PENDING");
+        when(checkInService.recordCheckIn(any(DailyCheckIn.class))).thenReturn(checkIn);
+
+        CompletableFuture<ProofVerifier.Proof> pending = new CompletableFuture<>();
+        stub.next = pending;
+        CompletableFuture<Map<String, Object>> a = pipeline.check("stub", "0xAbc", 1L, null);
+        CompletableFuture<Map<String, Object>> b = pipeline.check("stub", "0xabc", 1L, null);
+        pending.complete(ProofVerifier.Proof.passed("ok", null));
+
+        Map<String, Object> result = a.join();
+        assertEquals(result, b.join());
+        assertEquals(true, result.get("clockedIn"));
+        assertEquals("PENDING", result.get("txStatus"));
+        assertEquals(1, stub.calls);
+        verify(checkInService, times(1)).recordCheckIn(any(DailyCheckIn.class));
+        assertEquals(1, meterRegistry.get("checkin.pipeline.stage")
+                .tag("stage", "persist").tag("outcome", "ok").timer().count());
+    }
+
+    @Test
+    void differentContentIsVerifiedSeparately() {
+        CompletableFuture<ProofVerifier.Proof> pending = new CompletableFuture<>();
+        stub.next = pending;
+        CompletableFuture<Map<String, Object>> a = pipeline.check("stub", "0xabc", null, "第一版笔记");
+        CompletableFuture<Map<String, Object>> b = pipeline.check("stub", "0xabc", null, "第一版笔记");
+        CompletableFuture<Map<String, Object>> c = pipeline.check("stub", "0xabc", null, "修改后的笔记");
+        pending.complete(ProofVerifier.Proof.passed("ok", null));
+
+        a.join();
+        b.join();
+        c.join();
+        assertEquals(2, stub.calls);
+    }
+
+    @Test
+    void alreadyCheckedInSkipsPersist() {
+        when(checkInService.isCheckedInToday("0xabc", 1L)).thenReturn(true);
+        stub.next = CompletableFuture.completedFuture(ProofVerifier.Proof.passed("ok", null));
+
+        Map<String, Object> result = pipeline.check("stub", "0xabc", 1L, null).join();
+        assertEquals("ok (无需重复上链)", result.get("message"));
+        verify(checkInService, never()).recordCheckIn(any(DailyCheckIn.class));
+    }
+
+    @Test
+    void verifyTimeoutIsDeferred() throws Exception {
+        stub.timeoutMs = 50;
+        stub.next = new CompletableFuture<>();
+
+        Map<String, Object> result = pipeline.check("stub", "0xabc", 1L, null).get(2, TimeUnit.SECONDS);
+        assertEquals(true, result.get("deferred"));
+        assertEquals(false, result.get("clockedIn"));
+        assertTrue(meterRegistry.get("checkin.pipeline.stage")
+                .tag("stage", "verify").tag("outcome", "timeout").timer().count() > 0);
+        verify(checkInService, never()).recordCheckIn(any(DailyCheckIn.class));
+    }
+
+    @Test
+    void persistTimeoutIsPendingNotFailed() throws Exception {
+        CheckInWriteBuffer slowBuffer = mock(CheckInWriteBuffer.class);
+        when(slowBuffer.submit("0xabc", 1L, null)).thenReturn(new CompletableFuture<>());
+        ReflectionTestUtils.setField(pipeline, "checkInWriteBuffer", slowBuffer);
+        ReflectionTestUtils.setField(pipeline, "persistTimeoutMs", 50L);
+        stub.next = CompletableFuture.completedFuture(ProofVerifier.Proof.passed("ok", null));
+
+        Map<String, Object> result = pipeline.check("stub", "0xabc", 1L, null).get(2, TimeUnit.SECONDS);
+        assertEquals(true, result.get("success"));
+        assertEquals(true, result.get("deferred"));
+        assertEquals("PENDING", result.get("txStatus"));
+    }
+
+    private static class StubVerifier implements ProofVerifier {
+        CompletableFuture<Proof> next;
+        long timeoutMs = 1000;
+        int calls;
+
+        @Override
+        public String type() {
+            return "stub";
+        }
+
+        @Override
+        public long timeoutMs() {
+            return timeoutMs;
+        }
+
+        @Override
+        public Proof verify(String walletAddress, Long challengeId, String content) {
+            return verifyAsync(walletAddress, challengeId, content, Runnable::run).join();
+        }
+
+        @Override
+        public CompletableFuture<Proof> verifyAsync(String walletAddress, Long challengeId, String content,
+                                                    Executor executor) {
+            calls++;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.service;
+
+import com.domain.DailyCheckIn;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CheckInWriteBufferTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CheckInService checkInService = mock(CheckInService.class);
+    private final CheckInWriteBuffer buffer = new CheckInWriteBuffer();
+
+    @BeforeEach
+    void setUp() {
+        when(checkInService.newCheckIn(anyString(), anyLong(), any())).thenAnswer(invocation -> {
+            DailyCheckIn checkIn = new DailyCheckIn();
+            checkIn.setWalletAddress(invocation.getArgument(0));
+            checkIn.setChallengeId(invocation.getArgument(1));
+            return checkIn;
+        });
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "windowMs", 50L);
+        ReflectionTestUtils.setField(buffer, "maxBatch", 3);
+        ReflectionTestUtils.setField(buffer, "workers", 1);
+        ReflectionTestUtils.setField(buffer, "checkInService", checkInService);
+        ReflectionTestUtils.setField(buffer, "meterRegistry", meterRegistry);
+        buffer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.shutdown();
+    }
+
+    @Test
+    void acknowledgesOnlyAfterTheBatchCommits() throws Exception {
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        when(checkInService.recordCheckIns(anyList())).thenAnswer(invocation -> {
+            committing.countDown();
+            commit.await(5, TimeUnit.SECONDS);
+            List<DailyCheckIn> rows = invocation.getArgument(0);
+            List<DailyCheckIn> written = new ArrayList<>(rows);
+            written.set(1, null);
+            return written;
+        });
+
+        List<CompletableFuture<DailyCheckIn>> acks = new ArrayList<>();
+        for (long i = 0; i < 3; i++) {
+            acks.add(buffer.submit("0xabc", i, null));
+        }
+        // 满批立即写入，但事务提交前不确认
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        acks.forEach(ack -> assertFalse(ack.isDone()));
+
+        commit.countDown();
+        assertEquals(0L, acks.get(0).get(5, TimeUnit.SECONDS).getChallengeId());
+        assertNull(acks.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals(2L, acks.get(2).get(5, TimeUnit.SECONDS).getChallengeId());
+        verify(checkInService, times(1)).recordCheckIns(anyList());
+    }
+
+    @Test
+    void failedBatchFallsBackToSingleWritesAndNeverAcknowledgesALostRow() throws Exception {
+        when(checkInService.recordCheckIns(anyList())).thenThrow(new IllegalStateException("deadlock"));
+        when(checkInService.recordCheckIn(any(DailyCheckIn.class))).thenAnswer(invocation -> {
+            DailyCheckIn checkIn = invocation.getArgument(0);
+            if (checkIn.getChallengeId() == 1L) {
+                throw new IllegalStateException("connection lost");
+            }
+            return checkIn;
+        });
+
+        CompletableFuture<DailyCheckIn> ok = buffer.submit("0xabc", 0L, null);
+        CompletableFuture<DailyCheckIn> lost = buffer.submit("0xabc", 1L, null);
+
+        assertEquals(0L, ok.get(5, TimeUnit.SECONDS).getChallengeId());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> lost.get(5, TimeUnit.SECONDS));
+        assertEquals("connection lost", e.getCause().getMessage());
+    }
+
+    @Test
+    void shutdownFlushesBufferedRows() throws Exception {
+        ReflectionTestUtils.setField(buffer, "windowMs", 60_000L);
+        buffer.shutdown();
+        buffer.init();
+        when(checkInService.recordCheckIn(any(DailyCheckIn.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CompletableFuture<DailyCheckIn> pending = buffer.submit("0xabc", 7L, null);
+        assertFalse(pending.isDone());
+        buffer.shutdown();
+        assertEquals(7L, pending.get(1, TimeUnit.SECONDS).getChallengeId());
+    }
+}
@@ -0,0 +1,53 @@
+package com.service;
+
+import com.domain.entity.GitHubConnection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ConnectionCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConnectionCache cache = new ConnectionCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        cache.init();
+    }
+
+    @Test
+    void readsThroughOnceAndIgnoresAddressCase() {
+        GitHubConnection connection = new GitHubConnection();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertSame(connection, cache.github("0xAbC", () -> { loads.incrementAndGet(); return connection; }));
+        assertSame(connection, cache.github("0xabc", () -> { loads.incrementAndGet(); return null; }));
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "connection.github")
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "connection.github")
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void cachesAbsenceUntilInvalidated() {
+        AtomicInteger loads = new AtomicInteger();
+        assertNull(cache.strava("0xabc", () -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.strava("0xabc", () -> { loads.incrementAndGet(); return null; }));
+        assertEquals(1, loads.get());
+
+        cache.invalidateStrava("0xABC");
+        cache.strava("0xabc", () -> { loads.incrementAndGet(); return null; });
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,95 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.domain.DailyCheckIn;
+import com.domain.entity.GitHubConnection;
+import com.mapper.DailyCheckInMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardStatusServiceTest {
+
+    private static final String WALLET = "0xabc";
+
+    private final GitHubOAuthService gitHubOAuthService = mock(GitHubOAuthService.class);
+    private final StravaService stravaService = mock(StravaService.class);
+    private final ChallengeIndexService challengeIndexService = mock(ChallengeIndexService.class);
+    private final CheckInIndex checkInIndex = mock(CheckInIndex.class);
+    private final DailyCheckInMapper dailyCheckInMapper = mock(DailyCheckInMapper.class);
+    private final DashboardStatusService service = new DashboardStatusService();
+
+    @BeforeAll
+    static void initTableInfo() {
+        // LambdaQueryWrapper 的 select 需要实体元数据
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), DailyCheckIn.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        CheckInService checkInService = new CheckInService();
+        ReflectionTestUtils.setField(checkInService, "checkInIndex", checkInIndex);
+        ReflectionTestUtils.setField(checkInService, "dailyCheckInMapper", dailyCheckInMapper);
+        ReflectionTestUtils.setField(service, "gitHubOAuthService", gitHubOAuthService);
+        ReflectionTestUtils.setField(service, "stravaService", stravaService);
+        ReflectionTestUtils.setField(service, "challengeIndexService", challengeIndexService);
+        ReflectionTestUtils.setField(service, "checkInService", checkInService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aggregatesConnectionsAndTodayCheckInsForActiveChallenges() {
+        GitHubConnection connection = new GitHubConnection();
+        connection.setGithubUsername("octocat");
+        connection.setGithubAvatarUrl("https://avatars.example/octocat");
+        when(gitHubOAuthService.getConnectionByWallet(WALLET)).thenReturn(connection);
+        when(challengeIndexService.listActiveIds(WALLET)).thenReturn(List.of(1L, 2L));
+        // 1 未知需查库，2 索引确认未打卡
+        when(checkInIndex.isCheckedIn(WALLET, 1L)).thenReturn(null);
+        when(checkInIndex.isCheckedIn(WALLET, 2L)).thenReturn(false);
+        DailyCheckIn checkIn = new DailyCheckIn();
+        checkIn.setChallengeId(1L);
+        checkIn.setTxStatus("SENT");
+        checkIn.setTxHash("0xhash");
+        when(dailyCheckInMapper.selectList(any())).thenReturn(List.of(checkIn));
+
+        Map<String, Object> status = service.getStatus(WALLET, null);
+
+        assertEquals(List.of("day", "github", "strava", "challenges", "checkIns"), List.copyOf(status.keySet()));
+        Map<String, Object> github = (Map<String, Object>) status.get("github");
+        assertEquals(true, github.get("connected"));
+        assertEquals("octocat", github.get("username"));
+        assertEquals(false, ((Map<String, Object>) status.get("strava")).get("connected"));
+        assertEquals(List.of(1L, 2L), status.get("challenges"));
+        Map<Long, Map<String, Object>> checkIns = (Map<Long, Map<String, Object>>) status.get("checkIns");
+        assertEquals(1, checkIns.size());
+        assertEquals("SENT", checkIns.get(1L).get("txStatus"));
+        assertEquals("0xhash", checkIns.get(1L).get("txHash"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void skipsInQueryWhenIndexSaysNothingIsCheckedIn() {
+        when(checkInIndex.isCheckedIn(WALLET, 1L)).thenReturn(false);
+        when(checkInIndex.isCheckedIn(WALLET, 2L)).thenReturn(false);
+
+        Map<String, Object> status = service.getStatus(WALLET, List.of(1L, 2L));
+
+        assertEquals(0, ((Map<Long, Object>) status.get("checkIns")).size());
+        verify(dailyCheckInMapper, never()).selectList(any());
+        verify(challengeIndexService, never()).listActiveIds(any());
+    }
+}
@@ -0,0 +1,57 @@
+package com.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeepSeekServiceTest {
+
+    @Test
+    void rejectsWithRetryMessageWhenQueueIsFull() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NoteVerdictCache cache = mock(NoteVerdictCache.class);
+        CountDownLatch blocked = new CountDownLatch(1);
+        when(cache.get(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            blocked.await(5, TimeUnit.SECONDS);
+            return new DeepSeekService.ValidationResult(true, "ok");
+        });
+
+        DeepSeekService service = new DeepSeekService();
+        ReflectionTestUtils.setField(service, "noteVerdictCache", cache);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "queueSize", 1);
+        service.init();
+        try {
+            // 一个在执行，一个在排队，第三个被拒绝
+            CompletableFuture<DeepSeekService.ValidationResult> running = service.validateReadingNoteAsync("0xa", "note-1");
+            CompletableFuture<DeepSeekService.ValidationResult> queued = service.validateReadingNoteAsync("0xb", "note-2");
+            DeepSeekService.ValidationResult rejected = service.validateReadingNoteAsync("0xc", "note-3").getNow(null);
+
+            assertFalse(rejected.pass);
+            assertTrue(rejected.fallback);
+            assertEquals("审核排队的人太多了，稍后再交一次。", rejected.reason);
+            assertEquals(1.0, meterRegistry.get("deepseek.limiter.rejected").tag("reason", "queue_full")
+                    .counter().count());
+
+            blocked.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS).pass);
+            assertTrue(queued.get(5, TimeUnit.SECONDS).pass);
+        } finally {
+            blocked.countDown();
+            service.shutdown();
+        }
+    }
+}
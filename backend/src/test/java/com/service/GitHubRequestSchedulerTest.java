@@ -0,0 +1,161 @@
+package com.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitHubRequestSchedulerTest {
+
+    private static final String TOKEN = "gho_secret";
+
+    private final GitHubRequestScheduler scheduler = new GitHubRequestScheduler();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "workers", 1);
+        ReflectionTestUtils.setField(scheduler, "backgroundReserve", 0.2);
+        ReflectionTestUtils.setField(scheduler, "userMaxWaitMs", 5000L);
+        ReflectionTestUtils.setField(scheduler, "backgroundMaxWaitMs", 5000L);
+        ReflectionTestUtils.setField(scheduler, "budgetsMaxSize", 100L);
+        ReflectionTestUtils.setField(scheduler, "budgetIdleMinutes", 120L);
+        scheduler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void budgetKeyDoesNotContainToken() {
+        String key = GitHubRequestScheduler.budgetKey(TOKEN, GitHubRequestScheduler.RESOURCE_CORE);
+
+        assertFalse(key.contains(TOKEN));
+        assertEquals(key, GitHubRequestScheduler.budgetKey(TOKEN, GitHubRequestScheduler.RESOURCE_CORE));
+    }
+
+    @Test
+    void userRequestsRunBeforeQueuedBackgroundRequests() throws Exception {
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> first = submit(GitHubRequestScheduler.Priority.BACKGROUND, () -> {
+            blocking.countDown();
+            await(release);
+            return ok(-1, -1, 0);
+        });
+        assertTrue(blocking.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> background = submit(GitHubRequestScheduler.Priority.BACKGROUND, () -> {
+            order.add("background");
+            return ok(-1, -1, 0);
+        });
+        waitForQueue(1);
+        CompletableFuture<Void> user = submit(GitHubRequestScheduler.Priority.USER, () -> {
+            order.add("user");
+            return ok(-1, -1, 0);
+        });
+        waitForQueue(2);
+        release.countDown();
+
+        CompletableFuture.allOf(first, background, user).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("user", "background"), order);
+    }
+
+    @Test
+    void backgroundStopsAtReserveWhileUserStillPasses() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "backgroundMaxWaitMs", 100L);
+        long resetSeconds = System.currentTimeMillis() / 1000 + 3600;
+        scheduler.execute(TOKEN, GitHubRequestScheduler.RESOURCE_CORE, GitHubRequestScheduler.Priority.USER,
+                () -> ok(10, 2, resetSeconds));
+
+        // 剩余 2 = ceil(10 * 0.2)，后台不能再用
+        AtomicInteger backgroundCalls = new AtomicInteger();
+        assertThrows(GitHubRequestScheduler.DeferredException.class,
+                () -> scheduler.execute(TOKEN, GitHubRequestScheduler.RESOURCE_CORE,
+                        GitHubRequestScheduler.Priority.BACKGROUND, () -> {
+                            backgroundCalls.incrementAndGet();
+                            return ok(10, 1, resetSeconds);
+                        }));
+        assertEquals(0, backgroundCalls.get());
+
+        ResponseEntity<String> response = scheduler.execute(TOKEN, GitHubRequestScheduler.RESOURCE_CORE,
+                GitHubRequestScheduler.Priority.USER, () -> ok(10, 1, resetSeconds));
+        assertEquals("ok", response.getBody());
+    }
+
+    @Test
+    void exhaustedBudgetDelaysUntilResetInsteadOfFailing() throws Exception {
+        long resetMs = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        scheduler.execute(TOKEN, GitHubRequestScheduler.RESOURCE_CORE, GitHubRequestScheduler.Priority.USER,
+                () -> ok(10, 0, resetMs / 1000));
+
+        AtomicInteger calls = new AtomicInteger();
+        ResponseEntity<String> response = scheduler.execute(TOKEN, GitHubRequestScheduler.RESOURCE_CORE,
+                GitHubRequestScheduler.Priority.USER, () -> {
+                    calls.incrementAndGet();
+                    return ok(10, 9, resetMs / 1000 + 3600);
+                });
+
+        assertEquals("ok", response.getBody());
+        assertEquals(1, calls.get());
+        assertTrue(System.currentTimeMillis() >= resetMs, "request was sent before the reset time");
+    }
+
+    private CompletableFuture<Void> submit(GitHubRequestScheduler.Priority priority,
+                                           Supplier<ResponseEntity<String>> call) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                scheduler.execute(TOKEN, GitHubRequestScheduler.RESOURCE_CORE, priority, call);
+            } catch (GitHubRequestScheduler.DeferredException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private void waitForQueue(int size) throws InterruptedException {
+        Object queue = ReflectionTestUtils.getField(scheduler, "queue");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (((Collection<?>) queue).size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, ((Collection<?>) queue).size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ResponseEntity<String> ok(int limit, int remaining, long resetSeconds) {
+        HttpHeaders headers = new HttpHeaders();
+        if (remaining >= 0) {
+            headers.set("X-RateLimit-Limit", String.valueOf(limit));
+            headers.set("X-RateLimit-Remaining", String.valueOf(remaining));
+            headers.set("X-RateLimit-Reset", String.valueOf(resetSeconds));
+        }
+        return ResponseEntity.ok().headers(headers).body("ok");
+    }
+}
@@ -0,0 +1,128 @@
+package com.service;
+
+import com.mapper.GitHubConnectionMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class GitHubWebhookServiceTest {
+
+    private static final String SECRET = "webhook-secret";
+    private static final byte[] BODY = "{\"zen\":\"ok\",\"sender\":{\"id\":42}}".getBytes(StandardCharsets.UTF_8);
+
+    private final GitHubConnectionMapper gitHubConnectionMapper = mock(GitHubConnectionMapper.class);
+    private final GitHubPushLedger gitHubPushLedger = mock(GitHubPushLedger.class);
+    private final GitHubWebhookService service = new GitHubWebhookService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "secret", SECRET);
+        ReflectionTestUtils.setField(service, "gitHubConnectionMapper", gitHubConnectionMapper);
+        ReflectionTestUtils.setField(service, "connectionCache", mock(ConnectionCache.class));
+        ReflectionTestUtils.setField(service, "gitHubPushLedger", gitHubPushLedger);
+    }
+
+    @Test
+    void validSignatureIsAccepted() throws Exception {
+        assertTrue(service.verifySignature(BODY, "sha256=" + hmac(SECRET, BODY)));
+    }
+
+    @Test
+    void tamperedBodyIsRejected() throws Exception {
+        String signature = "sha256=" + hmac(SECRET, BODY);
+        byte[] tampered = "{\"zen\":\"ok\",\"sender\":{\"id\":43}}".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(service.verifySignature(tampered, signature));
+        assertFalse(service.verifySignature(BODY, "sha256=" + hmac("other-secret", BODY)));
+    }
+
+    @Test
+    void malformedHeaderIsRejected() throws Exception {
+        String hex = hmac(SECRET, BODY);
+
+        assertFalse(service.verifySignature(BODY, null));
+        assertFalse(service.verifySignature(BODY, hex));
+        assertFalse(service.verifySignature(BODY, "sha1=" + hex));
+        assertFalse(service.verifySignature(BODY, "sha256=not-hex"));
+        assertFalse(service.verifySignature(BODY, "sha256=" + hex.substring(0, 10)));
+    }
+
+    @Test
+    void missingSecretRejectsEverything() throws Exception {
+        ReflectionTestUtils.setField(service, "secret", "");
+
+        assertFalse(service.verifySignature(BODY, "sha256=" + hmac(SECRET, BODY)));
+    }
+
+    @Test
+    void parseReadsSenderAndSkipsLargeFields() throws IOException {
+        GitHubWebhookService.Payload payload = GitHubWebhookService.parse(bytes(
+                "{\"ref\":\"refs/heads/main\",\"commits\":[{\"id\":\"abc\",\"author\":{\"id\":7}}],"
+                        + "\"repository\":{\"id\":99,\"owner\":{\"id\":8}},"
+                        + "\"sender\":{\"login\":\"octo\",\"id\":42,\"site_admin\":false}}"));
+
+        assertEquals(42L, payload.senderId);
+        assertFalse(payload.deleted);
+        assertNull(payload.accountId);
+    }
+
+    @Test
+    void parseReadsDeletedPush() throws IOException {
+        GitHubWebhookService.Payload payload = GitHubWebhookService.parse(bytes(
+                "{\"ref\":\"refs/heads/old\",\"deleted\":true,\"sender\":{\"id\":42}}"));
+
+        assertTrue(payload.deleted);
+        assertEquals(42L, payload.senderId);
+    }
+
+    @Test
+    void parseReadsInstallationAccount() throws IOException {
+        GitHubWebhookService.Payload payload = GitHubWebhookService.parse(bytes(
+                "{\"action\":\"deleted\",\"installation\":{\"id\":1,\"account\":{\"login\":\"octo\",\"id\":42}},"
+                        + "\"sender\":{\"id\":43}}"));
+
+        assertEquals("deleted", payload.action);
+        assertEquals(42L, payload.accountId);
+        assertEquals(43L, payload.senderId);
+    }
+
+    @Test
+    void parseRejectsNonObject() {
+        assertThrows(IOException.class, () -> GitHubWebhookService.parse(bytes("[1,2]")));
+    }
+
+    @Test
+    void deletedBranchPushIsNotRecorded() throws IOException {
+        service.handle("push", bytes("{\"deleted\":true,\"sender\":{\"id\":42}}"));
+
+        verifyNoInteractions(gitHubConnectionMapper);
+        verify(gitHubPushLedger, never()).markPushed(any(), any());
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String hmac(String secret, byte[] body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body));
+    }
+}
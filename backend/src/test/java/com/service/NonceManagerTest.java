@@ -0,0 +1,151 @@
+package com.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NonceManagerTest {
+
+    @Test
+    void concurrentAcquireAndResyncNeverHandOutANonceTwice() throws Exception {
+        // 节点只看到了部分已广播的交易，PENDING 落后于本地分配
+        AtomicLong pending = new AtomicLong(100);
+        NonceManager nonces = new NonceManager(pending::get);
+        Set<BigInteger> seen = ConcurrentHashMap.newKeySet();
+        List<BigInteger> duplicates = new CopyOnWriteArrayList<>();
+        int threads = 16;
+        int perThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    await(start);
+                    for (int i = 0; i < perThread; i++) {
+                        try {
+                            BigInteger nonce = nonces.acquire();
+                            if (!seen.add(nonce)) {
+                                duplicates.add(nonce);
+                            }
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+            }
+            pool.execute(() -> {
+                await(start);
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        pending.addAndGet(5);
+                        nonces.resync();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(duplicates.isEmpty(), "duplicate nonces: " + duplicates);
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void resyncMovesForwardOnly() throws Exception {
+        AtomicLong pending = new AtomicLong(10);
+        NonceManager nonces = new NonceManager(pending::get);
+        assertEquals(BigInteger.valueOf(10), nonces.acquire());
+        assertEquals(BigInteger.valueOf(11), nonces.acquire());
+
+        pending.set(5);
+        nonces.resync();
+        assertEquals(BigInteger.valueOf(12), nonces.acquire());
+
+        pending.set(20);
+        nonces.resync();
+        assertEquals(BigInteger.valueOf(20), nonces.acquire());
+    }
+
+    @Test
+    void releaseOnlyRollsBackTheLatestNonce() throws Exception {
+        NonceManager nonces = new NonceManager(() -> 0);
+        BigInteger first = nonces.acquire();
+        BigInteger second = nonces.acquire();
+        assertFalse(nonces.release(first));
+        assertTrue(nonces.release(second));
+        assertEquals(second, nonces.acquire());
+    }
+
+    @Test
+    void reconcileRebroadcastsDroppedTxAndFillsRejectedHoles() throws Exception {
+        NonceManager nonces = new NonceManager(() -> 10);
+        for (int i = 0; i < 4; i++) {
+            nonces.acquire();
+        }
+        nonces.track(BigInteger.valueOf(10), "0xmined");
+        nonces.track(BigInteger.valueOf(11), "0xdropped");
+        nonces.track(BigInteger.valueOf(12), "0xrejected");
+        nonces.track(BigInteger.valueOf(13), "0xqueued");
+        // 12 被节点拒绝但已不是最后一个 nonce，留下空洞
+        assertFalse(nonces.release(BigInteger.valueOf(12)));
+
+        long now = System.currentTimeMillis() + 120_000;
+        NonceManager.Reconcile plan = nonces.reconcile(11, 11, now, 60_000);
+        assertEquals(Map.of(BigInteger.valueOf(11), "0xdropped"), plan.rebroadcast);
+        assertEquals(List.of(BigInteger.valueOf(12)), plan.fill);
+
+        // 11 打包、12 已填补后不再有空洞
+        nonces.track(BigInteger.valueOf(12), "0xfiller");
+        plan = nonces.reconcile(12, 14, now, 60_000);
+        assertTrue(plan.rebroadcast.isEmpty());
+        assertTrue(plan.fill.isEmpty());
+        assertEquals(BigInteger.valueOf(14), nonces.acquire());
+    }
+
+    @Test
+    void reconcileLeavesFreshlyAcquiredNoncesAlone() throws Exception {
+        NonceManager nonces = new NonceManager(() -> 0);
+        nonces.acquire();
+        nonces.acquire();
+        nonces.release(BigInteger.ZERO);
+
+        // 刚分配的 nonce 可能仍在签名/广播
+        NonceManager.Reconcile plan = nonces.reconcile(0, 0, System.currentTimeMillis(), 60_000);
+        assertTrue(plan.rebroadcast.isEmpty());
+        assertTrue(plan.fill.isEmpty());
+    }
+
+    @Test
+    void onlyNonceTooLowTriggersResync() {
+        assertTrue(NonceManager.isNonceTooLow("nonce too low: next nonce 12, tx nonce 10"));
+        assertFalse(NonceManager.isNonceTooLow("replacement transaction underpriced"));
+        assertFalse(NonceManager.isNonceTooLow("nonce too high"));
+        assertFalse(NonceManager.isNonceTooLow(null));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 阅读笔记审核缓存: 归一化命中、近似重复与兜底结论
+ */
+class NoteVerdictCacheTest {
+
+    private static final String NOTE = "今天读完了《被讨厌的勇气》第三章，课题分离让我意识到很多焦虑来自替别人的课题操心，"
+            + "以后遇到别人的评价先问一句这是谁的课题。";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger llmCalls = new AtomicInteger();
+    private NoteVerdictCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NoteVerdictCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(cache, "nearDuplicateEnabled", true);
+        ReflectionTestUtils.setField(cache, "nearDuplicateMinChars", 30);
+        ReflectionTestUtils.setField(cache, "maxDistance", 3);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        cache.init();
+    }
+
+    @Test
+    void reusesVerdictForNormalizedAndNearDuplicateResubmits() {
+        assertTrue(cache.get("0xAbc", NOTE, this::pass).pass);
+        assertTrue(cache.get("0xabc", "  " + NOTE.replace("，", ",  ") + "\n", this::pass).pass);
+        assertTrue(cache.get("0xabc", NOTE + "！", this::pass).pass);
+
+        assertEquals(1, llmCalls.get());
+        assertEquals(1.0, meterRegistry.get("deepseek.verdict.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("deepseek.verdict.cache").tag("result", "near_duplicate").counter().count());
+    }
+
+    @Test
+    void rejectsCopiedNoteFromAnotherUser() {
+        cache.get("0xabc", NOTE, this::pass);
+
+        DeepSeekService.ValidationResult copied = cache.get("0xdef", NOTE + "！", this::pass);
+
+        assertFalse(copied.pass);
+        assertEquals(NoteVerdictCache.COPIED_REASON, copied.reason);
+        assertEquals(1, llmCalls.get());
+    }
+
+    @Test
+    void doesNotCacheFallbackAndEvictsLeastRecentlyUsed() {
+        cache.get("0xabc", "第一篇", () -> {
+            llmCalls.incrementAndGet();
+            return new DeepSeekService.ValidationResult(true, "AI 暂时睡着了", true);
+        });
+        assertEquals(0, cache.size());
+
+        cache.get("0xabc", "第一篇", this::pass);
+        cache.get("0xabc", "第二篇", this::pass);
+        cache.get("0xabc", "第三篇", this::pass);
+        cache.get("0xabc", "第一篇", this::pass);
+
+        assertEquals(2, cache.size());
+        assertEquals(5, llmCalls.get());
+    }
+
+    @Test
+    void rejectsMaxDistanceBeyondBanding() {
+        NoteVerdictCache wide = new NoteVerdictCache();
+        ReflectionTestUtils.setField(wide, "maxDistance", NoteVerdictCache.MAX_DISTANCE_LIMIT + 1);
+        ReflectionTestUtils.setField(wide, "meterRegistry", meterRegistry);
+
+        assertThrows(IllegalStateException.class, wide::init);
+    }
+
+    private DeepSeekService.ValidationResult pass() {
+        llmCalls.incrementAndGet();
+        return new DeepSeekService.ValidationResult(true, "还行");
+    }
+}
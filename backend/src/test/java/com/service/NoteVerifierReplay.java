@@ -0,0 +1,144 @@
+package com.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utils.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Data;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 阅读笔记审核回放
+ * 把一批带标注的笔记 (JSONL: {"note": "...", "expected": true/false}) 并发送入任意 NoteVerifier，
+ * 统计吞吐、延迟分位数以及与标注的一致率。
+ *
+ * 离线评估工具，只在测试类路径中，不随应用打包。
+ * 命令行: NoteVerifierReplay corpus.jsonl rules
+ *         NoteVerifierReplay corpus.jsonl openai http://localhost:11434/v1 qwen2.5 [api-key]
+ */
+public class NoteVerifierReplay {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * @param concurrency 并发调用数
+     */
+    public static Report run(NoteVerifier verifier, List<Sample> corpus, int concurrency) throws Exception {
+        long[] latencies = new long[corpus.size()];
+        boolean[] verdicts = new boolean[corpus.size()];
+        ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(corpus.size());
+            for (int i = 0; i < corpus.size(); i++) {
+                int index = i;
+                futures.add(callers.submit(() -> {
+                    long t = System.nanoTime();
+                    verdicts[index] = verifier.verify(corpus.get(index).note).pass;
+                    latencies[index] = System.nanoTime() - t;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Report report = new Report();
+        report.setVerifier(verifier.name());
+        report.setSamples(corpus.size());
+        report.setThroughputPerSecond(corpus.size() / (elapsed / 1e9));
+        Arrays.sort(latencies);
+        report.setP50Ms(percentile(latencies, 0.50));
+        report.setP95Ms(percentile(latencies, 0.95));
+        report.setP99Ms(percentile(latencies, 0.99));
+        int agreed = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            if (verdicts[i] == corpus.get(i).expected) {
+                agreed++;
+            } else {
+                report.getDisagreements().add(corpus.get(i).note);
+            }
+        }
+        report.setAgreementRate(corpus.isEmpty() ? 0 : (double) agreed / corpus.size());
+        return report;
+    }
+
+    public static List<Sample> load(Path jsonl) throws IOException {
+        List<Sample> corpus = new ArrayList<>();
+        for (String line : Files.readAllLines(jsonl, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node = MAPPER.readTree(line);
+            corpus.add(new Sample(node.path("note").asText(), node.path("expected").asBoolean()));
+        }
+        return corpus;
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: NoteVerifierReplay <corpus.jsonl> rules | openai <base-url> <model> [api-key]");
+            System.exit(1);
+        }
+        List<Sample> corpus = load(Path.of(args[0]));
+        NoteVerifier verifier;
+        if ("openai".equals(args[1])) {
+            ChatCompletionClient client = new ChatCompletionClient(args[2].replaceAll("/+$", "") + "/chat/completions",
+                    args.length > 4 ? args[4] : "", args[3], new RestTemplate());
+            verifier = new ReadingNoteReviewer("openai", null, client,
+                    new AdaptiveConcurrencyLimiter(8, 1, 32, 20_000, 0.75), 30_000, 200, 10, 8,
+                    new SimpleMeterRegistry());
+        } else {
+            verifier = new RuleBasedNoteVerifier(10, 0.3, 0.6);
+        }
+        try {
+            System.out.println(run(verifier, corpus, Integer.getInteger("replay.concurrency", 8)));
+        } finally {
+            verifier.close();
+        }
+    }
+
+    public static class Sample {
+        final String note;
+        final boolean expected;
+
+        public Sample(String note, boolean expected) {
+            this.note = note;
+            this.expected = expected;
+        }
+    }
+
+    @Data
+    public static class Report {
+        private String verifier;
+        private int samples;
+        private double throughputPerSecond;
+        private double p50Ms;
+        private double p95Ms;
+        private double p99Ms;
+        private double agreementRate;
+        private List<String> disagreements = new ArrayList<>();
+    }
+}
@@ -0,0 +1,30 @@
+package com.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 审核回放: 本地规则引擎跑标注语料
+ */
+class NoteVerifierReplayTest {
+
+    @Test
+    void reportsAgreementAndLatencyForRuleEngine() throws Exception {
+        List<NoteVerifierReplay.Sample> corpus = NoteVerifierReplay.load(
+                Path.of(getClass().getResource("/reading-notes.jsonl").toURI()));
+
+        NoteVerifierReplay.Report report = NoteVerifierReplay.run(new RuleBasedNoteVerifier(10, 0.3, 0.6), corpus, 4);
+
+        assertEquals("rules", report.getVerifier());
+        assertEquals(corpus.size(), report.getSamples());
+        assertTrue(report.getThroughputPerSecond() > 0);
+        assertTrue(report.getP50Ms() <= report.getP99Ms());
+        // 规则引擎无法识别与阅读无关的通顺文字，其余样本应一致
+        assertEquals(List.of("今天天气不错，中午吃了一碗牛肉面，下午去公园散步了两个小时。"), report.getDisagreements());
+    }
+}
@@ -0,0 +1,159 @@
+package com.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import com.utils.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 合并审核: 使用本地 OpenAI 兼容桩服务
+ */
+class ReadingNoteReviewerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String BATCH_PREFIX = "待审核的阅读笔记: ";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean garbleBatch;
+    private HttpServer server;
+    private ReadingNoteReviewer reviewer;
+
+    @AfterEach
+    void tearDown() {
+        if (reviewer != null) {
+            reviewer.close();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void coalescesConcurrentNotesIntoOneRequest() throws Exception {
+        reviewer = reviewer(startStub());
+
+        List<String> notes = notes(8);
+        List<DeepSeekService.ValidationResult> results = submitConcurrently(notes);
+
+        assertEquals(1, requests.get());
+        assertVerdicts(notes, results);
+        assertEquals(8.0, meterRegistry.get("deepseek.batch.size").summary().max());
+    }
+
+    @Test
+    void fallsBackToSingleReviewsWhenBatchReplyIsUnparseable() throws Exception {
+        garbleBatch = true;
+        reviewer = reviewer(startStub());
+
+        List<String> notes = notes(5);
+        List<DeepSeekService.ValidationResult> results = submitConcurrently(notes);
+
+        assertEquals(1 + notes.size(), requests.get());
+        assertVerdicts(notes, results);
+        assertEquals(1.0, meterRegistry.get("deepseek.batch.fallback")
+                .tag("reason", "unparseable").counter().count());
+    }
+
+    private ReadingNoteReviewer reviewer(String url) {
+        ChatCompletionClient client = new ChatCompletionClient(url, "test-key", "stub-model", new RestTemplate());
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 8, 10_000, 0.75);
+        return new ReadingNoteReviewer("stub", null, client, limiter, 1_000, 200, 10, 8, meterRegistry);
+    }
+
+    private List<DeepSeekService.ValidationResult> submitConcurrently(List<String> notes) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(notes.size());
+        try {
+            List<CompletableFuture<DeepSeekService.ValidationResult>> futures = new ArrayList<>();
+            for (String note : notes) {
+                futures.add(CompletableFuture.supplyAsync(() -> reviewer.verify(note), callers));
+            }
+            List<DeepSeekService.ValidationResult> results = new ArrayList<>();
+            for (CompletableFuture<DeepSeekService.ValidationResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    /**
+     * 奇数条为敷衍笔记
+     */
+    private static List<String> notes(int count) {
+        List<String> notes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            notes.add(i % 2 == 0 ? "第" + i + "章讲了复利思维，长期主义需要忍受前期看不到回报的阶段" : "好" + i);
+        }
+        return notes;
+    }
+
+    private static void assertVerdicts(List<String> notes, List<DeepSeekService.ValidationResult> results) {
+        for (int i = 0; i < notes.size(); i++) {
+            assertEquals(verdict(notes.get(i)), results.get(i).pass, notes.get(i));
+            assertEquals(false, results.get(i).fallback);
+        }
+    }
+
+    private static boolean verdict(String note) {
+        return note.length() >= 10;
+    }
+
+    private String startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            String user = request.path("messages").path(1).path("content").asText();
+
+            String reply;
+            if (user.startsWith(BATCH_PREFIX)) {
+                if (garbleBatch) {
+                    reply = "抱歉，我无法按要求的格式回答";
+                } else {
+                    ObjectNode root = MAPPER.createObjectNode();
+                    ArrayNode verdicts = root.putArray("verdicts");
+                    for (JsonNode note : MAPPER.readTree(user.substring(BATCH_PREFIX.length()))) {
+                        verdicts.addObject().put("id", note.path("id").asInt())
+                                .put("pass", verdict(note.path("note").asText())).put("reason", "批量");
+                    }
+                    reply = root.toString();
+                }
+            } else {
+                String note = user.substring(user.indexOf(": ") + 2);
+                reply = MAPPER.createObjectNode().put("pass", verdict(note)).put("reason", "单条").toString();
+            }
+
+            ObjectNode response = MAPPER.createObjectNode();
+            response.putArray("choices").addObject().putObject("message").put("role", "assistant").put("content", reply);
+            byte[] body = MAPPER.writeValueAsBytes(response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+}
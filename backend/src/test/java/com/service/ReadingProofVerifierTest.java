@@ -0,0 +1,38 @@
+package com.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadingProofVerifierTest {
+
+    private final DeepSeekService deepSeekService = mock(DeepSeekService.class);
+    private final ReadingProofVerifier verifier = new ReadingProofVerifier();
+
+    @Test
+    void busyReviewIsDeferredNotInvalid() {
+        ReflectionTestUtils.setField(verifier, "deepSeekService", deepSeekService);
+        when(deepSeekService.validateReadingNoteAsync("0xa", "note")).thenReturn(CompletableFuture.completedFuture(
+                new DeepSeekService.ValidationResult(false, "审核排队的人太多了，稍后再交一次。", true)));
+
+        ProofVerifier.Proof proof = verifier.verify("0xa", 1L, "note");
+
+        assertEquals(ProofVerifier.Proof.Status.DEFERRED, proof.status);
+    }
+
+    @Test
+    void reviewedRejectionIsInvalid() {
+        ReflectionTestUtils.setField(verifier, "deepSeekService", deepSeekService);
+        when(deepSeekService.validateReadingNoteAsync("0xa", "note")).thenReturn(CompletableFuture.completedFuture(
+                new DeepSeekService.ValidationResult(false, "内容太短")));
+
+        ProofVerifier.Proof proof = verifier.verify("0xa", 1L, "note");
+
+        assertEquals(ProofVerifier.Proof.Status.INVALID, proof.status);
+    }
+}
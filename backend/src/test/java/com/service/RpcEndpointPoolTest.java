@@ -0,0 +1,185 @@
+package com.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Hash;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多 RPC 节点路由、剔除与广播，使用本地 JSON-RPC 桩服务
+ */
+class RpcEndpointPoolTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<StubNode> nodes = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RpcEndpointPool pool;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (pool != null) {
+            pool.close();
+        }
+        for (StubNode node : nodes) {
+            node.server.stop(0);
+        }
+    }
+
+    @Test
+    void readsRouteToLowestLatencyEndpoint() throws Exception {
+        StubNode slow = start(150, false, null);
+        StubNode fast = start(0, false, null);
+        Web3j web3j = Web3j.build(pool(2));
+
+        pool.probe();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(16, web3j.ethBlockNumber().send().getBlockNumber().intValue());
+        }
+
+        assertEquals(1, slow.requests.get());
+        assertEquals(11, fast.requests.get());
+    }
+
+    @Test
+    void failsOverAndEjectsUnhealthyEndpoint() throws Exception {
+        StubNode broken = start(0, true, null);
+        StubNode healthy = start(0, false, null);
+        Web3j web3j = Web3j.build(pool(2));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(16, web3j.ethBlockNumber().send().getBlockNumber().intValue());
+        }
+
+        // 第一次请求先打到 broken (尚无延迟数据)，失败计入惩罚延迟后被排到后面
+        assertTrue(broken.requests.get() <= 2);
+        assertEquals(5, healthy.requests.get());
+        assertTrue(meterRegistry.get("blockchain.rpc.requests")
+                .tag("outcome", "error").timer().count() >= 1);
+    }
+
+    @Test
+    void allEndpointsEjectedStillServesRequests() throws Exception {
+        StubNode broken = start(0, true, null);
+        pool(1);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                Web3j.build(pool).ethBlockNumber().send();
+            } catch (IOException expected) {
+                // 节点不可用
+            }
+        }
+
+        assertEquals(3, broken.requests.get());
+    }
+
+    @Test
+    void writesAreBroadcastAndAlreadyKnownCountsAsAccepted() throws Exception {
+        StubNode first = start(0, false, "already known");
+        StubNode second = start(50, false, null);
+        Web3j web3j = Web3j.build(pool(1));
+        String rawTransaction = "0xf86b80";
+
+        EthSendTransaction response = web3j.ethSendRawTransaction(rawTransaction).send();
+
+        assertFalse(response.hasError());
+        assertEquals(Hash.sha3(rawTransaction), response.getTransactionHash());
+        assertEquals(1, first.requests.get());
+        // 第二个节点是否已收到取决于返回顺序，这里等待广播完成
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, second.requests.get());
+    }
+
+    @Test
+    void writeErrorIsReturnedWhenNoEndpointAccepts() throws Exception {
+        start(0, false, "nonce too low");
+        start(0, true, null);
+        Web3j web3j = Web3j.build(pool(1));
+
+        EthSendTransaction response = web3j.ethSendRawTransaction("0xf86b80").send();
+
+        assertTrue(response.hasError());
+        assertEquals("nonce too low", response.getError().getMessage());
+    }
+
+    private RpcEndpointPool pool(int failuresToEject) {
+        List<String> urls = new ArrayList<>();
+        for (StubNode node : nodes) {
+            urls.add("http://127.0.0.1:" + node.server.getAddress().getPort());
+        }
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .readTimeout(2, TimeUnit.SECONDS)
+                .build();
+        pool = new RpcEndpointPool(urls, httpClient, meterRegistry, failuresToEject, 60000, 3, 5);
+        return pool;
+    }
+
+    /**
+     * @param delayMs 每个请求的响应延迟
+     * @param broken 为 true 时返回 HTTP 500
+     * @param sendError eth_sendRawTransaction 返回的 JSON-RPC 错误，null 表示接受
+     */
+    private StubNode start(long delayMs, boolean broken, String sendError) throws IOException {
+        StubNode node = new StubNode();
+        node.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        node.server.createContext("/", exchange -> {
+            node.requests.incrementAndGet();
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (broken) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+
+            String body;
+            String id = request.get("id").asText();
+            if ("eth_sendRawTransaction".equals(request.get("method").asText())) {
+                String raw = request.get("params").get(0).asText();
+                body = sendError != null
+                        ? "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"error\":{\"code\":-32000,\"message\":\"" + sendError + "\"}}"
+                        : "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":\"" + Hash.sha3(raw) + "\"}";
+            } else {
+                body = "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":\"0x10\"}";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        node.server.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private static class StubNode {
+        HttpServer server;
+        final AtomicInteger requests = new AtomicInteger();
+    }
+}
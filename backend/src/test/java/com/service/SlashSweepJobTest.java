@@ -0,0 +1,90 @@
+package com.service;
+
+import com.common.Constants;
+import com.domain.entity.ChainOutbox;
+import com.domain.entity.ChallengeIndex;
+import com.mapper.ChainOutboxMapper;
+import com.mapper.ChallengeIndexMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlashSweepJobTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 1, 1);
+
+    private final ChallengeIndexMapper challengeIndexMapper = mock(ChallengeIndexMapper.class);
+    private final ChainOutboxMapper chainOutboxMapper = mock(ChainOutboxMapper.class);
+    private final HabitEscrowIndexer habitEscrowIndexer = mock(HabitEscrowIndexer.class);
+    private final SlashSweepJob job = new SlashSweepJob();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(job, "challengeIndexMapper", challengeIndexMapper);
+        ReflectionTestUtils.setField(job, "chainOutboxMapper", chainOutboxMapper);
+        ReflectionTestUtils.setField(job, "habitEscrowIndexer", habitEscrowIndexer);
+        ReflectionTestUtils.setField(job, "pageSize", 2);
+        ReflectionTestUtils.setField(job, "timeBudgetMinutes", 30L);
+        when(challengeIndexMapper.selectMissedCheckIns(eq(DAY), any(), eq(0L), anyInt()))
+                .thenReturn(List.of(candidate(1, 11), candidate(2, 12)));
+        when(challengeIndexMapper.selectMissedCheckIns(eq(DAY), any(), eq(2L), anyInt()))
+                .thenReturn(List.of(candidate(3, 13)));
+        when(challengeIndexMapper.selectMissedCheckIns(eq(DAY), any(), eq(3L), anyInt()))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    void slashesAreEnqueuedAsOutboxRowsPerPage() throws Exception {
+        SlashSweepJob.SweepReport report = job.run(DAY, false);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ChainOutbox>> pages = ArgumentCaptor.forClass(List.class);
+        verify(chainOutboxMapper, times(2)).insertBatch(pages.capture());
+        List<ChainOutbox> rows = new ArrayList<>();
+        pages.getAllValues().forEach(rows::addAll);
+        assertEquals(3, rows.size());
+        for (ChainOutbox row : rows) {
+            assertEquals(Constants.OUTBOX_KIND_SLASH, row.getKind());
+            assertEquals(Constants.TX_STATUS_PENDING, row.getStatus());
+            assertEquals(DAY, row.getCheckInDate());
+        }
+        assertEquals(3, report.getCandidates());
+        assertEquals(3, report.getEnqueued());
+        verify(habitEscrowIndexer).syncOnce();
+    }
+
+    @Test
+    void dryRunOnlyCountsCandidates() throws Exception {
+        SlashSweepJob.SweepReport report = job.run(DAY, true);
+
+        verify(chainOutboxMapper, never()).insertBatch(any());
+        assertEquals(3, report.getCandidates());
+        assertEquals(0, report.getEnqueued());
+        assertTrue(report.isDryRun());
+    }
+
+    private static ChallengeIndex candidate(long id, long challengeId) {
+        ChallengeIndex index = new ChallengeIndex();
+        index.setId(id);
+        index.setUserAddress("0x" + id);
+        index.setChallengeId(challengeId);
+        return index;
+    }
+}
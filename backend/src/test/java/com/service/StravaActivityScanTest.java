@@ -0,0 +1,74 @@
+package com.service;
+
+import com.domain.entity.StravaRunCriteria;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Strava 活动列表流式扫描与达标条件
+ */
+class StravaActivityScanTest {
+
+    private static final String PAGE = "["
+            + "{\"id\":1,\"type\":\"Ride\",\"sport_type\":\"Ride\",\"distance\":20000.0,\"moving_time\":3000,"
+            + "\"map\":{\"summary_polyline\":\"abc\"},\"start_date\":\"2026-10-18T00:00:00Z\"},"
+            + "{\"id\":2,\"type\":\"Run\",\"sport_type\":\"Run\",\"distance\":3000.0,\"moving_time\":1000,"
+            + "\"start_date\":\"2026-10-18T01:00:00Z\"},"
+            + "{\"id\":3,\"type\":\"Run\",\"sport_type\":\"TrailRun\",\"distance\":5200.0,\"moving_time\":1800,"
+            + "\"segment_efforts\":[{\"id\":9,\"distance\":1.0}],\"start_date\":\"2026-10-18T02:00:00Z\"},"
+            + "{\"id\":4,\"type\":\"Run\",\"sport_type\":\"Run\",\"distance\":10000.0,\"moving_time\":3000,"
+            + "\"start_date\":\"2026-10-18T03:00:00Z\"}"
+            + "]";
+
+    @Test
+    void stopsAtFirstQualifyingActivity() throws Exception {
+        StravaRunCriteria criteria = criteria("Run,TrailRun", 5000, null, null);
+
+        // 匹配之后还有超出解析缓冲区的内容
+        StringBuilder json = new StringBuilder(PAGE.substring(0, PAGE.length() - 1));
+        for (int i = 0; i < 500; i++) {
+            json.append(",{\"id\":").append(100 + i).append(",\"type\":\"Walk\",\"distance\":100.0}");
+        }
+        ByteArrayInputStream body = stream(json.append(']').toString());
+        StravaService.ActivityPage page = StravaService.scanActivities(body,
+                activity -> StravaRunCriteriaService.matches(criteria, activity));
+
+        assertEquals(3, page.matched.getId());
+        assertEquals(3, page.count);
+        // 剩余内容已读完，连接可以复用
+        assertEquals(0, body.available());
+        assertEquals("2026-10-18", page.matched.localDate().toString());
+    }
+
+    @Test
+    void appliesPaceWindow() throws Exception {
+        // 骑行速度的“跑步” (2 分钟/公里) 不算
+        StravaRunCriteria criteria = criteria("Run", 5000, 180, 420);
+        String page = "[{\"id\":5,\"type\":\"Run\",\"distance\":10000.0,\"moving_time\":1200},"
+                + "{\"id\":6,\"type\":\"Run\",\"distance\":5000.0,\"moving_time\":3000}]";
+
+        StravaService.ActivityPage result = StravaService.scanActivities(stream(page),
+                activity -> StravaRunCriteriaService.matches(criteria, activity));
+
+        assertNull(result.matched);
+        assertEquals(2, result.count);
+    }
+
+    private static StravaRunCriteria criteria(String types, Integer minDistance, Integer minPace, Integer maxPace) {
+        StravaRunCriteria criteria = new StravaRunCriteria();
+        criteria.setActivityTypes(types);
+        criteria.setMinDistanceM(minDistance);
+        criteria.setMinPaceSPerKm(minPace);
+        criteria.setMaxPaceSPerKm(maxPace);
+        return criteria;
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,75 @@
+package com.service;
+
+import com.domain.entity.StravaConnection;
+import com.domain.entity.StravaRunCriteria;
+import com.mapper.StravaRunDayMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StravaRunLedgerTest {
+
+    private final StravaRunDayMapper stravaRunDayMapper = mock(StravaRunDayMapper.class);
+    private final StravaService stravaService = mock(StravaService.class);
+    private final StravaRunLedger ledger = new StravaRunLedger();
+    private final StravaConnection connection = new StravaConnection();
+    private final StravaRunCriteria defaults = new StravaRunCriteria();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ledger, "stravaRunDayMapper", stravaRunDayMapper);
+        ReflectionTestUtils.setField(ledger, "stravaService", stravaService);
+        ReflectionTestUtils.setField(ledger, "webhookActiveHours", 24L);
+        ReflectionTestUtils.setField(ledger, "subscriptionId", 5L);
+        connection.setId(1L);
+        connection.setWebhookActiveAt(LocalDateTime.now());
+    }
+
+    @Test
+    void recordWrittenByAnyInstanceIsSeen() {
+        when(stravaRunDayMapper.existsRun(1L, ledger.today())).thenReturn(true);
+
+        assertTrue(ledger.checkRunToday(connection, defaults));
+        verify(stravaService, never()).checkRunningToday(any(StravaConnection.class), any());
+    }
+
+    @Test
+    void missWithActiveWebhookSkipsApi() {
+        assertFalse(ledger.checkRunToday(connection, defaults));
+        verify(stravaService, never()).checkRunningToday(any(StravaConnection.class), any());
+    }
+
+    @Test
+    void missWithoutSubscriptionFallsBackToApi() {
+        ReflectionTestUtils.setField(ledger, "subscriptionId", 0L);
+        when(stravaService.checkRunningToday(connection, defaults)).thenReturn(true);
+
+        assertTrue(ledger.checkRunToday(connection, defaults));
+        verify(stravaRunDayMapper).insertIgnore(1L, ledger.today(), null);
+    }
+
+    @Test
+    void revokeReportsOnlyTodaysRecord() {
+        when(stravaRunDayMapper.selectRunDates(1L, 9L)).thenReturn(List.of(ledger.today()));
+        when(stravaRunDayMapper.selectRunDates(1L, 8L)).thenReturn(List.of(ledger.today().minusDays(3)));
+
+        assertTrue(ledger.revokeRun(1L, 9L));
+        assertFalse(ledger.revokeRun(1L, 8L));
+        assertFalse(ledger.revokeRun(1L, 7L));
+        verify(stravaRunDayMapper).deleteByActivity(1L, 9L);
+        verify(stravaRunDayMapper).deleteByActivity(1L, 8L);
+        verify(stravaRunDayMapper, never()).deleteByActivity(eq(1L), eq(7L));
+    }
+}
@@ -0,0 +1,204 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.common.Constants;
+import com.domain.entity.StravaConnection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapper.StravaConnectionMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * token 刷新: 并发去重、版本冲突、失败退避与失效
+ */
+class StravaTokenManagerTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ZoneId ZONE = ZoneId.of(Constants.ZONE_ID);
+
+    private final StravaConnectionMapper stravaConnectionMapper = mock(StravaConnectionMapper.class);
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final StravaTokenManager manager = new StravaTokenManager();
+
+    /** 数据库中的当前记录 */
+    private final AtomicReference<StravaConnection> db = new AtomicReference<>();
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), StravaConnection.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(manager, "clientId", 1);
+        ReflectionTestUtils.setField(manager, "clientSecret", "secret");
+        ReflectionTestUtils.setField(manager, "refreshWindowMinutes", 10L);
+        ReflectionTestUtils.setField(manager, "preRefreshWindowMinutes", 60L);
+        ReflectionTestUtils.setField(manager, "retryBaseMinutes", 5L);
+        ReflectionTestUtils.setField(manager, "retryMaxMinutes", 360L);
+        ReflectionTestUtils.setField(manager, "stravaConnectionMapper", stravaConnectionMapper);
+        ReflectionTestUtils.setField(manager, "connectionCache", mock(ConnectionCache.class));
+        ReflectionTestUtils.setField(manager, "restTemplate", restTemplate);
+
+        db.set(connection("old", LocalDateTime.now(ZONE).plusMinutes(1)));
+        when(stravaConnectionMapper.selectById(1L)).thenAnswer(invocation -> copy(db.get()));
+        when(stravaConnectionMapper.updateById(any(StravaConnection.class))).thenAnswer(invocation -> {
+            db.set(copy(invocation.getArgument(0)));
+            return 1;
+        });
+    }
+
+    @Test
+    void freshTokenIsUsedWithoutRefresh() {
+        StravaConnection connection = connection("current", LocalDateTime.now(ZONE).plusHours(3));
+
+        assertEquals("current", manager.getAccessToken(connection));
+        verify(restTemplate, never()).postForObject(anyString(), any(), eq(JsonNode.class));
+    }
+
+    @Test
+    void concurrentCallersShareOneRefresh() throws Exception {
+        CountDownLatch refreshing = new CountDownLatch(1);
+        when(restTemplate.postForObject(anyString(), any(), eq(JsonNode.class))).thenAnswer(invocation -> {
+            refreshing.countDown();
+            Thread.sleep(200);
+            return tokenResponse("new");
+        });
+
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                tokens.add(pool.submit(() -> manager.getAccessToken(connection("old", LocalDateTime.now(ZONE)))));
+            }
+            assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+            for (Future<String> token : tokens) {
+                assertEquals("new", token.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(JsonNode.class));
+    }
+
+    @Test
+    void versionConflictUsesTheOtherInstancesToken() throws Exception {
+        when(restTemplate.postForObject(anyString(), any(), eq(JsonNode.class))).thenReturn(tokenResponse("mine"));
+        when(stravaConnectionMapper.updateById(any(StravaConnection.class))).thenAnswer(invocation -> {
+            // 另一实例先写入
+            db.set(connection("theirs", LocalDateTime.now(ZONE).plusHours(6)));
+            return 0;
+        });
+
+        assertEquals("theirs", manager.getAccessToken(connection("old", LocalDateTime.now(ZONE))));
+    }
+
+    @Test
+    void rejectedRefreshTokenIsMarkedRevoked() {
+        when(restTemplate.postForObject(anyString(), any(), eq(JsonNode.class))).thenThrow(
+                HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+
+        assertThrows(HttpClientErrorException.class,
+                () -> manager.getAccessToken(connection("old", LocalDateTime.now(ZONE))));
+
+        LambdaUpdateWrapper<StravaConnection> update = capturedUpdate();
+        assertTrue(update.getSqlSet().contains("refresh_revoked="));
+        assertTrue(update.getParamNameValuePairs().containsValue(true));
+
+        StravaConnection revoked = connection("old", LocalDateTime.now(ZONE));
+        revoked.setRefreshRevoked(true);
+        assertThrows(IllegalStateException.class, () -> manager.getAccessToken(revoked));
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(JsonNode.class));
+    }
+
+    @Test
+    void transientFailureBacksOffExponentially() {
+        db.get().setRefreshFailures(2);
+        when(restTemplate.postForObject(anyString(), any(), eq(JsonNode.class)))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        LocalDateTime before = LocalDateTime.now(ZONE);
+        assertThrows(ResourceAccessException.class,
+                () -> manager.getAccessToken(connection("old", LocalDateTime.now(ZONE))));
+
+        LambdaUpdateWrapper<StravaConnection> update = capturedUpdate();
+        assertFalse(update.getSqlSet().contains("refresh_revoked="));
+        assertTrue(update.getParamNameValuePairs().containsValue(3));
+        // 第 3 次失败: 5 * 2^2 = 20 分钟
+        LocalDateTime retryAt = update.getParamNameValuePairs().values().stream()
+                .filter(LocalDateTime.class::isInstance).map(LocalDateTime.class::cast)
+                .max(LocalDateTime::compareTo).orElseThrow();
+        assertFalse(retryAt.isBefore(before.plusMinutes(20)));
+        assertTrue(retryAt.isBefore(before.plusMinutes(21)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private LambdaUpdateWrapper<StravaConnection> capturedUpdate() {
+        ArgumentCaptor<LambdaUpdateWrapper<StravaConnection>> update = ArgumentCaptor.forClass(LambdaUpdateWrapper.class);
+        verify(stravaConnectionMapper).update(any(), update.capture());
+        return update.getValue();
+    }
+
+    private static JsonNode tokenResponse(String accessToken) throws Exception {
+        long expiresAt = LocalDateTime.now(ZONE).plusHours(6).atZone(ZONE).toEpochSecond();
+        return JSON.readTree("{\"access_token\":\"" + accessToken + "\",\"refresh_token\":\"r2\",\"expires_at\":"
+                + expiresAt + "}");
+    }
+
+    private static StravaConnection connection(String accessToken, LocalDateTime expiresAt) {
+        StravaConnection connection = new StravaConnection();
+        connection.setId(1L);
+        connection.setStravaAthleteId(100L);
+        connection.setWalletAddress("0xabc");
+        connection.setAccessToken(accessToken);
+        connection.setRefreshToken("r1");
+        connection.setExpiresAt(expiresAt);
+        connection.setVersion(1);
+        return connection;
+    }
+
+    private static StravaConnection copy(StravaConnection source) {
+        StravaConnection connection = connection(source.getAccessToken(), source.getExpiresAt());
+        connection.setRefreshToken(source.getRefreshToken());
+        connection.setVersion(source.getVersion());
+        connection.setRefreshFailures(source.getRefreshFailures());
+        connection.setRefreshRevoked(source.getRefreshRevoked());
+        return connection;
+    }
+}
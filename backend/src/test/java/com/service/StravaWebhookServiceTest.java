@@ -0,0 +1,149 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.domain.entity.StravaConnection;
+import com.domain.entity.StravaRunCriteria;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mapper.StravaConnectionMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class StravaWebhookServiceTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    private final StravaConnectionMapper stravaConnectionMapper = mock(StravaConnectionMapper.class);
+    private final StravaService stravaService = mock(StravaService.class);
+    private final StravaRunLedger stravaRunLedger = mock(StravaRunLedger.class);
+    private final StravaRunCriteriaService stravaRunCriteriaService = mock(StravaRunCriteriaService.class);
+    private final StravaWebhookService service = new StravaWebhookService();
+    private final StravaConnection connection = new StravaConnection();
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), StravaConnection.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "verifyToken", "verify");
+        ReflectionTestUtils.setField(service, "subscriptionId", 5L);
+        ReflectionTestUtils.setField(service, "stravaConnectionMapper", stravaConnectionMapper);
+        ReflectionTestUtils.setField(service, "connectionCache", mock(ConnectionCache.class));
+        ReflectionTestUtils.setField(service, "stravaService", stravaService);
+        ReflectionTestUtils.setField(service, "stravaRunLedger", stravaRunLedger);
+        ReflectionTestUtils.setField(service, "stravaRunCriteriaService", stravaRunCriteriaService);
+
+        connection.setId(1L);
+        connection.setStravaAthleteId(100L);
+        connection.setWalletAddress("0xabc");
+        when(stravaConnectionMapper.selectOne(any())).thenReturn(connection);
+        StravaRunCriteria criteria = new StravaRunCriteria();
+        criteria.setActivityTypes("Run");
+        when(stravaRunCriteriaService.defaults()).thenReturn(criteria);
+        when(stravaRunLedger.today()).thenReturn(TODAY);
+    }
+
+    @Test
+    void withoutSubscriptionEventsAndHandshakeAreRefused() throws Exception {
+        ReflectionTestUtils.setField(service, "subscriptionId", 0L);
+        service.init();
+
+        assertNull(service.verifySubscription("subscribe", "verify", "challenge"));
+        service.receive(event("create", 9));
+        service.shutdown();
+
+        verifyNoInteractions(stravaConnectionMapper, stravaService, stravaRunLedger);
+    }
+
+    @Test
+    void qualifyingRunIsRecordedBeforeActiveStamp() throws Exception {
+        when(stravaService.getActivity(connection, 9)).thenReturn(run("2026-03-01T01:00:00Z", 5000));
+
+        service.handle(event("create", 9));
+
+        InOrder order = inOrder(stravaRunLedger, stravaConnectionMapper);
+        order.verify(stravaRunLedger).markRun(1L, TODAY, 9L);
+        order.verify(stravaConnectionMapper).update(any(), any());
+    }
+
+    @Test
+    void failedProcessingDoesNotStampActive() throws Exception {
+        when(stravaService.getActivity(connection, 9)).thenThrow(new IllegalStateException("503"));
+
+        assertThrows(IllegalStateException.class, () -> service.handle(event("create", 9)));
+
+        verify(stravaConnectionMapper, never()).update(any(), any());
+    }
+
+    @Test
+    void deletedRunIsRevokedAndTodayRechecked() throws Exception {
+        when(stravaRunLedger.revokeRun(1L, 9L)).thenReturn(true);
+        when(stravaService.checkRunningToday(eq(connection), any())).thenReturn(true);
+
+        service.handle(event("delete", 9));
+
+        verify(stravaService, never()).getActivity(any(), anyLong());
+        verify(stravaRunLedger).markRun(1L, TODAY, null);
+        verify(stravaConnectionMapper).update(any(), any());
+    }
+
+    @Test
+    void deletedRunWithoutOtherRunStaysRevoked() throws Exception {
+        when(stravaRunLedger.revokeRun(1L, 9L)).thenReturn(true);
+        when(stravaService.checkRunningToday(eq(connection), any())).thenReturn(false);
+
+        service.handle(event("delete", 9));
+
+        verify(stravaRunLedger, never()).markRun(any(), any(), any());
+    }
+
+    @Test
+    void updateThatNoLongerQualifiesRevokes() throws Exception {
+        StravaService.ActivitySummary ride = run("2026-03-01T01:00:00Z", 5000);
+        ride.setType("Ride");
+        ride.setSportType("Ride");
+        when(stravaService.getActivity(connection, 9)).thenReturn(ride);
+
+        service.handle(event("update", 9));
+
+        verify(stravaRunLedger).revokeRun(1L, 9L);
+        verify(stravaRunLedger, never()).markRun(any(), any(), any());
+    }
+
+    private static JsonNode event(String aspect, long activityId) throws Exception {
+        return JSON.readTree("{\"subscription_id\":5,\"object_type\":\"activity\",\"aspect_type\":\"" + aspect
+                + "\",\"owner_id\":100,\"object_id\":" + activityId + "}");
+    }
+
+    private static StravaService.ActivitySummary run(String startDate, double distance) {
+        StravaService.ActivitySummary activity = new StravaService.ActivitySummary();
+        activity.setType("Run");
+        activity.setSportType("Run");
+        activity.setDistance(distance);
+        activity.setMovingTime(1800);
+        activity.setStartDate(startDate);
+        return activity;
+    }
+}
@@ -0,0 +1,225 @@
+package com.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.common.Constants;
+import com.domain.DailyCheckIn;
+import com.domain.entity.ChainOutbox;
+import com.mapper.ChainOutboxMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 回执跟踪: 同 nonce 替换、替换前持久化、nonce 被占用后的放回
+ */
+class TxReceiptTrackerTest {
+
+    private final BlockchainService blockchainService = mock(BlockchainService.class);
+    private final CheckInService checkInService = mock(CheckInService.class);
+    private final ChainOutboxMapper chainOutboxMapper = mock(ChainOutboxMapper.class);
+    private final TxReceiptTracker tracker = new TxReceiptTracker();
+
+    /** 节点上各哈希的状态，未列出的视为 UNKNOWN */
+    private final Map<String, BlockchainService.TxLookup> chain = new HashMap<>();
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), ChainOutbox.class);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(tracker, "maxPerTick", 100);
+        ReflectionTestUtils.setField(tracker, "resubmitAfterMinutes", 10L);
+        ReflectionTestUtils.setField(tracker, "feeBumpPercent", 20);
+        ReflectionTestUtils.setField(tracker, "maxResubmits", 3);
+        ReflectionTestUtils.setField(tracker, "blockchainService", blockchainService);
+        ReflectionTestUtils.setField(tracker, "checkInService", checkInService);
+        ReflectionTestUtils.setField(tracker, "chainOutboxMapper", chainOutboxMapper);
+
+        when(blockchainService.lookupTransactions(anyList())).thenAnswer(invocation -> {
+            Map<String, BlockchainService.TxLookup> result = new LinkedHashMap<>();
+            for (String hash : invocation.<List<String>>getArgument(0)) {
+                result.put(hash, chain.getOrDefault(hash, lookup(BlockchainService.TxState.UNKNOWN, null)));
+            }
+            return result;
+        });
+    }
+
+    @Test
+    void overdueTxIsReplacedAtSameNonceAndPersistedFirst() throws Exception {
+        DailyCheckIn checkIn = inFlight("0xold", 20);
+        stubInFlight(checkIn);
+        chain.put("0xold", lookup(BlockchainService.TxState.PENDING, null));
+        BlockchainService.SentTx replacement = replacement("0xnew");
+        when(blockchainService.prepareReplacement(anyList(), anyList(), any(), any(), anyInt())).thenReturn(replacement);
+
+        tracker.poll();
+
+        verify(blockchainService).prepareReplacement(List.of("0xabc"), List.of(BigInteger.valueOf(11)),
+                BigInteger.valueOf(7), BigInteger.valueOf(100), 20);
+        InOrder order = inOrder(checkInService, blockchainService);
+        order.verify(checkInService).replaceTxHash("0xold", replacement);
+        order.verify(blockchainService).broadcast(replacement);
+        verify(checkInService, never()).requeueDeadTx(anyString());
+    }
+
+    @Test
+    void recentTxIsNotReplaced() throws Exception {
+        stubInFlight(inFlight("0xold", 1));
+        chain.put("0xold", lookup(BlockchainService.TxState.PENDING, null));
+
+        tracker.poll();
+
+        verify(blockchainService, never()).prepareReplacement(anyList(), anyList(), any(), any(), anyInt());
+    }
+
+    @Test
+    void minedReplacedHashConfirmsTheRecord() throws Exception {
+        DailyCheckIn checkIn = inFlight("0xnew", 20);
+        checkIn.setTxReplacedHashes("0xold");
+        stubInFlight(checkIn);
+        chain.put("0xold", lookup(BlockchainService.TxState.MINED, BigInteger.valueOf(99)));
+
+        tracker.poll();
+
+        verify(checkInService).updateTxStatusByHash("0xnew", Constants.TX_STATUS_CONFIRMED, 99L, "0xold");
+        verify(blockchainService, never()).prepareReplacement(anyList(), anyList(), any(), any(), anyInt());
+    }
+
+    @Test
+    void tooManyResubmitsMarksFailed() throws Exception {
+        DailyCheckIn checkIn = inFlight("0xold", 20);
+        checkIn.setTxResubmits(3);
+        stubInFlight(checkIn);
+
+        tracker.poll();
+
+        verify(checkInService).updateTxStatusByHash("0xold", Constants.TX_STATUS_FAILED, null);
+        verify(blockchainService, never()).prepareReplacement(anyList(), anyList(), any(), any(), anyInt());
+    }
+
+    @Test
+    void consumedNonceWithoutReceiptRequeues() throws Exception {
+        stubInFlight(inFlight("0xold", 20));
+        BlockchainService.SentTx replacement = replacement("0xnew");
+        when(blockchainService.prepareReplacement(anyList(), anyList(), any(), any(), anyInt())).thenReturn(replacement);
+        doThrow(new BlockchainService.TxRejectedException("nonce too low", true))
+                .when(blockchainService).broadcast(replacement);
+
+        tracker.poll();
+
+        verify(checkInService).requeueDeadTx("0xnew");
+    }
+
+    @Test
+    void consumedNonceWithMinedOriginalWaitsForReceipt() throws Exception {
+        stubInFlight(inFlight("0xold", 20));
+        BlockchainService.SentTx replacement = replacement("0xnew");
+        when(blockchainService.prepareReplacement(anyList(), anyList(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            // 替换签名期间原交易被打包
+            chain.put("0xold", lookup(BlockchainService.TxState.MINED, BigInteger.valueOf(99)));
+            return replacement;
+        });
+        doThrow(new BlockchainService.TxRejectedException("nonce too low", true))
+                .when(blockchainService).broadcast(replacement);
+
+        tracker.poll();
+
+        verify(checkInService, never()).requeueDeadTx(anyString());
+    }
+
+    @Test
+    void overdueSlashRebroadcastsSameSignedTx() throws Exception {
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(slash()));
+
+        tracker.poll();
+
+        verify(blockchainService).rebroadcast("0xslash", BigInteger.valueOf(5), BigInteger.TEN, "0xraw");
+        verify(chainOutboxMapper).update(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deadSlashIsPutBackInOutbox() throws Exception {
+        when(chainOutboxMapper.selectList(any())).thenReturn(List.of(slash()));
+        doThrow(new BlockchainService.TxRejectedException("nonce too low", true))
+                .when(blockchainService).rebroadcast(anyString(), any(), any(), anyString());
+
+        tracker.poll();
+
+        ArgumentCaptor<LambdaUpdateWrapper<ChainOutbox>> update = ArgumentCaptor.forClass(LambdaUpdateWrapper.class);
+        verify(chainOutboxMapper).update(any(), update.capture());
+        assertTrue(update.getValue().getSqlSet().contains("tx_raw="));
+        assertTrue(update.getValue().getParamNameValuePairs().containsValue(Constants.TX_STATUS_PENDING));
+    }
+
+    private void stubInFlight(DailyCheckIn checkIn) {
+        when(checkInService.listInFlight(anyInt())).thenReturn(List.of(checkIn));
+        when(checkInService.listByTxHash(checkIn.getTxHash())).thenReturn(List.of(checkIn));
+    }
+
+    private static DailyCheckIn inFlight(String hash, long minutesAgo) {
+        DailyCheckIn checkIn = new DailyCheckIn();
+        checkIn.setWalletAddress("0xabc");
+        checkIn.setChallengeId(11L);
+        checkIn.setCheckInDate(LocalDate.of(2026, 3, 1));
+        checkIn.setTxHash(hash);
+        checkIn.setTxStatus(Constants.TX_STATUS_SENT);
+        checkIn.setTxUpdatedAt(LocalDateTime.now().minusMinutes(minutesAgo));
+        checkIn.setTxNonce(7L);
+        checkIn.setTxGasPrice(100L);
+        return checkIn;
+    }
+
+    private static ChainOutbox slash() {
+        ChainOutbox outbox = new ChainOutbox();
+        outbox.setId(1L);
+        outbox.setChallengeId(11L);
+        outbox.setKind(Constants.OUTBOX_KIND_SLASH);
+        outbox.setStatus(Constants.TX_STATUS_SENT);
+        outbox.setTxHash("0xslash");
+        outbox.setTxNonce(5L);
+        outbox.setTxGasPrice(10L);
+        outbox.setTxRaw("0xraw");
+        outbox.setUpdatedAt(LocalDateTime.now().minusMinutes(20));
+        return outbox;
+    }
+
+    private static BlockchainService.SentTx replacement(String hash) {
+        return new BlockchainService.SentTx(hash, BigInteger.valueOf(7), BigInteger.valueOf(120), "0xraw", true);
+    }
+
+    private static BlockchainService.TxLookup lookup(BlockchainService.TxState state, BigInteger blockNumber) {
+        BlockchainService.TxLookup lookup = new BlockchainService.TxLookup();
+        lookup.state = state;
+        lookup.blockNumber = blockNumber;
+        return lookup;
+    }
+}
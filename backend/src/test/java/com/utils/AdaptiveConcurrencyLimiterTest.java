@@ -0,0 +1,95 @@
+package com.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void growsAdditivelyOnlyWhenSaturated() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 100, 0.5);
+        assertTrue(limiter.acquire(0));
+        assertTrue(limiter.acquire(0));
+
+        // 用满时每次成功 +1/limit: 2 -> 2.5 -> 2.9 -> 3.24
+        for (int i = 0; i < 3; i++) {
+            limiter.release(FAST, true);
+            assertTrue(limiter.acquire(0));
+        }
+        assertEquals(3, limiter.getLimit());
+
+        // 未用满时不增长
+        AdaptiveConcurrencyLimiter idle = new AdaptiveConcurrencyLimiter(4, 1, 10, 100, 0.5);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(idle.acquire(0));
+            idle.release(FAST, true);
+        }
+        assertEquals(4, idle.getLimit());
+    }
+
+    @Test
+    void backsOffMultiplicativelyOnFailureOrSlowCall() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, 100, 0.75);
+
+        assertTrue(limiter.acquire(0));
+        limiter.release(FAST, false);
+        assertEquals(6, limiter.getLimit());
+
+        assertTrue(limiter.acquire(0));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(200), true);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void staysWithinFloorAndCeiling() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, 100, 0.5);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.acquire(0));
+            limiter.release(FAST, false);
+        }
+        assertEquals(2, limiter.getLimit());
+
+        AdaptiveConcurrencyLimiter capped = new AdaptiveConcurrencyLimiter(3, 1, 3, 100, 0.5);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(capped.acquire(0));
+        }
+        for (int i = 0; i < 20; i++) {
+            capped.release(FAST, true);
+            assertTrue(capped.acquire(0));
+        }
+        assertEquals(3, capped.getLimit());
+        assertFalse(capped.acquire(0));
+    }
+
+    @Test
+    void acquireTimesOutAtLimitAndWakesOnRelease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 100, 0.5);
+        assertTrue(limiter.acquire(0));
+
+        long start = System.nanoTime();
+        assertFalse(limiter.acquire(50));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, limiter.getInFlight());
+
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(5_000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        limiter.release(FAST, true);
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,43 @@
+package com.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimHashTest {
+
+    @Test
+    void fingerprintsWithinDistanceShareABand() {
+        Random random = new Random(42);
+        for (int distance = 0; distance <= 7; distance++) {
+            int bands = distance + 1;
+            for (int trial = 0; trial < 2_000; trial++) {
+                long a = random.nextLong();
+                long b = a;
+                while (SimHash.distance(a, b) < distance) {
+                    b ^= 1L << random.nextInt(64);
+                }
+                boolean shared = false;
+                for (int i = 0; i < bands; i++) {
+                    shared |= SimHash.band(a, i, bands) == SimHash.band(b, i, bands);
+                }
+                assertTrue(shared, "distance " + distance + ": " + Long.toHexString(a) + " / " + Long.toHexString(b));
+            }
+        }
+    }
+
+    @Test
+    void bandsCoverAllBits() {
+        long fingerprint = 0x0123_4567_89AB_CDEFL;
+        for (int bands = 1; bands <= 8; bands++) {
+            long rebuilt = 0;
+            for (int i = 0; i < bands; i++) {
+                rebuilt |= SimHash.band(fingerprint, i, bands) << (i * 64 / bands);
+            }
+            assertEquals(fingerprint, rebuilt, "bands " + bands);
+        }
+    }
+}
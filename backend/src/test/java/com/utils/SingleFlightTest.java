@@ -0,0 +1,81 @@
+package com.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<Integer> first = pool.submit(() -> flights.execute("k", () -> {
+                calls.incrementAndGet();
+                entered.countDown();
+                await(release);
+                return 7;
+            }));
+            entered.await(5, TimeUnit.SECONDS);
+            List<Future<Integer>> waiters = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                waiters.add(pool.submit(() -> flights.execute("k", calls::incrementAndGet)));
+            }
+            // 等待者都已挂在同一个 future 上
+            Thread.sleep(100);
+            release.countDown();
+            assertEquals(7, first.get(5, TimeUnit.SECONDS));
+            for (Future<Integer> waiter : waiters) {
+                assertEquals(7, waiter.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+            assertEquals(0, flights.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void keyIsReleasedAfterFailure() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        assertThrows(IllegalStateException.class,
+                () -> flights.execute("k", () -> { throw new IllegalStateException("boom"); }));
+        assertEquals(1, flights.execute("k", () -> 1));
+    }
+
+    @Test
+    void asyncCallersGetTheSameFuture() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        CompletableFuture<Integer> a = flights.executeAsync("k", () -> pending);
+        CompletableFuture<Integer> b = flights.executeAsync("k", () -> CompletableFuture.completedFuture(2));
+        assertSame(a, b);
+        pending.complete(1);
+        assertEquals(1, b.join());
+        assertEquals(0, flights.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -111,6 +111,8 @@ contract HabitEscrow is Ownable, ReentrancyGuard {
 
     event ResurrectionUsed(address indexed user, uint256 indexed challengeId);
 
+    event DayCompleteSkipped(address indexed user, uint256 indexed challengeId);
+
     // ========== 修饰器 ==========
 
     modifier onlyAgent() {
@@ -276,13 +278,30 @@ contract HabitEscrow is Ownable, ReentrancyGuard {
             "Challenge not active"
         );
 
-        challenge.completedDays++;
-
-        emit DayCompleted(_user, _challengeId, challenge.completedDays);
+        _completeDay(_user, _challengeId, challenge);
+    }
 
-        // 检查是否完成挑战
-        if (challenge.completedDays >= challenge.targetDays) {
-            challenge.status = ChallengeStatus.Completed;
+    /**
+     * @dev 批量记录每日完成（Agent 调用）
+     * 非进行中的挑战会被跳过并发出 DayCompleteSkipped，而不是回滚整批
+     * @param _users 用户地址列表
+     * @param _challengeIds 挑战ID列表（与 _users 一一对应）
+     */
+    function recordDayCompleteBatch(
+        address[] calldata _users,
+        uint256[] calldata _challengeIds
+    ) external onlyAgent {
+        require(_users.length == _challengeIds.length, "Length mismatch");
+
+        for (uint256 i = 0; i < _users.length; i++) {
+            Challenge storage challenge = challenges[_users[i]][
+                _challengeIds[i]
+            ];
+            if (challenge.status != ChallengeStatus.Active) {
+                emit DayCompleteSkipped(_users[i], _challengeIds[i]);
+                continue;
+            }
+            _completeDay(_users[i], _challengeIds[i], challenge);
         }
     }
 
@@ -321,6 +340,26 @@ contract HabitEscrow is Ownable, ReentrancyGuard {
         emit Slashed(_user, _challengeId, slashAmount, challenge.penaltyType);
     }
 
+    // ========== 内部函数 ==========
+
+    /**
+     * @dev 完成天数 +1，达到目标天数时标记挑战完成
+     */
+    function _completeDay(
+        address _user,
+        uint256 _challengeId,
+        Challenge storage challenge
+    ) internal {
+        challenge.completedDays++;
+
+        emit DayCompleted(_user, _challengeId, challenge.completedDays);
+
+        // 检查是否完成挑战
+        if (challenge.completedDays >= challenge.targetDays) {
+            challenge.status = ChallengeStatus.Completed;
+        }
+    }
+
     // ========== 管理函数 ==========
 
     /**
@@ -196,6 +196,108 @@ contract HabitEscrowTest is Test {
         );
     }
 
+    function test_RecordDayCompleteBatch() public {
+        vm.prank(user1);
+        escrow.createChallenge{value: 0.1 ether}(
+            7,
+            HabitEscrow.PenaltyType.Charity,
+            "Test"
+        );
+        vm.prank(user2);
+        escrow.createChallenge{value: 0.1 ether}(
+            7,
+            HabitEscrow.PenaltyType.Burn,
+            "Test"
+        );
+
+        address[] memory users = new address[](2);
+        uint256[] memory ids = new uint256[](2);
+        users[0] = user1;
+        users[1] = user2;
+
+        vm.prank(agent);
+        escrow.recordDayCompleteBatch(users, ids);
+
+        assertEq(escrow.getChallenge(user1, 0).completedDays, 1);
+        assertEq(escrow.getChallenge(user2, 0).completedDays, 1);
+    }
+
+    function test_RecordDayCompleteBatch_SkipsInactive() public {
+        vm.prank(user1);
+        escrow.createChallenge{value: 0.1 ether}(
+            7,
+            HabitEscrow.PenaltyType.Charity,
+            "Test"
+        );
+        vm.prank(user2);
+        escrow.createChallenge{value: 0.1 ether}(
+            7,
+            HabitEscrow.PenaltyType.Burn,
+            "Test"
+        );
+        vm.prank(agent);
+        escrow.slash(user2, 0);
+
+        address[] memory users = new address[](2);
+        uint256[] memory ids = new uint256[](2);
+        users[0] = user1;
+        users[1] = user2;
+
+        vm.expectEmit(true, true, false, true);
+        emit HabitEscrow.DayCompleteSkipped(user2, 0);
+
+        vm.prank(agent);
+        escrow.recordDayCompleteBatch(users, ids);
+
+        assertEq(escrow.getChallenge(user1, 0).completedDays, 1);
+        assertEq(escrow.getChallenge(user2, 0).completedDays, 0);
+    }
+
+    function test_RecordDayCompleteBatch_CompletesChallenge() public {
+        vm.prank(user1);
+        escrow.createChallenge{value: 0.1 ether}(
+            7,
+            HabitEscrow.PenaltyType.Charity,
+            "Test"
+        );
+
+        address[] memory users = new address[](1);
+        uint256[] memory ids = new uint256[](1);
+        users[0] = user1;
+
+        vm.startPrank(agent);
+        for (uint256 i = 0; i < 7; i++) {
+            escrow.recordDayCompleteBatch(users, ids);
+        }
+        vm.stopPrank();
+
+        HabitEscrow.Challenge memory challenge = escrow.getChallenge(user1, 0);
+        assertEq(challenge.completedDays, 7);
+        assertEq(
+            uint256(challenge.status),
+            uint256(HabitEscrow.ChallengeStatus.Completed)
+        );
+    }
+
+    function test_RecordDayCompleteBatch_RevertIfLengthMismatch() public {
+        address[] memory users = new address[](2);
+        uint256[] memory ids = new uint256[](1);
+
+        vm.prank(agent);
+        vm.expectRevert("Length mismatch");
+        escrow.recordDayCompleteBatch(users, ids);
+    }
+
+    function test_RecordDayCompleteBatch_RevertIfNotAgent() public {
+        address[] memory users = new address[](1);
+        uint256[] memory ids = new uint256[](1);
+        users[0] = user1;
+
+        vm.prank(user1);
+        vm.expectRevert("Only agent can call");
+        escrow.recordDayCompleteBatch(users, ids);
+    }
+
     // ========== Claim Reward Tests ==========
 
     function test_ClaimReward() public {